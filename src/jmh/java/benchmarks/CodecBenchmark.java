@@ -0,0 +1,75 @@
+package benchmarks;
+
+import dao.Conexao;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import org.bson.BsonReader;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decodificacao de documentos BSON pelo codec POJO (Conexao.getCodecs()),
+ * o custo pago por documento em toda leitura do MongoDB. Compara o formato
+ * gravado (apenas referencias) com a utilizacao completa. Nao usa o banco.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private final DecoderContext contexto = DecoderContext.builder().build();
+    private Codec<Utilizacao> codec;
+    private RawBsonDocument enxuta;
+    private RawBsonDocument completa;
+
+    @Setup
+    public void preparar() {
+        codec = Conexao.getCodecs().get(Utilizacao.class);
+        LocalDateTime retirada = LocalDateTime.of(2024, 3, 15, 8, 30);
+        Usuario operador = new Usuario(1, "Operador JMH", "jmh", "jmh");
+        Utilizacao utilizacao = new Utilizacao(123456, new Veiculo("ABC1D23", "Fiat", "Strada"),
+                new Motorista(42, "Maria da Silva", "12345678901", "Manutencao"),
+                retirada, retirada.plusHours(5), operador, operador);
+
+        completa = new RawBsonDocument(utilizacao, codec);
+        enxuta = new RawBsonDocument(new Utilizacao(utilizacao.getCodigo(),
+                new Veiculo(utilizacao.getVeiculo().getPlaca(), null, null),
+                new Motorista(utilizacao.getMotorista().getCodigo(), null, null, null),
+                retirada, utilizacao.getDataDevolucao(),
+                new Usuario(1, null, null, null), new Usuario(1, null, null, null)), codec);
+    }
+
+    @Benchmark
+    public Utilizacao decodificarEnxuta() {
+        return decodificar(enxuta);
+    }
+
+    @Benchmark
+    public Utilizacao decodificarCompleta() {
+        return decodificar(completa);
+    }
+
+    private Utilizacao decodificar(RawBsonDocument documento) {
+        try (BsonReader leitor = documento.asBsonReader()) {
+            return codec.decode(leitor, contexto);
+        }
+    }
+}
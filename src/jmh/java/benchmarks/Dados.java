@@ -0,0 +1,162 @@
+package benchmarks;
+
+import com.mongodb.client.MongoDatabase;
+import dao.Conexao;
+import dao.OpcoesLote;
+import dao.Repositorios;
+import interfaces.IRepositorio;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Massa de dados compartilhada pelos benchmarks.
+ *
+ * Cada combinacao de parametros roda em uma JVM propria (fork do JMH), entao
+ * o repositorio (-Dfrota.repositorio) e definido aqui antes do primeiro uso
+ * de Repositorios. Com o MongoDB os dados vao para o banco veiculos_jmh
+ * (salvo se -Dfrota.mongo.banco for informado) e so sao gravados de novo
+ * quando a quantidade de utilizacoes no banco for diferente da pedida.
+ *
+ * A massa tem VEICULOS veiculos, MOTORISTAS motoristas, um operador e
+ * "registros" utilizacoes ja devolvidas, exceto a ultima de cada um dos
+ * EM_ABERTO primeiros veiculos, que fica em aberto.
+ */
+@State(Scope.Benchmark)
+public class Dados {
+
+    static final int VEICULOS = 500;
+    static final int MOTORISTAS = 200;
+    static final int EM_ABERTO = 50;
+    static final String LOGIN_OPERADOR = "jmh";
+
+    private static final int LOTE = 10_000;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2015, 1, 1, 6, 0);
+
+    @Param({"memoria", "mongo"})
+    public String repositorio;
+
+    @Param({"1000", "100000", "1000000"})
+    public int registros;
+
+    Usuario operador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        System.setProperty("frota.repositorio", repositorio);
+        if (System.getProperty("frota.mongo.banco") == null) {
+            System.setProperty("frota.mongo.banco", "veiculos_jmh");
+        }
+
+        IRepositorio<Utilizacao> utilizacoes = Repositorios.para(Utilizacao.class);
+        try {
+            if (utilizacoes.contar() != registros) {
+                if (!Repositorios.isMemoria()) {
+                    limparBanco();
+                }
+                popular(utilizacoes);
+            }
+        } finally {
+            utilizacoes.fecharConexao();
+        }
+
+        IRepositorio<Usuario> usuarios = Repositorios.para(Usuario.class);
+        try {
+            operador = usuarios.buscarPorChave("login", LOGIN_OPERADOR);
+        } finally {
+            usuarios.fecharConexao();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        if (!Repositorios.isMemoria()) {
+            Conexao.encerrar();
+        }
+    }
+
+    /**
+     * Placa do veiculo de indice i da massa (formato antigo, LLLNNNN).
+     */
+    static String placa(int i) {
+        return String.format("JMH%04d", i);
+    }
+
+    /**
+     * Indica se o veiculo de indice i tem utilizacao em aberto na massa.
+     */
+    static boolean emAberto(int i) {
+        return i < EM_ABERTO;
+    }
+
+    private void limparBanco() {
+        // deleteMany (e nao drop) para manter os indices ja criados
+        MongoDatabase banco = Conexao.adquirir();
+        try {
+            for (String colecao : List.of("utilizacao", "veiculo", "motorista", "usuario", "contadores")) {
+                banco.getCollection(colecao).deleteMany(new Document());
+            }
+        } finally {
+            Conexao.liberar();
+        }
+    }
+
+    private void popular(IRepositorio<Utilizacao> utilizacoes) {
+        List<Veiculo> veiculos = new ArrayList<>();
+        for (int i = 0; i < VEICULOS; i++) {
+            veiculos.add(new Veiculo(placa(i), i % 2 == 0 ? "Fiat" : "Volkswagen", "Modelo " + (i % 20)));
+        }
+        inserir(Veiculo.class, veiculos);
+
+        List<Motorista> motoristas = new ArrayList<>();
+        for (int i = 1; i <= MOTORISTAS; i++) {
+            motoristas.add(new Motorista(i, "Motorista " + i, String.format("%011d", 10_000_000_000L + i),
+                    "Setor " + (i % 10)));
+        }
+        inserir(Motorista.class, motoristas);
+
+        inserir(Usuario.class, List.of(new Usuario(1, "Operador JMH", LOGIN_OPERADOR, "jmh")));
+
+        // Utilizacoes gravadas no formato enxuto (apenas referencias, ver
+        // HidratadorUtilizacao), uma a cada 10 minutos em rodizio pelos veiculos
+        Usuario refOperador = new Usuario(1, null, null, null);
+        List<Utilizacao> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < registros; i++) {
+            int veiculo = i % VEICULOS;
+            LocalDateTime retirada = INICIO.plusMinutes(10L * i);
+            boolean aberta = emAberto(veiculo) && i >= registros - VEICULOS;
+            lote.add(new Utilizacao(i + 1,
+                    new Veiculo(placa(veiculo), null, null),
+                    new Motorista(1 + i % MOTORISTAS, null, null, null),
+                    retirada, aberta ? null : retirada.plusHours(2),
+                    refOperador, aberta ? null : refOperador));
+            if (lote.size() == LOTE) {
+                utilizacoes.inserirLote(lote, new OpcoesLote().tamanhoLote(LOTE));
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            utilizacoes.inserirLote(lote, new OpcoesLote().tamanhoLote(LOTE));
+        }
+    }
+
+    private static <T> void inserir(Class<T> classe, List<T> objetos) {
+        IRepositorio<T> repositorio = Repositorios.para(classe);
+        try {
+            repositorio.inserirLote(objetos, new OpcoesLote());
+        } finally {
+            repositorio.fecharConexao();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import servico.RelatorioUtilizacoes;
+import servico.ServicoUtilizacao;
+
+/**
+ * Relatorio de todas as utilizacoes (leitura pelo cursor, hidratacao e
+ * formatacao), escrito em um Writer que descarta o texto.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RelatorioBenchmark {
+
+    private ServicoUtilizacao servico;
+    private RelatorioUtilizacoes relatorio;
+
+    @Setup(Level.Trial)
+    public void preparar(Dados dados) {
+        servico = new ServicoUtilizacao();
+        relatorio = new RelatorioUtilizacoes(servico);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        servico.fecharConexao();
+    }
+
+    @Benchmark
+    public long escreverTodas() throws IOException {
+        return relatorio.escreverTodas(Writer.nullWriter());
+    }
+}
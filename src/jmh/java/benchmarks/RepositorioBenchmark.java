@@ -0,0 +1,90 @@
+package benchmarks;
+
+import dao.Consulta;
+import dao.Pagina;
+import dao.Repositorios;
+import interfaces.IRepositorio;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operacoes basicas do repositorio (IRepositorio) sobre a colecao de
+ * utilizacoes: busca por chave, consulta indexada, primeira pagina da tabela
+ * e o ciclo inserir/alterar/excluir.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RepositorioBenchmark {
+
+    private static final int CODIGO_TEMPORARIO = Integer.MAX_VALUE - 1;
+
+    private IRepositorio<Utilizacao> utilizacoes;
+    private int registros;
+    private Utilizacao temporaria;
+    private Utilizacao alterada;
+
+    @Setup(Level.Trial)
+    public void preparar(Dados dados) {
+        registros = dados.registros;
+        utilizacoes = Repositorios.para(Utilizacao.class);
+        LocalDateTime retirada = LocalDateTime.of(2000, 1, 1, 8, 0);
+        temporaria = new Utilizacao(CODIGO_TEMPORARIO, new Veiculo(Dados.placa(Dados.VEICULOS - 1), null, null),
+                new Motorista(1, null, null, null), retirada, retirada.plusHours(1),
+                new Usuario(1, null, null, null), new Usuario(1, null, null, null));
+        alterada = new Utilizacao(CODIGO_TEMPORARIO, temporaria.getVeiculo(), temporaria.getMotorista(),
+                retirada, retirada.plusHours(3), temporaria.getOperadorRetirada(), temporaria.getOperadorDevolucao());
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        utilizacoes.fecharConexao();
+    }
+
+    @Benchmark
+    public Utilizacao buscarPorCodigo() {
+        return utilizacoes.buscarPorChave("codigo", 1 + ThreadLocalRandom.current().nextInt(registros));
+    }
+
+    @Benchmark
+    public List<Utilizacao> buscarPorPlaca() {
+        String placa = Dados.placa(ThreadLocalRandom.current().nextInt(Dados.VEICULOS));
+        return utilizacoes.buscar(new Consulta()
+                .igual("veiculo.placa", placa)
+                .ordenarPor("dataRetirada", false)
+                .limite(20));
+    }
+
+    @Benchmark
+    public Pagina<Utilizacao> primeiraPagina() {
+        return utilizacoes.listarPagina("dataRetirada", false, 50, null);
+    }
+
+    @Benchmark
+    public boolean inserirAlterarExcluir() {
+        utilizacoes.inserir(temporaria);
+        utilizacoes.alterar("codigo", String.valueOf(CODIGO_TEMPORARIO), alterada);
+        return utilizacoes.excluir("codigo", String.valueOf(CODIGO_TEMPORARIO));
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import excecoes.UtilizacaoException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import servico.ServicoUtilizacao;
+
+/**
+ * Fluxo principal do posto de atendimento: retirada seguida da devolucao de
+ * um veiculo livre, e a consulta de veiculo em uso feita pelas telas.
+ *
+ * Cada retirada acrescenta uma utilizacao a massa; com o MongoDB a massa e
+ * gravada de novo no inicio da proxima execucao (ver Dados).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ServicoUtilizacaoBenchmark {
+
+    private ServicoUtilizacao servico;
+    private Usuario operador;
+    private int proximoVeiculo = Dados.EM_ABERTO;
+
+    @Setup(Level.Trial)
+    public void preparar(Dados dados) {
+        servico = new ServicoUtilizacao();
+        operador = dados.operador;
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        servico.fecharConexao();
+    }
+
+    @Benchmark
+    public Utilizacao retiradaEDevolucao() throws UtilizacaoException {
+        // Rodizio pelos veiculos que estao livres na massa
+        String placa = Dados.placa(proximoVeiculo);
+        proximoVeiculo = proximoVeiculo + 1 < Dados.VEICULOS ? proximoVeiculo + 1 : Dados.EM_ABERTO;
+
+        Utilizacao utilizacao = servico.registrarRetirada(placa, 1 + proximoVeiculo % Dados.MOTORISTAS, operador);
+        servico.registrarDevolucao(placa, operador);
+        return utilizacao;
+    }
+
+    @Benchmark
+    public boolean veiculoEmUso() {
+        return servico.veiculoEmUso(Dados.placa(ThreadLocalRandom.current().nextInt(Dados.VEICULOS)));
+    }
+}
@@ -1,7 +1,14 @@
 package com;
 
+import controllers.Observacoes;
+import controllers.Tarefas;
+import dao.Conexao;
+import dao.GerenciadorIndices;
+import dao.ObservadorMudancas;
 import javafx.application.Application;
+import javafx.beans.binding.Bindings;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Cursor;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -18,12 +25,32 @@ public class App extends Application {
     @Override
     public void start(Stage stage) throws IOException {
     scene = new Scene(loadFXML("Menu"), 800, 520);
+    // Cursor de espera enquanto houver consultas em segundo plano
+    scene.cursorProperty().bind(Bindings.when(Tarefas.ativasProperty().greaterThan(0))
+            .then(Cursor.WAIT).otherwise(Cursor.DEFAULT));
+    // Indices criados fora da thread do JavaFX: com o servidor fora do ar cada um
+    // esperaria o timeout. A retirada confere o seu indice unico antes de gravar
+    Thread indices = new Thread(GerenciadorIndices::garantirIndices, "frota-indices");
+    indices.setDaemon(true);
+    indices.start();
+    // Alteracoes feitas em outros postos (sem efeito se o banco nao for replica set)
+    ObservadorMudancas.iniciar();
     stage.setTitle("Sistema de Frota UENP");
     stage.setScene(scene);
     stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Fecha o cliente MongoDB compartilhado por todas as telas
+        ObservadorMudancas.parar();
+        Conexao.encerrar();
+    }
+
     public static void setRoot(String fxml) throws IOException {
+        // Resultados de consultas da tela anterior nao interessam mais
+        Tarefas.cancelarTodas();
+        Observacoes.cancelarTodas();
         scene.setRoot(loadFXML(fxml));
     }
 
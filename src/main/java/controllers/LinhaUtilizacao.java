@@ -0,0 +1,89 @@
+package controllers;
+
+import java.time.format.DateTimeFormatter;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import modelo.Utilizacao;
+
+/**
+ * Linha da tabela de utilizacoes. Os textos exibidos (placa, motorista,
+ * datas e status) sao montados uma unica vez, ao criar a linha, em vez de a
+ * cada vez que a celula e desenhada.
+ *
+ * As linhas sao criadas junto com a consulta, fora da thread do JavaFX, e nao
+ * mudam depois: uma utilizacao alterada gera uma nova linha.
+ */
+public class LinhaUtilizacao {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final Utilizacao utilizacao;
+    private final ReadOnlyObjectProperty<Integer> codigo;
+    private final ReadOnlyStringProperty veiculo;
+    private final ReadOnlyStringProperty motorista;
+    private final ReadOnlyStringProperty retirada;
+    private final ReadOnlyStringProperty devolucao;
+    private final ReadOnlyStringProperty status;
+    private final String texto;
+
+    public LinhaUtilizacao(Utilizacao utilizacao) {
+        this.utilizacao = utilizacao;
+        this.codigo = new SimpleObjectProperty<>(this, "codigo", utilizacao.getCodigo());
+        this.veiculo = new SimpleStringProperty(this, "veiculo",
+                utilizacao.getVeiculo() != null ? utilizacao.getVeiculo().getPlaca() : "");
+        this.motorista = new SimpleStringProperty(this, "motorista",
+                utilizacao.getMotorista() != null ? utilizacao.getMotorista().getNome() : "");
+        this.retirada = new SimpleStringProperty(this, "retirada",
+                utilizacao.getDataRetirada() != null ? utilizacao.getDataRetirada().format(FORMATO) : "-");
+        this.devolucao = new SimpleStringProperty(this, "devolucao",
+                utilizacao.getDataDevolucao() != null ? utilizacao.getDataDevolucao().format(FORMATO) : "-");
+        this.status = new SimpleStringProperty(this, "status", utilizacao.isEmUso() ? "EM USO" : "DEVOLVIDO");
+        this.texto = utilizacao.toString();
+    }
+
+    /**
+     * Utilizacao exibida na linha.
+     */
+    public Utilizacao getUtilizacao() {
+        return utilizacao;
+    }
+
+    public int getCodigo() {
+        return utilizacao.getCodigo();
+    }
+
+    public ReadOnlyObjectProperty<Integer> codigoProperty() {
+        return codigo;
+    }
+
+    public ReadOnlyStringProperty veiculoProperty() {
+        return veiculo;
+    }
+
+    public ReadOnlyStringProperty motoristaProperty() {
+        return motorista;
+    }
+
+    public ReadOnlyStringProperty retiradaProperty() {
+        return retirada;
+    }
+
+    public ReadOnlyStringProperty devolucaoProperty() {
+        return devolucao;
+    }
+
+    public ReadOnlyStringProperty statusProperty() {
+        return status;
+    }
+
+    /**
+     * Texto da utilizacao; usado pelo SincronizadorLista para saber se a
+     * linha mudou.
+     */
+    @Override
+    public String toString() {
+        return texto;
+    }
+}
@@ -0,0 +1,167 @@
+package controllers;
+
+import dao.Pagina;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+
+/**
+ * Fonte de dados de uma tabela carregada aos poucos: a tabela comeca com a
+ * primeira pagina e as seguintes sao buscadas em segundo plano quando o
+ * usuario rola ate perto do fim das linhas carregadas. As paginas sao lidas
+ * por chave (ver Pagina), de modo que o custo de cada uma nao depende de
+ * quantas ja foram lidas, e a tela abre sem ler o historico inteiro.
+ *
+ * Cada item lido e convertido na linha exibida (ex: LinhaUtilizacao) junto
+ * com a consulta, fora da thread do JavaFX. As linhas ficam na lista do
+ * SincronizadorLista informado, que tambem pode ser usado para aplicar
+ * alteracoes pontuais.
+ *
+ * Deve ser usada na thread do JavaFX.
+ *
+ * @param <T> Tipo dos itens lidos
+ * @param <L> Tipo das linhas exibidas
+ */
+public class ListaPaginada<T, L> {
+
+    /**
+     * Consulta de uma pagina, executada fora da thread do JavaFX.
+     */
+    @FunctionalInterface
+    public interface Carregador<T> {
+        Pagina<T> carregar(int tamanho, Pagina<T> anterior) throws Exception;
+    }
+
+    private final String chave;
+    private final int tamanhoPagina;
+    private final Carregador<T> carregador;
+    private final Function<T, L> conversor;
+    private final SincronizadorLista<L, ?> sincronizador;
+    private final Consumer<Throwable> aoFalhar;
+
+    private Pagina<T> ultima;        // ultima pagina carregada (null antes da primeira)
+    private boolean carregando = false;
+    private boolean falhou = false;  // nao tenta de novo sozinha apos um erro
+
+    /**
+     * @param chave Chave das tarefas de carga (ver Tarefas)
+     * @param tamanhoPagina Quantidade de itens por pagina
+     * @param carregador Consulta de uma pagina
+     * @param conversor Cria a linha exibida a partir do item lido
+     * @param sincronizador Sincronizador da lista exibida
+     * @param aoFalhar Recebe o erro de carga na thread do JavaFX
+     */
+    public ListaPaginada(String chave, int tamanhoPagina, Carregador<T> carregador, Function<T, L> conversor,
+                         SincronizadorLista<L, ?> sincronizador, Consumer<Throwable> aoFalhar) {
+        if (tamanhoPagina <= 0) {
+            throw new IllegalArgumentException("Tamanho de pagina invalido: " + tamanhoPagina);
+        }
+        this.chave = chave;
+        this.tamanhoPagina = tamanhoPagina;
+        this.carregador = carregador;
+        this.conversor = conversor;
+        this.sincronizador = sincronizador;
+        this.aoFalhar = aoFalhar;
+    }
+
+    /**
+     * Liga a lista a uma tabela: define os itens da tabela e pede a proxima
+     * pagina quando uma das ultimas linhas carregadas e exibida.
+     *
+     * @param tabela Tabela que exibe as linhas
+     */
+    public void conectar(TableView<L> tabela) {
+        int margem = Math.max(1, tamanhoPagina / 4);
+        tabela.setItems(sincronizador.getLista());
+        // A ordem e a da consulta; ordenar pela coluna so reordenaria as linhas ja carregadas
+        tabela.getColumns().forEach(coluna -> coluna.setSortable(false));
+        // Apenas as linhas visiveis sao criadas e atualizadas (a tabela e virtualizada)
+        tabela.setRowFactory(t -> new TableRow<>() {
+            @Override
+            protected void updateItem(L item, boolean vazia) {
+                super.updateItem(item, vazia);
+                if (!vazia && getIndex() >= getTableView().getItems().size() - margem) {
+                    carregarProxima();
+                }
+            }
+        });
+    }
+
+    /**
+     * Volta para a primeira pagina. As linhas que continuam na primeira
+     * pagina sao mantidas; as demais sao removidas.
+     */
+    public void reiniciar() {
+        carregando = true;
+        falhou = false;
+        // Mesma chave da carga de paginas: uma carga em andamento e cancelada
+        Tarefas.executar(chave, () -> ler(null),
+            lote -> {
+                concluir(lote);
+                sincronizador.sincronizar(lote.linhas);
+            },
+            this::falhar);
+    }
+
+    /**
+     * Carrega a proxima pagina, se houver e nenhuma carga estiver em andamento.
+     */
+    public void carregarProxima() {
+        if (carregando || falhou || ultima == null || !ultima.temProxima()) {
+            return;
+        }
+        Pagina<T> anterior = ultima;
+        carregando = true;
+        Tarefas.executar(chave, () -> ler(anterior),
+            lote -> {
+                concluir(lote);
+                sincronizador.acrescentar(lote.linhas);
+            },
+            this::falhar);
+    }
+
+    /**
+     * Indica se ainda existem itens que nao foram carregados.
+     *
+     * @return true se ha paginas a carregar (ou a primeira ainda nao chegou)
+     */
+    public boolean temProxima() {
+        return ultima == null || ultima.temProxima();
+    }
+
+    private Lote<T, L> ler(Pagina<T> anterior) throws Exception {
+        Pagina<T> pagina = carregador.carregar(tamanhoPagina, anterior);
+        List<L> linhas = new ArrayList<>(pagina.getItens().size());
+        for (T item : pagina.getItens()) {
+            linhas.add(conversor.apply(item));
+        }
+        return new Lote<>(pagina, linhas);
+    }
+
+    private void concluir(Lote<T, L> lote) {
+        ultima = lote.pagina;
+        carregando = false;
+    }
+
+    private void falhar(Throwable erro) {
+        carregando = false;
+        falhou = true;
+        aoFalhar.accept(erro);
+    }
+
+    /**
+     * Pagina lida e suas linhas ja convertidas.
+     */
+    private static class Lote<T, L> {
+        private final Pagina<T> pagina;
+        private final List<L> linhas;
+
+        Lote(Pagina<T> pagina, List<L> linhas) {
+            this.pagina = pagina;
+            this.linhas = linhas;
+        }
+    }
+}
@@ -42,11 +42,14 @@ public class MotoristasController implements Initializable {
 
     private ServicoMotorista servicoMotorista;
     private ObservableList<Motorista> listaMotoristas;
+    private SincronizadorLista<Motorista, Integer> sincronizador;
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         servicoMotorista = new ServicoMotorista();
         listaMotoristas = FXCollections.observableArrayList();
+        sincronizador = new SincronizadorLista<>(listaMotoristas, Motorista::getCodigo);
+        tabelaMotoristas.setItems(listaMotoristas);
 
         // Configurar colunas da tabela
         colCodigo.setCellValueFactory(new PropertyValueFactory<>("codigo"));
@@ -60,6 +63,9 @@ public class MotoristasController implements Initializable {
 
         // Carregar dados
         carregarDados();
+        // Alteracoes feitas em outros postos
+        Observacoes.observar("motorista", mudanca -> sincronizador.aplicar(mudanca,
+            mudanca.getObjeto(Motorista.class), this::carregarDados));
 
         // Listener para selecao na tabela
         tabelaMotoristas.getSelectionModel().selectedItemProperty().addListener(
@@ -68,13 +74,10 @@ public class MotoristasController implements Initializable {
     }
 
     private void carregarDados() {
-        try {
-            listaMotoristas.clear();
-            listaMotoristas.addAll(servicoMotorista.listarTodos());
-            tabelaMotoristas.setItems(listaMotoristas);
-        } catch (Exception e) {
-            exibirErro("Erro ao carregar motoristas", e.getMessage());
-        }
+        // Consulta em segundo plano; a tabela e atualizada na thread do JavaFX
+        Tarefas.executar("motoristas", servicoMotorista::listarTodos,
+            resultado -> sincronizador.sincronizar(resultado),
+            erro -> exibirErro("Erro ao carregar motoristas", erro.getMessage()));
     }
 
     private void selecionarMotorista(Motorista motorista) {
@@ -0,0 +1,43 @@
+package controllers;
+
+import dao.ObservadorMudancas;
+import dao.ObservadorMudancas.Mudanca;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Liga as telas ao ObservadorMudancas: as mudancas feitas em outros postos
+ * sao entregues na thread do JavaFX, para que a tela atualize apenas as
+ * linhas afetadas (ver SincronizadorLista).
+ *
+ * Os registros valem enquanto a tela estiver aberta; ao trocar de tela
+ * (App.setRoot) todos sao cancelados. Devem ser feitos na thread do JavaFX.
+ */
+public final class Observacoes {
+
+    private static final List<Runnable> REGISTROS = new ArrayList<>();
+
+    private Observacoes() {
+    }
+
+    /**
+     * Registra uma acao para as mudancas de uma colecao.
+     *
+     * @param colecao Nome da colecao, ex: "veiculo"
+     * @param aoMudar Executada na thread do JavaFX para cada mudanca
+     */
+    public static void observar(String colecao, Consumer<Mudanca> aoMudar) {
+        REGISTROS.add(ObservadorMudancas.ouvir(colecao,
+                mudanca -> Platform.runLater(() -> aoMudar.accept(mudanca))));
+    }
+
+    /**
+     * Cancela todos os registros (ex: ao sair de uma tela).
+     */
+    public static void cancelarTodas() {
+        REGISTROS.forEach(Runnable::run);
+        REGISTROS.clear();
+    }
+}
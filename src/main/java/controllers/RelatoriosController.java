@@ -2,11 +2,18 @@ package controllers;
 
 import com.App;
 import modelo.Utilizacao;
+import servico.RelatorioUtilizacoes;
 import servico.ServicoUtilizacao;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ResourceBundle;
@@ -31,6 +38,7 @@ public class RelatoriosController implements Initializable {
 
     private ServicoUtilizacao servicoUtilizacao;
     private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final int LIMITE_PREVIA = 200_000;  // caracteres exibidos na tela
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
@@ -47,41 +55,40 @@ public class RelatoriosController implements Initializable {
             return;
         }
 
-        try {
-            List<Utilizacao> utilizacoes = servicoUtilizacao.listarUtilizacoesPorPlaca(placa);
+        Tarefas.executar("relatorio", () -> {
+                List<Utilizacao> utilizacoes = servicoUtilizacao.listarUtilizacoesPorPlaca(placa);
             
-            StringBuilder resultado = new StringBuilder();
-            resultado.append("=".repeat(80)).append("\n");
-            resultado.append("RELATORIO DE UTILIZACOES - PLACA: ").append(placa).append("\n");
-            resultado.append("=".repeat(80)).append("\n\n");
+                StringBuilder resultado = new StringBuilder();
+                resultado.append("=".repeat(80)).append("\n");
+                resultado.append("RELATORIO DE UTILIZACOES - PLACA: ").append(placa).append("\n");
+                resultado.append("=".repeat(80)).append("\n\n");
             
-            if (utilizacoes.isEmpty()) {
-                resultado.append("Nenhuma utilizacao encontrada para esta placa.\n");
-            } else {
-                resultado.append("Total de utilizacoes: ").append(utilizacoes.size()).append("\n\n");
+                if (utilizacoes.isEmpty()) {
+                    resultado.append("Nenhuma utilizacao encontrada para esta placa.\n");
+                } else {
+                    resultado.append("Total de utilizacoes: ").append(utilizacoes.size()).append("\n\n");
                 
-                for (Utilizacao u : utilizacoes) {
-                    resultado.append("-".repeat(80)).append("\n");
-                    resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
-                    resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
-                    resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
-                    resultado.append("Devolucao: ");
-                    if (u.getDataDevolucao() != null) {
-                        resultado.append(u.getDataDevolucao().format(formatter));
-                    } else {
-                        resultado.append("EM USO");
+                    for (Utilizacao u : utilizacoes) {
+                        resultado.append("-".repeat(80)).append("\n");
+                        resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
+                        resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
+                        resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
+                        resultado.append("Devolucao: ");
+                        if (u.getDataDevolucao() != null) {
+                            resultado.append(u.getDataDevolucao().format(formatter));
+                        } else {
+                            resultado.append("EM USO");
+                        }
+                        resultado.append("\n");
+                        resultado.append("Status: ").append(u.isEmUso() ? "EM USO" : "DEVOLVIDO").append("\n");
                     }
-                    resultado.append("\n");
-                    resultado.append("Status: ").append(u.isEmUso() ? "EM USO" : "DEVOLVIDO").append("\n");
                 }
-            }
-            
-            resultado.append("=".repeat(80)).append("\n");
-            txtResultado.setText(resultado.toString());
             
-        } catch (Exception e) {
-            exibirErro("Erro ao buscar utilizacoes", e.getMessage());
-        }
+                resultado.append("=".repeat(80)).append("\n");
+                return resultado.toString();
+            },
+            txtResultado::setText,
+            erro -> exibirErro("Erro ao buscar utilizacoes", erro.getMessage()));
     }
 
     @FXML
@@ -94,128 +101,103 @@ public class RelatoriosController implements Initializable {
             return;
         }
 
-        try {
-            List<Utilizacao> utilizacoes = servicoUtilizacao.buscarUtilizacaoPorPlacaEData(placa, data);
+        Tarefas.executar("relatorio", () -> {
+                List<Utilizacao> utilizacoes = servicoUtilizacao.buscarUtilizacaoPorPlacaEData(placa, data);
             
-            StringBuilder resultado = new StringBuilder();
-            resultado.append("=".repeat(80)).append("\n");
-            resultado.append("RELATORIO DE UTILIZACOES - PLACA: ").append(placa);
-            resultado.append(" - DATA: ").append(data.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))).append("\n");
-            resultado.append("=".repeat(80)).append("\n\n");
+                StringBuilder resultado = new StringBuilder();
+                resultado.append("=".repeat(80)).append("\n");
+                resultado.append("RELATORIO DE UTILIZACOES - PLACA: ").append(placa);
+                resultado.append(" - DATA: ").append(data.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))).append("\n");
+                resultado.append("=".repeat(80)).append("\n\n");
             
-            if (utilizacoes.isEmpty()) {
-                resultado.append("Nenhuma utilizacao encontrada para esta placa nesta data.\n");
-            } else {
-                resultado.append("Total de utilizacoes: ").append(utilizacoes.size()).append("\n\n");
+                if (utilizacoes.isEmpty()) {
+                    resultado.append("Nenhuma utilizacao encontrada para esta placa nesta data.\n");
+                } else {
+                    resultado.append("Total de utilizacoes: ").append(utilizacoes.size()).append("\n\n");
                 
-                for (Utilizacao u : utilizacoes) {
-                    resultado.append("-".repeat(80)).append("\n");
-                    resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
-                    resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
-                    resultado.append("CNH: ").append(u.getMotorista().getCnh()).append("\n");
-                    resultado.append("Setor: ").append(u.getMotorista().getSetor()).append("\n");
-                    resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
-                    resultado.append("Devolucao: ");
-                    if (u.getDataDevolucao() != null) {
-                        resultado.append(u.getDataDevolucao().format(formatter));
-                    } else {
-                        resultado.append("EM USO");
+                    for (Utilizacao u : utilizacoes) {
+                        resultado.append("-".repeat(80)).append("\n");
+                        resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
+                        resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
+                        resultado.append("CNH: ").append(u.getMotorista().getCnh()).append("\n");
+                        resultado.append("Setor: ").append(u.getMotorista().getSetor()).append("\n");
+                        resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
+                        resultado.append("Devolucao: ");
+                        if (u.getDataDevolucao() != null) {
+                            resultado.append(u.getDataDevolucao().format(formatter));
+                        } else {
+                            resultado.append("EM USO");
+                        }
+                        resultado.append("\n");
+                        resultado.append("Status: ").append(u.isEmUso() ? "EM USO" : "DEVOLVIDO").append("\n");
                     }
-                    resultado.append("\n");
-                    resultado.append("Status: ").append(u.isEmUso() ? "EM USO" : "DEVOLVIDO").append("\n");
                 }
-            }
-            
-            resultado.append("=".repeat(80)).append("\n");
-            txtResultado.setText(resultado.toString());
             
-        } catch (Exception e) {
-            exibirErro("Erro ao buscar utilizacoes", e.getMessage());
-        }
+                resultado.append("=".repeat(80)).append("\n");
+                return resultado.toString();
+            },
+            txtResultado::setText,
+            erro -> exibirErro("Erro ao buscar utilizacoes", erro.getMessage()));
     }
 
     @FXML
     private void listarEmAberto(ActionEvent event) {
-        try {
-            List<Utilizacao> utilizacoes = servicoUtilizacao.listarEmAberto();
+        Tarefas.executar("relatorio", () -> {
+                List<Utilizacao> utilizacoes = servicoUtilizacao.listarEmAberto();
             
-            StringBuilder resultado = new StringBuilder();
-            resultado.append("=".repeat(80)).append("\n");
-            resultado.append("RELATORIO DE VEICULOS EM USO\n");
-            resultado.append("=".repeat(80)).append("\n\n");
+                StringBuilder resultado = new StringBuilder();
+                resultado.append("=".repeat(80)).append("\n");
+                resultado.append("RELATORIO DE VEICULOS EM USO\n");
+                resultado.append("=".repeat(80)).append("\n\n");
             
-            if (utilizacoes.isEmpty()) {
-                resultado.append("Nenhum veiculo em uso no momento.\n");
-            } else {
-                resultado.append("Total de veiculos em uso: ").append(utilizacoes.size()).append("\n\n");
+                if (utilizacoes.isEmpty()) {
+                    resultado.append("Nenhum veiculo em uso no momento.\n");
+                } else {
+                    resultado.append("Total de veiculos em uso: ").append(utilizacoes.size()).append("\n\n");
                 
-                for (Utilizacao u : utilizacoes) {
-                    resultado.append("-".repeat(80)).append("\n");
-                    resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
-                    resultado.append("Veiculo: ").append(u.getVeiculo().getPlaca());
-                    resultado.append(" - ").append(u.getVeiculo().getMarca());
-                    resultado.append(" ").append(u.getVeiculo().getModelo()).append("\n");
-                    resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
-                    resultado.append("CNH: ").append(u.getMotorista().getCnh()).append("\n");
-                    resultado.append("Setor: ").append(u.getMotorista().getSetor()).append("\n");
-                    resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
+                    for (Utilizacao u : utilizacoes) {
+                        resultado.append("-".repeat(80)).append("\n");
+                        resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
+                        resultado.append("Veiculo: ").append(u.getVeiculo().getPlaca());
+                        resultado.append(" - ").append(u.getVeiculo().getMarca());
+                        resultado.append(" ").append(u.getVeiculo().getModelo()).append("\n");
+                        resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
+                        resultado.append("CNH: ").append(u.getMotorista().getCnh()).append("\n");
+                        resultado.append("Setor: ").append(u.getMotorista().getSetor()).append("\n");
+                        resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
+                    }
                 }
-            }
-            
-            resultado.append("=".repeat(80)).append("\n");
-            txtResultado.setText(resultado.toString());
             
-        } catch (Exception e) {
-            exibirErro("Erro ao listar veiculos em uso", e.getMessage());
-        }
+                resultado.append("=".repeat(80)).append("\n");
+                return resultado.toString();
+            },
+            txtResultado::setText,
+            erro -> exibirErro("Erro ao listar veiculos em uso", erro.getMessage()));
     }
 
     @FXML
     private void listarTodos(ActionEvent event) {
-        try {
-            List<Utilizacao> utilizacoes = servicoUtilizacao.listarTodas();
-            
-            StringBuilder resultado = new StringBuilder();
-            resultado.append("=".repeat(80)).append("\n");
-            resultado.append("RELATORIO DE TODAS AS UTILIZACOES\n");
-            resultado.append("=".repeat(80)).append("\n\n");
-            
-            if (utilizacoes.isEmpty()) {
-                resultado.append("Nenhuma utilizacao registrada.\n");
-            } else {
-                resultado.append("Total de utilizacoes: ").append(utilizacoes.size()).append("\n\n");
-                
-                long emUso = utilizacoes.stream().filter(Utilizacao::isEmUso).count();
-                long devolvidos = utilizacoes.size() - emUso;
-                
-                resultado.append("Em uso: ").append(emUso).append("\n");
-                resultado.append("Devolvidos: ").append(devolvidos).append("\n\n");
-                
-                for (Utilizacao u : utilizacoes) {
-                    resultado.append("-".repeat(80)).append("\n");
-                    resultado.append("Codigo: ").append(u.getCodigo()).append("\n");
-                    resultado.append("Veiculo: ").append(u.getVeiculo().getPlaca());
-                    resultado.append(" - ").append(u.getVeiculo().getMarca());
-                    resultado.append(" ").append(u.getVeiculo().getModelo()).append("\n");
-                    resultado.append("Motorista: ").append(u.getMotorista().getNome()).append("\n");
-                    resultado.append("Retirada: ").append(u.getDataRetirada().format(formatter)).append("\n");
-                    resultado.append("Devolucao: ");
-                    if (u.getDataDevolucao() != null) {
-                        resultado.append(u.getDataDevolucao().format(formatter));
-                    } else {
-                        resultado.append("EM USO");
+        // O relatorio completo e gravado em arquivo enquanto e gerado; a tela
+        // mostra apenas o inicio, para nao manter milhoes de linhas em memoria
+        Path arquivo = Paths.get(System.getProperty("user.home"),
+                "relatorio-utilizacoes-" + LocalDateTime.now().format(
+                        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+        
+        txtResultado.setText("Gerando relatorio...\n");
+        Tarefas.executar("relatorio", () -> {
+                try (Writer destino = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+                    EscritorPrevia saida = new EscritorPrevia(destino, LIMITE_PREVIA);
+                    new RelatorioUtilizacoes(servicoUtilizacao).escreverTodas(saida);
+                    
+                    String previa = saida.getPrevia();
+                    if (saida.isTruncada()) {
+                        previa += "\n... (relatorio truncado na tela)\n";
                     }
-                    resultado.append("\n");
-                    resultado.append("Status: ").append(u.isEmUso() ? "EM USO" : "DEVOLVIDO").append("\n");
+                    return previa + "\nRelatorio completo gravado em: " + arquivo + "\n";
                 }
-            }
-            
-            resultado.append("=".repeat(80)).append("\n");
-            txtResultado.setText(resultado.toString());
-            
-        } catch (Exception e) {
-            exibirErro("Erro ao listar utilizacoes", e.getMessage());
-        }
+            },
+            txtResultado::setText,
+            erro -> exibirErro("Erro ao listar utilizacoes", erro.getMessage()));
     }
 
     @FXML
@@ -228,6 +210,52 @@ public class RelatoriosController implements Initializable {
         }
     }
 
+    /**
+     * Writer que repassa tudo para o destino e guarda apenas os primeiros
+     * caracteres para exibicao na tela.
+     */
+    private static class EscritorPrevia extends Writer {
+        private final Writer destino;
+        private final StringBuilder previa = new StringBuilder();
+        private final int limite;
+        private boolean truncada = false;
+
+        EscritorPrevia(Writer destino, int limite) {
+            this.destino = destino;
+            this.limite = limite;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            destino.write(cbuf, off, len);
+            int restante = limite - previa.length();
+            if (restante > 0) {
+                previa.append(cbuf, off, Math.min(len, restante));
+            }
+            if (len > restante) {
+                truncada = true;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            destino.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            destino.close();
+        }
+
+        String getPrevia() {
+            return previa.toString();
+        }
+
+        boolean isTruncada() {
+            return truncada;
+        }
+    }
+
     private void exibirAviso(String mensagem) {
         Alert alerta = new Alert(Alert.AlertType.WARNING);
         alerta.setTitle("Aviso");
@@ -0,0 +1,189 @@
+package controllers;
+
+import dao.ObservadorMudancas;
+import dao.ObservadorMudancas.Mudanca;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import javafx.collections.ObservableList;
+
+/**
+ * Mantem uma lista exibida em tabela igual a uma nova consulta alterando
+ * apenas o que mudou: itens novos sao inseridos, itens que sumiram sao
+ * removidos e itens alterados sao substituidos, identificados por uma chave
+ * (codigo, placa). Linhas que nao mudaram nao sao tocadas, de modo que uma
+ * retirada atualiza uma linha em vez de redesenhar a tabela inteira.
+ *
+ * Deve ser usado na thread do JavaFX.
+ *
+ * @param <T> Tipo dos itens
+ * @param <K> Tipo da chave
+ */
+public class SincronizadorLista<T, K> {
+
+    private final ObservableList<T> lista;
+    private final Function<T, K> chave;
+    private final BiPredicate<T, T> iguais;
+
+    /**
+     * Compara os itens pelo texto de toString(), que nos modelos inclui os
+     * campos exibidos nas tabelas.
+     *
+     * @param lista Lista exibida
+     * @param chave Chave do item, ex: Veiculo::getPlaca
+     */
+    public SincronizadorLista(ObservableList<T> lista, Function<T, K> chave) {
+        this(lista, chave, (a, b) -> Objects.equals(a.toString(), b.toString()));
+    }
+
+    /**
+     * @param lista Lista exibida
+     * @param chave Chave do item, ex: Veiculo::getPlaca
+     * @param iguais Indica se dois itens com a mesma chave tem o mesmo conteudo
+     */
+    public SincronizadorLista(ObservableList<T> lista, Function<T, K> chave, BiPredicate<T, T> iguais) {
+        this.lista = lista;
+        this.chave = chave;
+        this.iguais = iguais;
+    }
+
+    /**
+     * Deixa a lista igual a "novos" (mesmos itens, na mesma ordem) com o
+     * menor numero de alteracoes na lista observada.
+     *
+     * @param novos Resultado da nova consulta
+     */
+    public void sincronizar(List<T> novos) {
+        Map<K, T> porChave = new HashMap<>(novos.size() * 2);
+        for (T novo : novos) {
+            porChave.put(chave.apply(novo), novo);
+        }
+
+        // 1. Remove os itens que nao existem mais (de tras para frente)
+        Set<K> presentes = new HashSet<>();
+        for (int i = lista.size() - 1; i >= 0; i--) {
+            K k = chave.apply(lista.get(i));
+            if (!porChave.containsKey(k) || !presentes.add(k)) {
+                lista.remove(i);
+            }
+        }
+
+        // 2. Percorre a nova ordem: mantem, substitui, move ou insere
+        for (int i = 0; i < novos.size(); i++) {
+            T novo = novos.get(i);
+            K k = chave.apply(novo);
+            if (i < lista.size() && Objects.equals(chave.apply(lista.get(i)), k)) {
+                if (!iguais.test(lista.get(i), novo)) {
+                    lista.set(i, novo);
+                }
+            } else if (presentes.contains(k)) {
+                // Item existente em outra posicao (raro: ordem mudou)
+                for (int j = i + 1; j < lista.size(); j++) {
+                    if (Objects.equals(chave.apply(lista.get(j)), k)) {
+                        lista.remove(j);
+                        break;
+                    }
+                }
+                lista.add(i, novo);
+            } else {
+                lista.add(i, novo);
+            }
+        }
+    }
+
+    /**
+     * Acrescenta ao final os itens cujas chaves ainda nao estao na lista
+     * (ex: a proxima pagina de uma consulta).
+     *
+     * @param novos Itens a acrescentar
+     */
+    public void acrescentar(List<T> novos) {
+        Set<K> presentes = new HashSet<>(lista.size() * 2);
+        for (T item : lista) {
+            presentes.add(chave.apply(item));
+        }
+        List<T> acrescentados = new ArrayList<>(novos.size());
+        for (T novo : novos) {
+            if (presentes.add(chave.apply(novo))) {
+                acrescentados.add(novo);
+            }
+        }
+        lista.addAll(acrescentados);
+    }
+
+    /**
+     * Substitui o item com a mesma chave ou, se nao existir, acrescenta ao final.
+     *
+     * @param objeto Item novo ou alterado
+     */
+    public void aplicar(T objeto) {
+        int i = posicao(chave.apply(objeto));
+        if (i < 0) {
+            lista.add(objeto);
+        } else if (!iguais.test(lista.get(i), objeto)) {
+            lista.set(i, objeto);
+        }
+    }
+
+    /**
+     * Remove o item com a chave informada, se existir.
+     *
+     * @param k Chave do item
+     */
+    public void remover(K k) {
+        int i = posicao(k);
+        if (i >= 0) {
+            lista.remove(i);
+        }
+    }
+
+    /**
+     * Aplica uma mudanca recebida do ObservadorMudancas. Se a mudanca nao
+     * trouxer o objeto (ex: exclusao sem pre-imagem) a lista e recarregada.
+     *
+     * @param mudanca Mudanca recebida
+     * @param objeto Objeto da mudanca, ja convertido (ou null)
+     * @param recarregar Recarga completa da lista
+     */
+    public void aplicar(Mudanca mudanca, T objeto, Runnable recarregar) {
+        if (objeto == null) {
+            recarregar.run();
+        } else if (mudanca.getTipo() == ObservadorMudancas.Tipo.EXCLUSAO) {
+            remover(chave.apply(objeto));
+        } else {
+            aplicar(objeto);
+        }
+    }
+
+    /**
+     * Indica se a lista tem um item com a chave informada.
+     *
+     * @param k Chave do item
+     * @return true se o item esta na lista
+     */
+    public boolean contem(K k) {
+        return posicao(k) >= 0;
+    }
+
+    /**
+     * Lista exibida.
+     */
+    public ObservableList<T> getLista() {
+        return lista;
+    }
+
+    private int posicao(K k) {
+        for (int i = 0; i < lista.size(); i++) {
+            if (Objects.equals(chave.apply(lista.get(i)), k)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,124 @@
+package controllers;
+
+import dao.Metricas;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.concurrent.Task;
+
+/**
+ * Executa as consultas das telas fora da thread do JavaFX.
+ *
+ * Cada tarefa tem uma chave (ex: "veiculos"): se uma nova carga e pedida
+ * enquanto outra com a mesma chave ainda esta em andamento, a anterior e
+ * cancelada e seu resultado descartado, de modo que atualizacoes
+ * sobrepostas resultam em uma unica atualizacao da tela. Ao trocar de tela
+ * (App.setRoot) todas as tarefas pendentes sao canceladas.
+ *
+ * Todos os metodos devem ser chamados na thread do JavaFX; os callbacks
+ * de sucesso e erro tambem sao executados nela.
+ */
+public final class Tarefas {
+
+    private static final AtomicInteger CONTADOR = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "frota-tarefa-" + CONTADOR.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Map<String, Task<?>> EM_ANDAMENTO = new HashMap<>();
+    private static final ReadOnlyIntegerWrapper ATIVAS = new ReadOnlyIntegerWrapper(0);
+
+    private Tarefas() {
+    }
+
+    /**
+     * Executa um trabalho em segundo plano; as consultas sao atribuidas a
+     * propria chave (ver Metricas). Para chaves que mudam a cada registro
+     * (ex: "utilizacao-" + codigo) use a versao com origem.
+     *
+     * @param chave Identifica a carga; uma nova tarefa com a mesma chave cancela a anterior
+     * @param trabalho Trabalho executado fora da thread do JavaFX (ex: consulta ao banco)
+     * @param aoConcluir Recebe o resultado na thread do JavaFX
+     * @param aoFalhar Recebe o erro na thread do JavaFX
+     * @param <T> Tipo do resultado
+     * @return A tarefa criada
+     */
+    public static <T> Task<T> executar(String chave, Callable<T> trabalho,
+                                       Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar) {
+        return executar(chave, chave, trabalho, aoConcluir, aoFalhar);
+    }
+
+    /**
+     * Executa um trabalho em segundo plano.
+     *
+     * @param chave Identifica a carga; uma nova tarefa com a mesma chave cancela a anterior
+     * @param origem Tela a que as consultas sao atribuidas nas metricas (ex: "utilizacoes")
+     * @param trabalho Trabalho executado fora da thread do JavaFX (ex: consulta ao banco)
+     * @param aoConcluir Recebe o resultado na thread do JavaFX
+     * @param aoFalhar Recebe o erro na thread do JavaFX
+     * @param <T> Tipo do resultado
+     * @return A tarefa criada
+     */
+    public static <T> Task<T> executar(String chave, String origem, Callable<T> trabalho,
+                                       Consumer<T> aoConcluir, Consumer<Throwable> aoFalhar) {
+        Task<?> anterior = EM_ANDAMENTO.get(chave);
+        if (anterior != null) {
+            anterior.cancel(true);
+        }
+
+        Task<T> tarefa = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                // As consultas feitas pela tarefa sao atribuidas a tela (ver Metricas)
+                return Metricas.naOrigem(origem, trabalho);
+            }
+        };
+        tarefa.setOnSucceeded(e -> {
+            finalizar(chave, tarefa);
+            aoConcluir.accept(tarefa.getValue());
+        });
+        tarefa.setOnFailed(e -> {
+            finalizar(chave, tarefa);
+            aoFalhar.accept(tarefa.getException());
+        });
+        tarefa.setOnCancelled(e -> finalizar(chave, tarefa));
+
+        EM_ANDAMENTO.put(chave, tarefa);
+        ATIVAS.set(ATIVAS.get() + 1);
+        EXECUTOR.execute(tarefa);
+        return tarefa;
+    }
+
+    /**
+     * Cancela todas as tarefas em andamento (ex: ao sair de uma tela).
+     */
+    public static void cancelarTodas() {
+        for (Task<?> tarefa : EM_ANDAMENTO.values().toArray(new Task<?>[0])) {
+            tarefa.cancel(true);
+        }
+    }
+
+    /**
+     * Quantidade de tarefas em andamento; usada para indicar carregamento.
+     *
+     * @return Propriedade somente leitura com o numero de tarefas ativas
+     */
+    public static ReadOnlyIntegerProperty ativasProperty() {
+        return ATIVAS.getReadOnlyProperty();
+    }
+
+    private static void finalizar(String chave, Task<?> tarefa) {
+        if (EM_ANDAMENTO.get(chave) == tarefa) {
+            EM_ANDAMENTO.remove(chave);
+        }
+        ATIVAS.set(ATIVAS.get() - 1);
+    }
+}
@@ -41,11 +41,14 @@ public class UsuariosController implements Initializable {
 
     private ServicoUsuario servicoUsuario;
     private ObservableList<Usuario> listaUsuarios;
+    private SincronizadorLista<Usuario, Integer> sincronizador;
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         servicoUsuario = new ServicoUsuario();
         listaUsuarios = FXCollections.observableArrayList();
+        sincronizador = new SincronizadorLista<>(listaUsuarios, Usuario::getCodigo);
+        tabelaUsuarios.setItems(listaUsuarios);
 
         // Configurar colunas da tabela
         colCodigo.setCellValueFactory(new PropertyValueFactory<>("codigo"));
@@ -58,6 +61,14 @@ public class UsuariosController implements Initializable {
 
         // Carregar dados
         carregarDados();
+        // Alteracoes feitas em outros postos (a tabela nao guarda senhas)
+        Observacoes.observar("usuario", mudanca -> {
+            Usuario usuario = mudanca.getObjeto(Usuario.class);
+            if (usuario != null) {
+                usuario.setSenha(null);
+            }
+            sincronizador.aplicar(mudanca, usuario, this::carregarDados);
+        });
 
         // Listener para selecao na tabela
         tabelaUsuarios.getSelectionModel().selectedItemProperty().addListener(
@@ -66,13 +77,10 @@ public class UsuariosController implements Initializable {
     }
 
     private void carregarDados() {
-        try {
-            listaUsuarios.clear();
-            listaUsuarios.addAll(servicoUsuario.listarTodos());
-            tabelaUsuarios.setItems(listaUsuarios);
-        } catch (Exception e) {
-            exibirErro("Erro ao carregar usuarios", e.getMessage());
-        }
+        // Consulta em segundo plano; a tabela e atualizada na thread do JavaFX
+        Tarefas.executar("usuarios", servicoUsuario::listarSemSenha,
+            resultado -> sincronizador.sincronizar(resultado),
+            erro -> exibirErro("Erro ao carregar usuarios", erro.getMessage()));
     }
 
     private void selecionarUsuario(Usuario usuario) {
@@ -122,7 +130,8 @@ public class UsuariosController implements Initializable {
                 int codigo = selecionado.getCodigo();
                 String nome = txtNome.getText();
                 String login = txtLogin.getText();
-                String senha = txtSenha.getText().isEmpty() ? selecionado.getSenha() : txtSenha.getText();
+                // Senha em branco mantem a senha atual (a lista nao carrega senhas)
+                String senha = txtSenha.getText().isEmpty() ? null : txtSenha.getText();
 
                 Usuario usuarioAtualizado = new Usuario(codigo, nome, login, senha);
                 servicoUsuario.atualizar(usuarioAtualizado);
@@ -1,6 +1,7 @@
 package controllers;
 
 import com.App;
+import dao.ObservadorMudancas;
 import excecoes.AutenticacaoException;
 import excecoes.UtilizacaoException;
 import modelo.Motorista;
@@ -14,7 +15,6 @@ import servico.ServicoVeiculo;
 
 import java.io.IOException;
 import java.net.URL;
-import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import javafx.application.Platform;
@@ -25,7 +25,6 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 
 /**
@@ -33,30 +32,36 @@ import javafx.scene.layout.GridPane;
  */
 public class UtilizacoesController implements Initializable {
 
+    // Linhas por pagina do historico (-Dfrota.tabela.pagina)
+    private static final int TAMANHO_PAGINA = Integer.getInteger("frota.tabela.pagina", 200);
+
     @FXML
     private ComboBox<Veiculo> comboVeiculo;
     @FXML
     private ComboBox<Motorista> comboMotorista;
     @FXML
-    private TableView<Utilizacao> tabelaUtilizacoes;
+    private TableView<LinhaUtilizacao> tabelaUtilizacoes;
     @FXML
-    private TableColumn<Utilizacao, Integer> colCodigo;
+    private TableColumn<LinhaUtilizacao, Integer> colCodigo;
     @FXML
-    private TableColumn<Utilizacao, String> colVeiculo;
+    private TableColumn<LinhaUtilizacao, String> colVeiculo;
     @FXML
-    private TableColumn<Utilizacao, String> colMotorista;
+    private TableColumn<LinhaUtilizacao, String> colMotorista;
     @FXML
-    private TableColumn<Utilizacao, String> colDataRetirada;
+    private TableColumn<LinhaUtilizacao, String> colDataRetirada;
     @FXML
-    private TableColumn<Utilizacao, String> colDataDevolucao;
+    private TableColumn<LinhaUtilizacao, String> colDataDevolucao;
     @FXML
-    private TableColumn<Utilizacao, String> colStatus;
+    private TableColumn<LinhaUtilizacao, String> colStatus;
 
     private ServicoUtilizacao servicoUtilizacao;
     private ServicoVeiculo servicoVeiculo;
     private ServicoMotorista servicoMotorista;
     private ServicoUsuario servicoUsuario;
-    private ObservableList<Utilizacao> listaUtilizacoes;
+    private ObservableList<LinhaUtilizacao> listaUtilizacoes;
+    private SincronizadorLista<LinhaUtilizacao, Integer> sincronizador;
+    // Historico carregado aos poucos, das retiradas mais recentes para as mais antigas
+    private ListaPaginada<Utilizacao, LinhaUtilizacao> paginas;
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
@@ -65,74 +70,118 @@ public class UtilizacoesController implements Initializable {
         servicoMotorista = new ServicoMotorista();
         servicoUsuario = new ServicoUsuario();
         listaUtilizacoes = FXCollections.observableArrayList();
-
-        // Configurar colunas da tabela
-        colCodigo.setCellValueFactory(new PropertyValueFactory<>("codigo"));
-        colVeiculo.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getVeiculo().getPlaca()));
-        colMotorista.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getMotorista().getNome()));
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        colDataRetirada.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().getDataRetirada().format(formatter)));
-        colDataDevolucao.setCellValueFactory(cellData -> {
-            var devolucao = cellData.getValue().getDataDevolucao();
-            return new javafx.beans.property.SimpleStringProperty(
-                devolucao != null ? devolucao.format(formatter) : "-");
-        });
-        colStatus.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().isEmUso() ? "EM USO" : "DEVOLVIDO"));
+        sincronizador = new SincronizadorLista<>(listaUtilizacoes, LinhaUtilizacao::getCodigo);
+        paginas = new ListaPaginada<>("utilizacoes", TAMANHO_PAGINA,
+            (tamanho, anterior) -> servicoUtilizacao.listarPagina(false, tamanho, anterior),
+            LinhaUtilizacao::new, sincronizador,
+            erro -> exibirErro("Erro ao carregar utilizacoes", erro.getMessage()));
+
+        // Configurar colunas da tabela (textos montados uma vez por linha)
+        colCodigo.setCellValueFactory(cellData -> cellData.getValue().codigoProperty());
+        colVeiculo.setCellValueFactory(cellData -> cellData.getValue().veiculoProperty());
+        colMotorista.setCellValueFactory(cellData -> cellData.getValue().motoristaProperty());
+        colDataRetirada.setCellValueFactory(cellData -> cellData.getValue().retiradaProperty());
+        colDataDevolucao.setCellValueFactory(cellData -> cellData.getValue().devolucaoProperty());
+        colStatus.setCellValueFactory(cellData -> cellData.getValue().statusProperty());
+        paginas.conectar(tabelaUtilizacoes);
 
         // Carregar dados
+        configurarCombos();
         carregarCombos();
         carregarDados();
+        // Retiradas e devolucoes feitas em outros postos
+        Observacoes.observar("utilizacao", this::aplicarMudanca);
     }
 
     private void carregarCombos() {
-        try {
-            // Carregar veiculos disponiveis
-            var veiculos = servicoVeiculo.listarTodos();
-            comboVeiculo.setItems(FXCollections.observableArrayList(veiculos));
-            comboVeiculo.setConverter(new javafx.util.StringConverter<Veiculo>() {
-                @Override
-                public String toString(Veiculo veiculo) {
-                    return veiculo != null ? veiculo.getPlaca() + " - " + veiculo.getMarca() + " " + veiculo.getModelo() : "";
-                }
-                @Override
-                public Veiculo fromString(String string) {
-                    return null;
-                }
-            });
-
-            // Carregar motoristas
-            var motoristas = servicoMotorista.listarTodos();
-            comboMotorista.setItems(FXCollections.observableArrayList(motoristas));
-            comboMotorista.setConverter(new javafx.util.StringConverter<Motorista>() {
-                @Override
-                public String toString(Motorista motorista) {
-                    return motorista != null ? motorista.getNome() : "";
-                }
-                @Override
-                public Motorista fromString(String string) {
-                    return null;
-                }
-            });
-        } catch (Exception e) {
-            exibirErro("Erro ao carregar dados", e.getMessage());
-        }
+        // Carregar veiculos e motoristas em segundo plano
+        Tarefas.executar("combo-veiculos", servicoVeiculo::listarParaSelecao,
+            veiculos -> comboVeiculo.setItems(FXCollections.observableArrayList(veiculos)),
+            erro -> exibirErro("Erro ao carregar dados", erro.getMessage()));
+        Tarefas.executar("combo-motoristas", servicoMotorista::listarParaSelecao,
+            motoristas -> comboMotorista.setItems(FXCollections.observableArrayList(motoristas)),
+            erro -> exibirErro("Erro ao carregar dados", erro.getMessage()));
+    }
+
+    private void configurarCombos() {
+        comboVeiculo.setConverter(new javafx.util.StringConverter<Veiculo>() {
+            @Override
+            public String toString(Veiculo veiculo) {
+                return veiculo != null ? veiculo.getPlaca() + " - " + veiculo.getMarca() + " " + veiculo.getModelo() : "";
+            }
+            @Override
+            public Veiculo fromString(String string) {
+                return null;
+            }
+        });
+
+        comboMotorista.setConverter(new javafx.util.StringConverter<Motorista>() {
+            @Override
+            public String toString(Motorista motorista) {
+                return motorista != null ? motorista.getNome() : "";
+            }
+            @Override
+            public Motorista fromString(String string) {
+                return null;
+            }
+        });
     }
 
     private void carregarDados() {
-        try {
-            listaUtilizacoes.clear();
-            listaUtilizacoes.addAll(servicoUtilizacao.listarTodas());
-            tabelaUtilizacoes.setItems(listaUtilizacoes);
-        } catch (Exception e) {
-            exibirErro("Erro ao carregar utilizacoes", e.getMessage());
+        paginas.reiniciar();
+    }
+
+    private void aplicarMudanca(ObservadorMudancas.Mudanca mudanca) {
+        Utilizacao lida = mudanca.getObjeto(Utilizacao.class);
+        if (lida == null) {
+            carregarDados();
+            return;
+        }
+        if (mudanca.getTipo() == ObservadorMudancas.Tipo.EXCLUSAO) {
+            sincronizador.remover(lida.getCodigo());
+            return;
         }
+        // O documento traz apenas as referencias: completa em segundo plano
+        Tarefas.executar("mudanca-utilizacao-" + lida.getCodigo(), "utilizacoes",
+            () -> new LinhaUtilizacao(servicoUtilizacao.hidratar(lida)),
+            this::exibirLinha,
+            erro -> carregarDados());
+    }
+
+    /**
+     * Exibe uma utilizacao nova ou alterada: substitui a linha existente ou
+     * insere na posicao da sua data de retirada. Utilizacoes mais antigas que
+     * as linhas ja carregadas aparecem quando a pagina delas for carregada.
+     */
+    private void exibirLinha(LinhaUtilizacao linha) {
+        if (sincronizador.contem(linha.getCodigo())) {
+            sincronizador.aplicar(linha);
+            return;
+        }
+        var retirada = linha.getUtilizacao().getDataRetirada();
+        int posicao = 0;
+        while (posicao < listaUtilizacoes.size()
+                && !listaUtilizacoes.get(posicao).getUtilizacao().getDataRetirada().isBefore(retirada)) {
+            posicao++;
+        }
+        if (posicao < listaUtilizacoes.size() || !paginas.temProxima()) {
+            listaUtilizacoes.add(posicao, linha);
+        }
+    }
+
+    /**
+     * Le novamente uma utilizacao alterada por esta tela e atualiza sua linha.
+     */
+    private void atualizarLinha(int codigo) {
+        Tarefas.executar("utilizacao-" + codigo, "utilizacoes", () -> servicoUtilizacao.buscarPorCodigo(codigo),
+            utilizacao -> {
+                if (utilizacao == null) {
+                    sincronizador.remover(codigo);
+                } else {
+                    exibirLinha(new LinhaUtilizacao(utilizacao));
+                }
+            },
+            erro -> carregarDados());
     }
 
     @FXML
@@ -164,7 +213,7 @@ public class UtilizacoesController implements Initializable {
                          "Operador: " + operador.getNome());
             limparCombos();
             carregarCombos();
-            carregarDados();
+            exibirLinha(new LinhaUtilizacao(utilizacao));
 
         } catch (UtilizacaoException e) {
             exibirErro("Erro", e.getMessage());
@@ -176,7 +225,8 @@ public class UtilizacoesController implements Initializable {
     @FXML
     private void registrarDevolucao(ActionEvent event) {
         try {
-            Utilizacao selecionada = tabelaUtilizacoes.getSelectionModel().getSelectedItem();
+            LinhaUtilizacao linha = tabelaUtilizacoes.getSelectionModel().getSelectedItem();
+            Utilizacao selecionada = linha != null ? linha.getUtilizacao() : null;
             
             if (selecionada == null) {
                 exibirAviso("Selecione uma utilizacao em aberto");
@@ -200,7 +250,7 @@ public class UtilizacoesController implements Initializable {
                          "Operador: " + operador.getNome());
             limparCombos();
             carregarCombos();
-            carregarDados();
+            atualizarLinha(selecionada.getCodigo());
 
         } catch (UtilizacaoException e) {
             exibirErro("Erro", e.getMessage());
@@ -296,7 +346,8 @@ public class UtilizacoesController implements Initializable {
     @FXML
     private void excluir(ActionEvent event) {
         try {
-            Utilizacao selecionada = tabelaUtilizacoes.getSelectionModel().getSelectedItem();
+            LinhaUtilizacao linha = tabelaUtilizacoes.getSelectionModel().getSelectedItem();
+            Utilizacao selecionada = linha != null ? linha.getUtilizacao() : null;
             
             if (selecionada == null) {
                 exibirAviso("Selecione uma utilizacao para excluir");
@@ -323,7 +374,7 @@ public class UtilizacoesController implements Initializable {
                     exibirSucesso("Utilizacao excluida com sucesso!");
                     limparCombos();
                     carregarCombos();
-                    carregarDados();
+                    sincronizador.remover(selecionada.getCodigo());
                 } else {
                     exibirErro("Erro", "Nao foi possivel excluir a utilizacao");
                 }
@@ -1,14 +1,20 @@
 package controllers;
 
 import com.App;
+import dao.ObservadorMudancas;
 import excecoes.VeiculoDuplicadoException;
+import modelo.Utilizacao;
 import modelo.Veiculo;
 import servico.ServicoVeiculo;
 import servico.ServicoUtilizacao;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -42,25 +48,33 @@ public class VeiculosController implements Initializable {
     private ServicoVeiculo servicoVeiculo;
     private ServicoUtilizacao servicoUtilizacao;
     private ObservableList<Veiculo> listaVeiculos;
+    private SincronizadorLista<Veiculo, String> sincronizador;
+    // Placas em uso, consultadas uma vez a cada carga da tabela
+    private Set<String> placasEmUso = Collections.emptySet();
 
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         servicoVeiculo = new ServicoVeiculo();
         servicoUtilizacao = new ServicoUtilizacao();
         listaVeiculos = FXCollections.observableArrayList();
+        sincronizador = new SincronizadorLista<>(listaVeiculos, Veiculo::getPlaca);
+        tabelaVeiculos.setItems(listaVeiculos);
 
         // Configurar colunas da tabela
         colPlaca.setCellValueFactory(new PropertyValueFactory<>("placa"));
         colMarca.setCellValueFactory(new PropertyValueFactory<>("marca"));
         colModelo.setCellValueFactory(new PropertyValueFactory<>("modelo"));
         colStatus.setCellValueFactory(cellData -> {
-            String placa = cellData.getValue().getPlaca();
-            boolean emUso = servicoUtilizacao.veiculoEmUso(placa);
+            boolean emUso = placasEmUso.contains(cellData.getValue().getPlaca());
             return new javafx.beans.property.SimpleStringProperty(emUso ? "EM USO" : "DISPONIVEL");
         });
 
         // Carregar dados
         carregarDados();
+        // Alteracoes feitas em outros postos: cadastro e status (retiradas/devolucoes)
+        Observacoes.observar("veiculo", mudanca -> sincronizador.aplicar(mudanca,
+            mudanca.getObjeto(Veiculo.class), this::carregarDados));
+        Observacoes.observar("utilizacao", this::atualizarStatus);
 
         // Listener para selecao na tabela
         tabelaVeiculos.getSelectionModel().selectedItemProperty().addListener(
@@ -69,12 +83,46 @@ public class VeiculosController implements Initializable {
     }
 
     private void carregarDados() {
-        try {
-            listaVeiculos.clear();
-            listaVeiculos.addAll(servicoVeiculo.listarTodos());
-            tabelaVeiculos.setItems(listaVeiculos);
-        } catch (Exception e) {
-            exibirErro("Erro ao carregar veiculos", e.getMessage());
+        // Consulta em segundo plano; a tabela e atualizada na thread do JavaFX
+        Tarefas.executar("veiculos", 
+            () -> new DadosVeiculos(servicoVeiculo.listarTodos(), servicoUtilizacao.placasEmUso()),
+            resultado -> {
+                sincronizador.sincronizar(resultado.veiculos);
+                // O status nao faz parte do veiculo: redesenha so se alguma placa mudou
+                if (!resultado.placasEmUso.equals(placasEmUso)) {
+                    placasEmUso = resultado.placasEmUso;
+                    tabelaVeiculos.refresh();
+                }
+            },
+            erro -> exibirErro("Erro ao carregar veiculos", erro.getMessage()));
+    }
+
+    private void atualizarStatus(ObservadorMudancas.Mudanca mudanca) {
+        Utilizacao utilizacao = mudanca.getObjeto(Utilizacao.class);
+        if (utilizacao == null || utilizacao.getVeiculo() == null) {
+            carregarDados();
+            return;
+        }
+        Set<String> atualizadas = new HashSet<>(placasEmUso);
+        if (mudanca.getTipo() != ObservadorMudancas.Tipo.EXCLUSAO && utilizacao.isEmUso()) {
+            atualizadas.add(utilizacao.getVeiculo().getPlaca());
+        } else {
+            atualizadas.remove(utilizacao.getVeiculo().getPlaca());
+        }
+        placasEmUso = atualizadas;
+        tabelaVeiculos.refresh();
+    }
+
+    /**
+     * Resultado de uma carga da tabela: veiculos e placas em uso.
+     */
+    private static class DadosVeiculos {
+        private final List<Veiculo> veiculos;
+        private final Set<String> placasEmUso;
+
+        DadosVeiculos(List<Veiculo> veiculos, Set<String> placasEmUso) {
+            this.veiculos = veiculos;
+            this.placasEmUso = placasEmUso;
         }
     }
 
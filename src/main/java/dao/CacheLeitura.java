@@ -0,0 +1,235 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Cache de leitura (read-through) para cadastros pequenos e pouco alterados,
+ * como veiculos, motoristas e usuarios.
+ *
+ * Cada entrada expira apos um tempo de vida (TTL) e, quando a capacidade e
+ * atingida, a entrada usada ha mais tempo e descartada (LRU). Apenas objetos
+ * encontrados sao guardados: uma chave inexistente sempre consulta o banco.
+ * Os objetos retornados sao compartilhados e nao devem ser alterados; quem
+ * altera ou exclui um objeto deve chamar invalidar().
+ *
+ * Todos os caches criados ficam registrados para consulta das estatisticas
+ * (acertos, falhas, expiracoes e descartes), que tambem sao publicadas no
+ * JMX como frota:type=Cache,nome=... (ver Metricas).
+ *
+ * @param <K> Tipo da chave (ex: placa)
+ * @param <V> Tipo do objeto guardado
+ */
+public class CacheLeitura<K, V> implements CacheLeituraMXBean {
+
+    private static final List<CacheLeitura<?, ?>> REGISTRADOS = new CopyOnWriteArrayList<>();
+
+    private static final class Entrada<V> {
+        final V valor;
+        final long expiraEm;
+
+        Entrada(V valor, long expiraEm) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    private final String nome;
+    private final long ttlNanos;
+    private final Map<K, Entrada<V>> entradas;
+    // Incrementada a cada invalidacao (protegida pelo bloqueio de entradas); ver obter()
+    private long geracao = 0;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong expiradas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    /**
+     * @param nome Nome exibido nas estatisticas (ex: "veiculo.placa")
+     * @param capacidade Quantidade maxima de entradas
+     * @param ttlSegundos Tempo de vida de cada entrada, em segundos
+     */
+    public CacheLeitura(String nome, int capacidade, long ttlSegundos) {
+        if (capacidade <= 0 || ttlSegundos <= 0) {
+            throw new IllegalArgumentException("Capacidade e tempo de vida do cache devem ser positivos");
+        }
+        this.nome = nome;
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > capacidade) {
+                    descartadas.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        REGISTRADOS.add(this);
+        Metricas.publicar(Metricas.nomeJmxCache(nome), this);
+    }
+
+    /**
+     * Retorna o objeto da chave, carregando-o se nao estiver no cache ou
+     * se tiver expirado. A carga e feita fora do bloqueio do cache; se
+     * alguma invalidacao acontecer durante a carga, o valor carregado (que
+     * pode ser anterior a alteracao) e devolvido mas nao e guardado.
+     *
+     * @param chave Chave procurada
+     * @param carregar Consulta ao banco, ex: placa -> dao.buscarPorChave("placa", placa)
+     * @return Objeto encontrado ou null se nao existir
+     */
+    public V obter(K chave, Function<K, V> carregar) {
+        V valor = buscar(chave);
+        if (valor != null) {
+            return valor;
+        }
+        long antes;
+        synchronized (entradas) {
+            antes = geracao;
+        }
+        valor = carregar.apply(chave);
+        if (valor != null) {
+            synchronized (entradas) {
+                if (geracao == antes) {
+                    entradas.put(chave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Retorna o objeto da chave apenas se estiver no cache (sem carregar).
+     * Conta como acerto ou falha nas estatisticas.
+     *
+     * @param chave Chave procurada
+     * @return Objeto ou null se ausente ou expirado
+     */
+    public V buscar(K chave) {
+        synchronized (entradas) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null && entrada.expiraEm - System.nanoTime() > 0) {
+                acertos.incrementAndGet();
+                return entrada.valor;
+            }
+            if (entrada != null) {
+                entradas.remove(chave);
+                expiradas.incrementAndGet();
+            }
+        }
+        falhas.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Guarda (ou substitui) o objeto de uma chave.
+     */
+    public void guardar(K chave, V valor) {
+        synchronized (entradas) {
+            entradas.put(chave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Remove uma chave do cache (ex: apos alterar ou excluir o objeto).
+     */
+    public void invalidar(K chave) {
+        synchronized (entradas) {
+            geracao++;
+            entradas.remove(chave);
+        }
+    }
+
+    /**
+     * Remove todos os objetos que atendem a condicao, ex: o usuario de um
+     * codigo em um cache indexado por login.
+     */
+    public void invalidarSe(Predicate<V> condicao) {
+        synchronized (entradas) {
+            geracao++;
+            Iterator<Entrada<V>> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                if (condicao.test(it.next().valor)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Esvazia o cache.
+     */
+    public void invalidarTudo() {
+        synchronized (entradas) {
+            geracao++;
+            entradas.clear();
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public int getTamanho() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    @Override
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    @Override
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    @Override
+    public long getExpiradas() {
+        return expiradas.get();
+    }
+
+    @Override
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+
+    /**
+     * Proporcao de buscas atendidas pelo cache (0 a 1).
+     */
+    @Override
+    public double getTaxaAcerto() {
+        long total = acertos.get() + falhas.get();
+        return total == 0 ? 0 : (double) acertos.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d entradas, %d acertos, %d falhas (%.1f%%), %d expiradas, %d descartadas",
+                nome, getTamanho(), getAcertos(), getFalhas(), getTaxaAcerto() * 100,
+                getExpiradas(), getDescartadas());
+    }
+
+    /**
+     * Retorna todos os caches criados no processo.
+     *
+     * @return Lista imutavel de caches
+     */
+    public static List<CacheLeitura<?, ?>> registrados() {
+        return Collections.unmodifiableList(new ArrayList<>(REGISTRADOS));
+    }
+}
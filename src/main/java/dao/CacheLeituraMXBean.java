@@ -0,0 +1,24 @@
+package dao;
+
+/**
+ * Estatisticas de um cache de leitura publicadas no JMX (ver CacheLeitura).
+ */
+public interface CacheLeituraMXBean {
+
+    String getNome();
+
+    int getTamanho();
+
+    long getAcertos();
+
+    long getFalhas();
+
+    long getExpiradas();
+
+    long getDescartadas();
+
+    /**
+     * Proporcao de buscas atendidas pelo cache (0 a 1).
+     */
+    double getTaxaAcerto();
+}
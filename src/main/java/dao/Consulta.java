@@ -0,0 +1,326 @@
+package dao;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.bson.conversions.Bson;
+
+/**
+ * Descricao de uma consulta: criterios de filtro (combinados com "e"),
+ * ordenacao, limite de resultados e, opcionalmente, os campos retornados
+ * (projecao). Os metodos podem ser encadeados:
+ *
+ * <pre>
+ * new Consulta()
+ *     .igual("veiculo.placa", "ABC1234")
+ *     .entre("dataRetirada", inicio, fim)
+ *     .ordenarPor("dataRetirada", true)
+ *     .limite(50);
+ * </pre>
+ */
+public class Consulta {
+
+    /**
+     * Operadores de comparacao suportados.
+     */
+    public enum Operador {
+        IGUAL, MAIOR, MAIOR_OU_IGUAL, MENOR, MENOR_OU_IGUAL, EM
+    }
+
+    /**
+     * Um criterio de filtro: campo, operador e valor.
+     */
+    public static final class Criterio {
+        private final String campo;
+        private final Operador operador;
+        private final Object valor;
+
+        Criterio(String campo, Operador operador, Object valor) {
+            this.campo = campo;
+            this.operador = operador;
+            this.valor = valor;
+        }
+
+        public String getCampo() {
+            return campo;
+        }
+
+        public Operador getOperador() {
+            return operador;
+        }
+
+        public Object getValor() {
+            return valor;
+        }
+    }
+
+    /**
+     * Um campo de ordenacao.
+     */
+    public static final class Ordem {
+        private final String campo;
+        private final boolean crescente;
+
+        Ordem(String campo, boolean crescente) {
+            this.campo = campo;
+            this.crescente = crescente;
+        }
+
+        public String getCampo() {
+            return campo;
+        }
+
+        public boolean isCrescente() {
+            return crescente;
+        }
+    }
+
+    private final List<Criterio> criterios = new ArrayList<>();
+    private final List<Ordem> ordens = new ArrayList<>();
+    private int limite = 0;
+    private final List<String> campos = new ArrayList<>();
+    private final List<String> camposExcluidos = new ArrayList<>();
+
+    /**
+     * Campo igual ao valor. Um valor null seleciona tambem documentos
+     * em que o campo nao existe.
+     */
+    public Consulta igual(String campo, Object valor) {
+        criterios.add(new Criterio(campo, Operador.IGUAL, valor));
+        return this;
+    }
+
+    /**
+     * Campo nulo ou ausente, ex: utilizacoes sem data de devolucao.
+     */
+    public Consulta nulo(String campo) {
+        return igual(campo, null);
+    }
+
+    public Consulta maiorQue(String campo, Object valor) {
+        criterios.add(new Criterio(campo, Operador.MAIOR, valor));
+        return this;
+    }
+
+    public Consulta maiorOuIgual(String campo, Object valor) {
+        criterios.add(new Criterio(campo, Operador.MAIOR_OU_IGUAL, valor));
+        return this;
+    }
+
+    public Consulta menorQue(String campo, Object valor) {
+        criterios.add(new Criterio(campo, Operador.MENOR, valor));
+        return this;
+    }
+
+    public Consulta menorOuIgual(String campo, Object valor) {
+        criterios.add(new Criterio(campo, Operador.MENOR_OU_IGUAL, valor));
+        return this;
+    }
+
+    /**
+     * Campo igual a qualquer um dos valores informados.
+     */
+    public Consulta em(String campo, Collection<?> valores) {
+        criterios.add(new Criterio(campo, Operador.EM, new ArrayList<>(valores)));
+        return this;
+    }
+
+    /**
+     * Campo entre dois valores (inclusive).
+     */
+    public Consulta entre(String campo, Object inicio, Object fim) {
+        return maiorOuIgual(campo, inicio).menorOuIgual(campo, fim);
+    }
+
+    /**
+     * Acrescenta um campo de ordenacao; chamadas sucessivas definem
+     * criterios de desempate.
+     */
+    public Consulta ordenarPor(String campo, boolean crescente) {
+        ordens.add(new Ordem(campo, crescente));
+        return this;
+    }
+
+    /**
+     * Limita a quantidade de resultados (0 = sem limite).
+     */
+    public Consulta limite(int limite) {
+        this.limite = limite;
+        return this;
+    }
+
+    /**
+     * Retorna apenas os campos informados (ex: "codigo", "nome"); os demais
+     * atributos do objeto ficam com o valor padrao (null ou 0). Usado por
+     * telas que exibem so parte dos dados, como combos e listas.
+     *
+     * @throws IllegalArgumentException se a consulta ja exclui campos
+     */
+    public Consulta campos(String... campos) {
+        if (!camposExcluidos.isEmpty()) {
+            throw new IllegalArgumentException("Consulta nao pode incluir e excluir campos ao mesmo tempo");
+        }
+        this.campos.addAll(Arrays.asList(campos));
+        return this;
+    }
+
+    /**
+     * Retorna todos os campos exceto os informados (ex: "senha").
+     *
+     * @throws IllegalArgumentException se a consulta ja inclui campos
+     */
+    public Consulta excluirCampos(String... campos) {
+        if (!this.campos.isEmpty()) {
+            throw new IllegalArgumentException("Consulta nao pode incluir e excluir campos ao mesmo tempo");
+        }
+        camposExcluidos.addAll(Arrays.asList(campos));
+        return this;
+    }
+
+    public List<Criterio> getCriterios() {
+        return Collections.unmodifiableList(criterios);
+    }
+
+    public List<Ordem> getOrdens() {
+        return Collections.unmodifiableList(ordens);
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public List<String> getCampos() {
+        return Collections.unmodifiableList(campos);
+    }
+
+    public List<String> getCamposExcluidos() {
+        return Collections.unmodifiableList(camposExcluidos);
+    }
+
+    /**
+     * Descreve a forma da consulta sem os valores, ex:
+     * "veiculo.placa = ? e dataRetirada >= ?; ordem dataRetirada desc; limite 50".
+     * Consultas que diferem apenas nos valores tem a mesma forma; usada em
+     * diagnosticos (ver EventoBanco).
+     *
+     * @return Forma da consulta ("todos" se nao houver criterios)
+     */
+    public String getForma() {
+        StringBuilder sb = new StringBuilder();
+        for (Criterio c : criterios) {
+            sb.append(sb.length() > 0 ? " e " : "").append(c.campo);
+            switch (c.operador) {
+                case IGUAL:
+                    sb.append(c.valor == null ? " nulo" : " = ?");
+                    break;
+                case MAIOR:
+                    sb.append(" > ?");
+                    break;
+                case MAIOR_OU_IGUAL:
+                    sb.append(" >= ?");
+                    break;
+                case MENOR:
+                    sb.append(" < ?");
+                    break;
+                case MENOR_OU_IGUAL:
+                    sb.append(" <= ?");
+                    break;
+                case EM:
+                    sb.append(" em [").append(((List<?>) c.valor).size()).append(']');
+                    break;
+            }
+        }
+        if (sb.length() == 0) {
+            sb.append("todos");
+        }
+        if (!ordens.isEmpty()) {
+            sb.append("; ordem");
+            for (Ordem o : ordens) {
+                sb.append(' ').append(o.campo).append(o.crescente ? " asc" : " desc");
+            }
+        }
+        if (limite > 0) {
+            sb.append("; limite ").append(limite);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converte os criterios em um filtro do MongoDB.
+     *
+     * @return Filtro equivalente (documento vazio se nao houver criterios)
+     */
+    Bson filtro() {
+        if (criterios.isEmpty()) {
+            return Filters.empty();
+        }
+        List<Bson> filtros = new ArrayList<>();
+        for (Criterio c : criterios) {
+            switch (c.operador) {
+                case IGUAL:
+                    filtros.add(Filters.eq(c.campo, c.valor));
+                    break;
+                case MAIOR:
+                    filtros.add(Filters.gt(c.campo, c.valor));
+                    break;
+                case MAIOR_OU_IGUAL:
+                    filtros.add(Filters.gte(c.campo, c.valor));
+                    break;
+                case MENOR:
+                    filtros.add(Filters.lt(c.campo, c.valor));
+                    break;
+                case MENOR_OU_IGUAL:
+                    filtros.add(Filters.lte(c.campo, c.valor));
+                    break;
+                case EM:
+                    filtros.add(Filters.in(c.campo, (List<?>) c.valor));
+                    break;
+            }
+        }
+        return filtros.size() == 1 ? filtros.get(0) : Filters.and(filtros);
+    }
+
+    /**
+     * Converte a ordenacao em um documento de ordenacao do MongoDB.
+     *
+     * @return Ordenacao ou null se nenhuma foi definida
+     */
+    Bson ordenacao() {
+        if (ordens.isEmpty()) {
+            return null;
+        }
+        List<Bson> sorts = new ArrayList<>();
+        for (Ordem o : ordens) {
+            sorts.add(o.crescente ? Sorts.ascending(o.campo) : Sorts.descending(o.campo));
+        }
+        return Sorts.orderBy(sorts);
+    }
+
+    /**
+     * Converte os campos pedidos em uma projecao do MongoDB.
+     *
+     * @param obrigatorios Campos incluidos sempre que a projecao for por
+     *                     inclusao (ex: campo de ordenacao da paginacao)
+     * @return Projecao ou null se todos os campos devem ser retornados
+     */
+    Bson projecao(String... obrigatorios) {
+        if (!campos.isEmpty()) {
+            List<String> incluidos = new ArrayList<>(campos);
+            for (String campo : obrigatorios) {
+                if (!incluidos.contains(campo)) {
+                    incluidos.add(campo);
+                }
+            }
+            return Projections.include(incluidos);
+        }
+        if (!camposExcluidos.isEmpty()) {
+            return Projections.exclude(camposExcluidos);
+        }
+        return null;
+    }
+}
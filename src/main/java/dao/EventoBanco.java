@@ -0,0 +1,43 @@
+package dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento do Java Flight Recorder para cada operacao de repositorio, emitido
+ * por RepositorioMedido. A duracao do evento e a duracao da operacao.
+ *
+ * Por padrao so sao gravadas operacoes acima de 20 ms; o limite e ajustavel
+ * nas configuracoes da gravacao (ver Gravacao e jfr/frota.jfc).
+ */
+@Name("frota.Banco")
+@Label("Operacao no banco")
+@Category({"Frota", "Banco"})
+@Description("Operacao de repositorio: colecao, metodo, forma do filtro e documentos devolvidos")
+@Threshold("20 ms")
+final class EventoBanco extends jdk.jfr.Event {
+
+    @Label("Colecao")
+    String colecao;
+
+    @Label("Operacao")
+    String operacao;
+
+    @Label("Filtro")
+    @Description("Forma da consulta, sem os valores (ver Consulta.getForma)")
+    String filtro;
+
+    @Label("Documentos")
+    @Description("Documentos devolvidos ou gravados")
+    long documentos;
+
+    @Label("Origem")
+    @Description("Tela ou tarefa que fez a consulta (ver Metricas.naOrigem)")
+    String origem;
+
+    @Label("Erro")
+    boolean erro;
+}
@@ -0,0 +1,379 @@
+package dao;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bson.Document;
+
+/**
+ * Declara e cria os indices usados pelas consultas dos servicos.
+ *
+ * Os indices sao criados uma vez por processo, na inicializacao de quem grava
+ * no banco (a aplicacao, em segundo plano, e as ferramentas de linha de
+ * comando), com garantirIndices(). Indices unicos refletem as regras de
+ * unicidade que os servicos ja validam (placa, cnh, login, codigo). Se a
+ * criacao falhar (ex: dados duplicados ja gravados ou servidor fora do ar)
+ * o problema e registrado, o indice aparece como ausente em verificar() e a
+ * criacao e tentada de novo na proxima chamada. Operacoes que dependem de um indice unico
+ * para impedir duplicados (a retirada de veiculos) sao recusadas enquanto
+ * ele nao existir (ver exigirUnico).
+ */
+public final class GerenciadorIndices {
+
+    /**
+     * Declaracao de um indice ascendente.
+     */
+    public static final class Indice {
+        private final String colecao;
+        private final String[] campos;
+        private final boolean unico;
+        private String nome;            // null = nome padrao do MongoDB
+        private Document filtroParcial; // null = indice sobre todos os documentos
+
+        Indice(String colecao, boolean unico, String... campos) {
+            this.colecao = colecao;
+            this.unico = unico;
+            this.campos = campos;
+        }
+
+        /**
+         * Indice parcial: so inclui documentos que atendem ao filtro.
+         */
+        Indice parcial(String nome, Document filtroParcial) {
+            this.nome = nome;
+            this.filtroParcial = filtroParcial;
+            return this;
+        }
+
+        public String getColecao() {
+            return colecao;
+        }
+
+        public List<String> getCampos() {
+            return Arrays.asList(campos);
+        }
+
+        public boolean isUnico() {
+            return unico;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Nome do indice no banco: o declarado ou o padrao do MongoDB (ex: "placa_1").
+         */
+        public String getNomeNoBanco() {
+            return nome != null ? nome : String.join("_1_", campos) + "_1";
+        }
+
+        public Document getFiltroParcial() {
+            return filtroParcial;
+        }
+
+        Document chaves() {
+            Document chaves = new Document();
+            for (String campo : campos) {
+                chaves.append(campo, 1);
+            }
+            return chaves;
+        }
+
+        IndexOptions opcoes() {
+            IndexOptions opcoes = new IndexOptions().unique(unico);
+            if (nome != null) {
+                opcoes.name(nome);
+            }
+            if (filtroParcial != null) {
+                opcoes.partialFilterExpression(filtroParcial);
+            }
+            return opcoes;
+        }
+
+        @Override
+        public String toString() {
+            return colecao + " " + chaves().toJson() + (unico ? " (unico)" : "")
+                    + (filtroParcial != null ? " onde " + filtroParcial.toJson() : "");
+        }
+    }
+
+    /**
+     * Nome do indice unico que impede duas utilizacoes em aberto para a mesma placa.
+     */
+    public static final String INDICE_EM_ABERTO_POR_PLACA = "utilizacao_em_aberto_por_placa";
+
+    // Dao.listarPagina ordena por {campo, _id}: cada ordem usada pelas telas precisa
+    // de um indice com as mesmas chaves, senao toda pagina ordena a colecao inteira
+    // (as ordens decrescentes usam o mesmo indice percorrido ao contrario)
+    private static final List<Indice> INDICES = List.of(
+            new Indice("veiculo", true, "placa"),
+            new Indice("veiculo", false, "placa", "_id"),
+            new Indice("veiculo", false, "marca"),
+            new Indice("motorista", true, "codigo"),
+            new Indice("motorista", false, "codigo", "_id"),
+            new Indice("motorista", true, "cnh"),
+            new Indice("motorista", false, "setor"),
+            new Indice("usuario", true, "codigo"),
+            new Indice("usuario", false, "codigo", "_id"),
+            new Indice("usuario", true, "login"),
+            new Indice("utilizacao", true, "codigo"),
+            new Indice("utilizacao", false, "dataRetirada", "_id"),
+            new Indice("utilizacao", false, "dataDevolucao"),
+            new Indice("utilizacao", false, "veiculo.placa", "dataRetirada", "_id"),
+            new Indice("utilizacao", false, "veiculo.placa", "dataDevolucao"),
+            // Cada veiculo pode ter no maximo uma utilizacao em aberto (emUso e
+            // gravado a partir de Utilizacao.isEmUso); garante a retirada atomica
+            new Indice("utilizacao", true, "veiculo.placa")
+                    .parcial(INDICE_EM_ABERTO_POR_PLACA, new Document("emUso", true)));
+
+    private static volatile boolean indicesGarantidos = false;
+
+    private GerenciadorIndices() {
+    }
+
+    /**
+     * Retorna os indices declarados.
+     *
+     * @return Lista imutavel com todos os indices declarados
+     */
+    public static List<Indice> getIndices() {
+        return INDICES;
+    }
+
+    /**
+     * Cria os indices declarados no banco configurado (ver Conexao); sem
+     * efeito com o repositorio em memoria. Com o servidor fora do ar cada
+     * indice espera o tempo de selecao do servidor, por isso a aplicacao
+     * chama este metodo fora da thread do JavaFX.
+     */
+    public static void garantirIndices() {
+        if (indicesGarantidos || Repositorios.isMemoria()) {
+            return;
+        }
+        MongoDatabase database = Conexao.adquirir();
+        try {
+            garantirIndices(database);
+        } finally {
+            Conexao.liberar();
+        }
+    }
+
+    /**
+     * Cria os indices declarados que ainda nao existem. Depois que todos forem
+     * criados, chamadas seguintes nao tem efeito; se algum falhar, a proxima
+     * chamada tenta de novo.
+     *
+     * @param database Banco onde os indices serao criados
+     */
+    public static synchronized void garantirIndices(MongoDatabase database) {
+        if (indicesGarantidos) {
+            return;
+        }
+        boolean todos = true;
+        for (Indice indice : INDICES) {
+            try {
+                criar(database, indice);
+            } catch (MongoException | IllegalStateException e) {
+                // IllegalStateException: cliente fechado durante a criacao (ver Conexao.encerrar)
+                todos = false;
+                System.err.println("AVISO: Nao foi possivel criar o indice " + indice + ": " + e.getMessage());
+            }
+        }
+        indicesGarantidos = todos;
+    }
+
+    /**
+     * Garante que um indice unico declarado exista no banco, criando-o se
+     * necessario. Usado por quem depende do indice para impedir duplicados
+     * (ver Dao.inserirSeUnico), que nao pode seguir sem ele.
+     *
+     * @param database Banco da colecao
+     * @param colecao Nome da colecao
+     * @param nome Nome do indice no banco (ver Indice.getNomeNoBanco)
+     * @throws IllegalStateException Se o indice nao for declarado como unico ou nao puder ser criado
+     */
+    static void exigirUnico(MongoDatabase database, String colecao, String nome) {
+        if (existeUnico(database, colecao, nome)) {
+            return;
+        }
+        Indice indice = buscar(colecao, nome);
+        if (indice == null || !indice.unico) {
+            throw new IllegalStateException("Indice unico " + nome + " nao declarado para " + colecao);
+        }
+        try {
+            criar(database, indice);
+        } catch (MongoException e) {
+            throw new IllegalStateException("Indice unico " + nome + " ausente em " + colecao
+                    + " e nao pode ser criado: " + e.getMessage(), e);
+        }
+        if (!existeUnico(database, colecao, nome)) {
+            throw new IllegalStateException("Indice unico " + nome + " ausente em " + colecao);
+        }
+    }
+
+    /**
+     * Retorna o indice declarado com o nome informado, ou null.
+     */
+    static Indice buscar(String colecao, String nome) {
+        for (Indice indice : INDICES) {
+            if (indice.colecao.equals(colecao) && indice.getNomeNoBanco().equals(nome)) {
+                return indice;
+            }
+        }
+        return null;
+    }
+
+    private static boolean existeUnico(MongoDatabase database, String colecao, String nome) {
+        for (Document existente : database.getCollection(colecao).listIndexes()) {
+            if (nome.equals(existente.getString("name")) && Boolean.TRUE.equals(existente.getBoolean("unique"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void criar(MongoDatabase database, Indice indice) {
+        database.getCollection(indice.colecao).createIndex(Indexes.ascending(indice.campos), indice.opcoes());
+    }
+
+    /**
+     * Compara os indices declarados com os existentes no banco e retorna um
+     * relatorio com indices ausentes, indices nao declarados e indices sem uso
+     * desde o ultimo reinicio do servidor ($indexStats).
+     *
+     * @return Linhas do relatorio (vazio se tudo estiver de acordo)
+     */
+    public static List<String> verificar() {
+        List<String> relatorio = new ArrayList<>();
+        MongoDatabase database = Conexao.adquirir();
+        try {
+            for (String colecao : colecoes()) {
+                MongoCollection<Document> collection = database.getCollection(colecao);
+                List<Document> existentes = new ArrayList<>();
+                collection.listIndexes().into(existentes);
+
+                for (Indice indice : INDICES) {
+                    if (indice.colecao.equals(colecao) && buscarPorChaves(existentes, indice.chaves()) == null) {
+                        relatorio.add("AUSENTE: " + indice);
+                    }
+                }
+
+                for (Document existente : existentes) {
+                    String nome = existente.getString("name");
+                    if (!"_id_".equals(nome) && declarado(colecao, existente.get("key", Document.class)) == null) {
+                        relatorio.add("NAO DECLARADO: " + colecao + " " + nome);
+                    }
+                }
+
+                for (Document estatistica : collection.aggregate(List.of(new Document("$indexStats", new Document())))) {
+                    String nome = estatistica.getString("name");
+                    Document acessos = estatistica.get("accesses", Document.class);
+                    Number operacoes = acessos != null ? acessos.get("ops", Number.class) : null;
+                    if (!"_id_".equals(nome) && operacoes != null && operacoes.longValue() == 0) {
+                        relatorio.add("SEM USO: " + colecao + " " + nome);
+                    }
+                }
+            }
+        } finally {
+            Conexao.liberar();
+        }
+        return relatorio;
+    }
+
+    /**
+     * Resume o plano vencedor de um explain(): os estagios do plano, do mais
+     * externo ao mais interno, com o nome do indice quando houver.
+     * Exemplo: "FETCH > IXSCAN(placa_1)".
+     *
+     * @param explain Documento retornado por FindIterable.explain()
+     * @return Resumo do plano vencedor
+     */
+    public static String resumirPlano(Document explain) {
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        Document estagio = queryPlanner != null ? queryPlanner.get("winningPlan", Document.class) : null;
+        if (estagio != null && estagio.containsKey("queryPlan")) {
+            // Servidores com o novo mecanismo de execucao (SBE) aninham o plano
+            estagio = estagio.get("queryPlan", Document.class);
+        }
+        StringBuilder resumo = new StringBuilder();
+        while (estagio != null) {
+            if (resumo.length() > 0) {
+                resumo.append(" > ");
+            }
+            resumo.append(estagio.getString("stage"));
+            if (estagio.containsKey("indexName")) {
+                resumo.append("(").append(estagio.getString("indexName")).append(")");
+            }
+            estagio = estagio.get("inputStage", Document.class);
+        }
+        return resumo.toString();
+    }
+
+    private static List<String> colecoes() {
+        List<String> colecoes = new ArrayList<>();
+        for (Indice indice : INDICES) {
+            if (!colecoes.contains(indice.colecao)) {
+                colecoes.add(indice.colecao);
+            }
+        }
+        return colecoes;
+    }
+
+    private static Indice declarado(String colecao, Document chaves) {
+        for (Indice indice : INDICES) {
+            if (indice.colecao.equals(colecao) && mesmasChaves(indice.chaves(), chaves)) {
+                return indice;
+            }
+        }
+        return null;
+    }
+
+    private static Document buscarPorChaves(List<Document> existentes, Document chaves) {
+        for (Document existente : existentes) {
+            if (mesmasChaves(chaves, existente.get("key", Document.class))) {
+                return existente;
+            }
+        }
+        return null;
+    }
+
+    private static boolean mesmasChaves(Document a, Document b) {
+        if (b == null || a.size() != b.size()) {
+            return false;
+        }
+        List<String> camposA = new ArrayList<>(a.keySet());
+        List<String> camposB = new ArrayList<>(b.keySet());
+        if (!camposA.equals(camposB)) {
+            return false;
+        }
+        for (String campo : camposA) {
+            Object direcaoB = b.get(campo);
+            if (!(direcaoB instanceof Number) || ((Number) direcaoB).intValue() != a.getInteger(campo)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Exibe o relatorio de verificacao dos indices.
+     *
+     * @param args nao utilizado
+     */
+    public static void main(String[] args) {
+        List<String> relatorio = verificar();
+        if (relatorio.isEmpty()) {
+            System.out.println("Todos os indices declarados existem e estao em uso.");
+        }
+        for (String linha : relatorio) {
+            System.out.println(linha);
+        }
+        Conexao.encerrar();
+    }
+}
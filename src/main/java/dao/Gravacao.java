@@ -0,0 +1,102 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Gravacao do Java Flight Recorder com os eventos do sistema (frota.Banco e
+ * frota.Utilizacao) somados ao perfil "profile" do JDK, que pode ser ligada
+ * e salva com o programa em execucao, pelo JMX (frota:type=Gravacao, ex:
+ * pelo JConsole) ou pelo proprio codigo.
+ *
+ * Sem o JMX, o mesmo resultado se obtem com
+ * jcmd <pid> JFR.start settings=profile settings=src/main/resources/jfr/frota.jfc
+ *
+ * Configuracao (propriedades de sistema):
+ * - frota.jfr (padrao false): inicia a gravacao junto com o programa
+ * - frota.jfr.limiar.ms (padrao 20): duracao minima de uma operacao de
+ *   repositorio para ser gravada (0 grava todas)
+ * - frota.jfr.retencao.minutos (padrao 30): eventos mais antigos sao
+ *   descartados da gravacao
+ */
+public final class Gravacao implements GravacaoMXBean {
+
+    private static final boolean AO_INICIAR = Boolean.getBoolean("frota.jfr");
+    private static final int LIMIAR_MS = Integer.getInteger("frota.jfr.limiar.ms", 20);
+    private static final int RETENCAO_MINUTOS = Integer.getInteger("frota.jfr.retencao.minutos", 30);
+
+    private static final Gravacao INSTANCIA = new Gravacao();
+
+    private Recording gravacao;
+
+    private Gravacao() {
+    }
+
+    public static Gravacao instancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Publica o controle no JMX e, com frota.jfr=true, inicia a gravacao.
+     * Chamado uma vez pela inicializacao de Metricas.
+     */
+    static void instalar() {
+        Metricas.publicar("frota:type=Gravacao", INSTANCIA);
+        if (AO_INICIAR) {
+            INSTANCIA.iniciar();
+        }
+    }
+
+    @Override
+    public synchronized boolean isAtiva() {
+        return gravacao != null;
+    }
+
+    @Override
+    public synchronized void iniciar() {
+        if (gravacao != null) {
+            return;
+        }
+        Recording nova;
+        try {
+            nova = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            System.err.println("AVISO: Perfil \"profile\" do JFR indisponivel: " + e.getMessage());
+            nova = new Recording();
+        }
+        nova.setName("frota");
+        nova.setMaxAge(Duration.ofMinutes(RETENCAO_MINUTOS));
+        nova.setToDisk(true);
+        nova.enable("frota.Banco").withThreshold(Duration.ofMillis(LIMIAR_MS)).withStackTrace();
+        nova.enable("frota.Utilizacao");
+        nova.start();
+        gravacao = nova;
+    }
+
+    @Override
+    public synchronized String salvar(String arquivo) {
+        if (gravacao == null) {
+            throw new IllegalStateException("Gravacao do JFR nao esta ativa");
+        }
+        Path destino = Path.of(arquivo).toAbsolutePath();
+        try {
+            gravacao.dump(destino);
+        } catch (IOException e) {
+            throw new IllegalStateException("Nao foi possivel salvar a gravacao em " + destino
+                    + ": " + e.getMessage(), e);
+        }
+        return destino.toString();
+    }
+
+    @Override
+    public synchronized void parar() {
+        if (gravacao != null) {
+            gravacao.close();
+            gravacao = null;
+        }
+    }
+}
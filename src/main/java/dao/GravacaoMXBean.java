@@ -0,0 +1,28 @@
+package dao;
+
+/**
+ * Controle da gravacao do Java Flight Recorder publicado no JMX
+ * (frota:type=Gravacao, ver Gravacao).
+ */
+public interface GravacaoMXBean {
+
+    boolean isAtiva();
+
+    /**
+     * Inicia a gravacao; nao faz nada se ja estiver ativa.
+     */
+    void iniciar();
+
+    /**
+     * Grava o conteudo atual da gravacao em um arquivo .jfr, sem para-la.
+     *
+     * @param arquivo Caminho do arquivo
+     * @return Caminho absoluto do arquivo gravado
+     */
+    String salvar(String arquivo);
+
+    /**
+     * Para e descarta a gravacao.
+     */
+    void parar();
+}
@@ -0,0 +1,110 @@
+package dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias com faixas logaritmicas (no estilo HDR): cada
+ * potencia de 2 e dividida em 8 faixas iguais, de modo que o erro de um
+ * percentil e de no maximo 12,5% do valor, de nanossegundos a horas, com
+ * memoria fixa (cerca de 4 KB).
+ *
+ * O registro nao usa bloqueios e pode ser feito por varias threads ao mesmo
+ * tempo; as leituras sao aproximadas enquanto houver registros em andamento.
+ */
+public class Histograma {
+
+    private static final int BITS_FAIXA = 3;
+    private static final int FAIXAS_POR_POTENCIA = 1 << BITS_FAIXA;
+    private static final int TOTAL_FAIXAS = (64 - BITS_FAIXA + 1) * FAIXAS_POR_POTENCIA;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(TOTAL_FAIXAS);
+    private final LongAdder quantidade = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra um valor.
+     *
+     * @param nanos Duracao em nanossegundos (valores negativos contam como zero)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens.incrementAndGet(faixa(valor));
+        quantidade.increment();
+        soma.add(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    public long getQuantidade() {
+        return quantidade.sum();
+    }
+
+    /**
+     * Soma de todos os valores registrados, em nanossegundos.
+     */
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Media em nanossegundos (zero se nao houver registros).
+     */
+    public double getMedia() {
+        long n = quantidade.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    /**
+     * Retorna o percentil pedido: o limite superior da faixa que o contem,
+     * nunca acima do maior valor registrado.
+     *
+     * @param fracao Entre 0 e 1 (ex: 0.99)
+     * @return Valor em nanossegundos (zero se nao houver registros)
+     */
+    public long percentil(double fracao) {
+        long total = 0;
+        long[] copia = new long[TOTAL_FAIXAS];
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(fracao * total));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    private static int faixa(long valor) {
+        if (valor < FAIXAS_POR_POTENCIA) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int subfaixa = (int) (valor >>> (expoente - BITS_FAIXA)) & (FAIXAS_POR_POTENCIA - 1);
+        return (expoente - BITS_FAIXA + 1) * FAIXAS_POR_POTENCIA + subfaixa;
+    }
+
+    private static long limiteSuperior(int faixa) {
+        if (faixa < FAIXAS_POR_POTENCIA) {
+            return faixa;
+        }
+        int expoente = faixa / FAIXAS_POR_POTENCIA + BITS_FAIXA - 1;
+        long subfaixa = faixa % FAIXAS_POR_POTENCIA;
+        long largura = 1L << (expoente - BITS_FAIXA);
+        long inicio = (FAIXAS_POR_POTENCIA + subfaixa) << (expoente - BITS_FAIXA);
+        return inicio + largura - 1;
+    }
+}
@@ -0,0 +1,389 @@
+package dao;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metricas de desempenho do processo: tempo, erros e documentos devolvidos
+ * por operacao, publicados via JMX e, opcionalmente, em um resumo periodico.
+ *
+ * Sao medidos:
+ * - cada metodo de IRepositorio por colecao (ex: "utilizacao.buscar"), para
+ *   qualquer repositorio obtido por Repositorios.para (ver RepositorioMedido);
+ * - a origem das consultas: o tempo e os documentos de todas as operacoes
+ *   de repositorio feitas dentro de naOrigem (as telas usam a chave da
+ *   tarefa ou o nome da tela, ver Tarefas), para saber qual tela causa as
+ *   consultas caras; acima de 100 origens as novas sao somadas em "(outras)";
+ * - operacoes de servico medidas explicitamente (ex: registrarRetirada);
+ * - os caches de leitura (ver CacheLeitura), publicados no JMX.
+ *
+ * As mesmas operacoes de repositorio e de servico tambem sao emitidas como
+ * eventos do Java Flight Recorder (ver EventoBanco e Gravacao).
+ *
+ * Configuracao (propriedades de sistema):
+ * - frota.metricas (padrao true): false desliga a medicao dos repositorios
+ * - frota.metricas.jmx (padrao true): publica as medidas no JMX, dominio
+ *   "frota" (ex: frota:type=Repositorio,colecao=veiculo,metodo=buscar)
+ * - frota.metricas.intervalo (segundos, padrao 0 = desligado): imprime o
+ *   resumo (ver relatorio()) periodicamente na saida padrao
+ */
+public final class Metricas {
+
+    public static final String REPOSITORIO = "Repositorio";
+    public static final String ORIGEM = "Origem";
+    public static final String SERVICO = "Servico";
+
+    private static final boolean ATIVAS = Boolean.parseBoolean(System.getProperty("frota.metricas", "true"));
+    private static final boolean JMX = Boolean.parseBoolean(System.getProperty("frota.metricas.jmx", "true"));
+    private static final int INTERVALO_SEGUNDOS = Integer.getInteger("frota.metricas.intervalo", 0);
+    private static final String DOMINIO = "frota";
+    private static final String SEM_ORIGEM = "(sem origem)";
+    private static final String OUTRAS_ORIGENS = "(outras)";
+    // Cada origem tem um histograma e um MXBean que nunca sao removidos
+    private static final int MAXIMO_ORIGENS = 100;
+
+    private static final Map<String, Medida> MEDIDAS = new ConcurrentHashMap<>();
+    private static final Map<String, Medida> ORIGENS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> ORIGEM_ATUAL = new ThreadLocal<>();
+    private static final LocalDateTime INICIO = LocalDateTime.now();
+
+    static {
+        Gravacao.instalar();
+        if (INTERVALO_SEGUNDOS > 0) {
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "frota-metricas");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleAtFixedRate(() -> System.out.println(relatorio()),
+                    INTERVALO_SEGUNDOS, INTERVALO_SEGUNDOS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Atributos de uma medida publicados no JMX (tempos em milissegundos).
+     */
+    public interface MedidaMXBean {
+        long getChamadas();
+
+        long getErros();
+
+        long getAvisos();
+
+        long getDocumentos();
+
+        double getMediaMs();
+
+        double getP50Ms();
+
+        double getP90Ms();
+
+        double getP99Ms();
+
+        double getMaximoMs();
+
+        double getTotalMs();
+    }
+
+    /**
+     * Tempos, erros e documentos de uma operacao.
+     */
+    public static final class Medida implements MedidaMXBean {
+        private final String tipo;
+        private final String nome;
+        private final Histograma tempos = new Histograma();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder avisos = new LongAdder();
+        private final LongAdder documentos = new LongAdder();
+
+        Medida(String tipo, String nome) {
+            this.tipo = tipo;
+            this.nome = nome;
+        }
+
+        /**
+         * Registra uma execucao.
+         *
+         * @param inicioNanos Valor de System.nanoTime() no inicio da operacao
+         * @param docs Documentos devolvidos ou gravados
+         * @param erro true se a operacao terminou com excecao
+         */
+        public void registrar(long inicioNanos, long docs, boolean erro) {
+            tempos.registrar(System.nanoTime() - inicioNanos);
+            documentos.add(docs);
+            if (erro) {
+                erros.increment();
+            }
+        }
+
+        /**
+         * Conta uma situacao anormal que nao gerou excecao (ex: alteracao
+         * que nao encontrou o documento).
+         */
+        public void registrarAviso() {
+            avisos.increment();
+        }
+
+        public String getTipo() {
+            return tipo;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public Histograma getTempos() {
+            return tempos;
+        }
+
+        @Override
+        public long getChamadas() {
+            return tempos.getQuantidade();
+        }
+
+        @Override
+        public long getErros() {
+            return erros.sum();
+        }
+
+        @Override
+        public long getAvisos() {
+            return avisos.sum();
+        }
+
+        @Override
+        public long getDocumentos() {
+            return documentos.sum();
+        }
+
+        @Override
+        public double getMediaMs() {
+            return tempos.getMedia() / 1_000_000.0;
+        }
+
+        @Override
+        public double getP50Ms() {
+            return tempos.percentil(0.50) / 1_000_000.0;
+        }
+
+        @Override
+        public double getP90Ms() {
+            return tempos.percentil(0.90) / 1_000_000.0;
+        }
+
+        @Override
+        public double getP99Ms() {
+            return tempos.percentil(0.99) / 1_000_000.0;
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return tempos.getMaximo() / 1_000_000.0;
+        }
+
+        @Override
+        public double getTotalMs() {
+            return tempos.getSoma() / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %8d %6d %10d %9.2f %9.2f %9.2f %9.2f %9.2f", nome, getChamadas(),
+                    getErros() + getAvisos(), getDocumentos(), getMediaMs(), getP50Ms(), getP90Ms(),
+                    getP99Ms(), getMaximoMs());
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Indica se os repositorios devem ser medidos (-Dfrota.metricas).
+     */
+    public static boolean isAtivas() {
+        return ATIVAS;
+    }
+
+    /**
+     * Retorna (criando na primeira vez) a medida de uma operacao.
+     *
+     * @param tipo REPOSITORIO, ORIGEM ou SERVICO
+     * @param nome Ex: "veiculo.buscar" ou "ServicoUtilizacao.registrarRetirada"
+     * @return Medida compartilhada por todo o processo
+     */
+    public static Medida medida(String tipo, String nome) {
+        return MEDIDAS.computeIfAbsent(tipo + ":" + nome, k -> {
+            Medida medida = new Medida(tipo, nome);
+            publicar(nomeJmx(tipo, nome), medida);
+            return medida;
+        });
+    }
+
+    /**
+     * Registra uma operacao de repositorio na medida do metodo e na medida
+     * da origem atual.
+     *
+     * @param medida Medida do metodo na colecao (tipo REPOSITORIO)
+     */
+    static void registrarRepositorio(Medida medida, long inicioNanos, long docs, boolean erro) {
+        medida.registrar(inicioNanos, docs, erro);
+        String origem = ORIGEM_ATUAL.get();
+        String nome = origem != null ? origem : SEM_ORIGEM;
+        Medida medidaOrigem = ORIGENS.get(nome);
+        if (medidaOrigem == null) {
+            // Acima do limite, origens novas sao somadas em uma so
+            medidaOrigem = ORIGENS.computeIfAbsent(ORIGENS.size() < MAXIMO_ORIGENS ? nome : OUTRAS_ORIGENS,
+                    o -> medida(ORIGEM, o));
+        }
+        medidaOrigem.registrar(inicioNanos, docs, erro);
+    }
+
+    /**
+     * Conta um aviso (situacao anormal sem excecao) em um metodo de repositorio.
+     */
+    static void registrarAviso(String colecao, String metodo) {
+        if (ATIVAS) {
+            medida(REPOSITORIO, colecao + "." + metodo).registrarAviso();
+        }
+    }
+
+    /**
+     * Origem das operacoes feitas nesta thread (ver naOrigem).
+     *
+     * @return Nome da origem ou null se nenhuma foi definida
+     */
+    static String origemAtual() {
+        return ORIGEM_ATUAL.get();
+    }
+
+    /**
+     * Executa um trabalho atribuindo a uma origem (ex: a tela que o pediu)
+     * todas as operacoes de repositorio feitas nesta thread.
+     *
+     * @param origem Nome da origem, ex: "veiculos"
+     * @param trabalho Trabalho a executar
+     * @return Resultado do trabalho
+     * @throws Exception Repassa a excecao do trabalho
+     */
+    public static <T> T naOrigem(String origem, Callable<T> trabalho) throws Exception {
+        String anterior = ORIGEM_ATUAL.get();
+        ORIGEM_ATUAL.set(origem);
+        try {
+            return trabalho.call();
+        } finally {
+            if (anterior != null) {
+                ORIGEM_ATUAL.set(anterior);
+            } else {
+                ORIGEM_ATUAL.remove();
+            }
+        }
+    }
+
+    /**
+     * Publica um objeto no JMX (dominio "frota"), substituindo um registro
+     * anterior com o mesmo nome. Falhas sao apenas informadas.
+     *
+     * @param nome Ex: "frota:type=Cache,nome=veiculo.placa"
+     * @param objeto Objeto que implementa uma interface ...MXBean
+     */
+    static void publicar(String nome, Object objeto) {
+        if (!JMX) {
+            return;
+        }
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(nome);
+            synchronized (Metricas.class) {
+                if (servidor.isRegistered(objectName)) {
+                    servidor.unregisterMBean(objectName);
+                }
+                servidor.registerMBean(objeto, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("AVISO: Nao foi possivel publicar " + nome + " no JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Nome JMX de um cache de leitura.
+     */
+    static String nomeJmxCache(String nome) {
+        return DOMINIO + ":type=Cache,nome=" + valorJmx(nome);
+    }
+
+    private static String nomeJmx(String tipo, String nome) {
+        if (REPOSITORIO.equals(tipo) && nome.indexOf('.') > 0) {
+            int ponto = nome.indexOf('.');
+            return DOMINIO + ":type=" + tipo + ",colecao=" + valorJmx(nome.substring(0, ponto))
+                    + ",metodo=" + valorJmx(nome.substring(ponto + 1));
+        }
+        return DOMINIO + ":type=" + tipo + ",nome=" + valorJmx(nome);
+    }
+
+    private static String valorJmx(String valor) {
+        return valor.matches("[A-Za-z0-9._-]+") ? valor : ObjectName.quote(valor);
+    }
+
+    /**
+     * Retorna todas as medidas de um tipo, da que consumiu mais tempo para a
+     * que consumiu menos.
+     *
+     * @param tipo REPOSITORIO, ORIGEM ou SERVICO
+     * @return Lista de medidas (copia)
+     */
+    public static List<Medida> medidas(String tipo) {
+        List<Medida> lista = new ArrayList<>();
+        for (Medida medida : MEDIDAS.values()) {
+            if (medida.tipo.equals(tipo)) {
+                lista.add(medida);
+            }
+        }
+        lista.sort((a, b) -> Long.compare(b.tempos.getSoma(), a.tempos.getSoma()));
+        return lista;
+    }
+
+    /**
+     * Resumo em texto de todas as medidas e caches (tempos em milissegundos).
+     *
+     * @return Texto com uma linha por medida
+     */
+    public static String relatorio() {
+        String n = System.lineSeparator();
+        String cabecalho = String.format("%-40s %8s %6s %10s %9s %9s %9s %9s %9s", "", "chamadas", "erros",
+                "documentos", "media", "p50", "p90", "p99", "max");
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== METRICAS ").append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")))
+                .append(" (desde ").append(INICIO.format(DateTimeFormatter.ofPattern("dd/MM HH:mm"))).append(") ===").append(n);
+        for (String tipo : List.of(REPOSITORIO, ORIGEM, SERVICO)) {
+            List<Medida> lista = medidas(tipo);
+            if (lista.isEmpty()) {
+                continue;
+            }
+            sb.append(tipo).append(cabecalho.substring(tipo.length())).append(n);
+            for (Medida medida : lista) {
+                sb.append(medida).append(n);
+            }
+        }
+        List<CacheLeitura<?, ?>> caches = CacheLeitura.registrados();
+        if (!caches.isEmpty()) {
+            sb.append("Caches").append(n);
+            for (CacheLeitura<?, ?> cache : caches) {
+                sb.append("  ").append(cache).append(n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package dao;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.conversions.Bson;
+
+/**
+ * Converte os documentos ja gravados para o formato enxuto.
+ *
+ * Utilizacoes antigas guardam copias completas do veiculo, do motorista e dos
+ * operadores (inclusive a senha); a migracao remove tudo exceto as chaves
+ * (veiculo.placa, motorista.codigo, operadorRetirada.codigo e
+ * operadorDevolucao.codigo). Tambem remove de veiculos e motoristas os campos
+ * calculados que eram gravados a partir de getters (placaValida, displayInfo,
+ * cnhValida, displayName). O campo emUso das utilizacoes e mantido, pois o
+ * indice de utilizacao em aberto por placa depende dele.
+ *
+ * A migracao pode ser executada mais de uma vez sem efeito adicional.
+ */
+public final class MigracaoUtilizacoes {
+
+    private MigracaoUtilizacoes() {
+    }
+
+    /**
+     * Executa a migracao no banco configurado.
+     *
+     * @param args nao utilizado
+     */
+    public static void main(String[] args) {
+        MongoDatabase database = Conexao.adquirir();
+        try {
+            migrar(database, "utilizacao",
+                    "veiculo.marca", "veiculo.modelo", "veiculo.placaValida", "veiculo.displayInfo",
+                    "motorista.nome", "motorista.cnh", "motorista.setor",
+                    "motorista.cnhValida", "motorista.displayName",
+                    "operadorRetirada.nome", "operadorRetirada.login", "operadorRetirada.senha",
+                    "operadorDevolucao.nome", "operadorDevolucao.login", "operadorDevolucao.senha",
+                    "displayInfo", "tempoUtilizacaoHoras");
+            migrar(database, "veiculo", "placaValida", "displayInfo");
+            migrar(database, "motorista", "cnhValida", "displayName");
+        } finally {
+            Conexao.liberar();
+            Conexao.encerrar();
+        }
+    }
+
+    private static void migrar(MongoDatabase database, String colecao, String... campos) {
+        List<Bson> remocoes = new ArrayList<>();
+        List<Bson> possuiCampo = new ArrayList<>();
+        for (String campo : campos) {
+            remocoes.add(Updates.unset(campo));
+            possuiCampo.add(Filters.exists(campo));
+        }
+        UpdateResult resultado = database.getCollection(colecao)
+                .updateMany(Filters.or(possuiCampo), Updates.combine(remocoes));
+        System.out.println(colecao + ": " + resultado.getModifiedCount() + " documento(s) migrado(s)");
+    }
+}
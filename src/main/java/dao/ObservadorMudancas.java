@@ -0,0 +1,318 @@
+package dao;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.codecs.DecoderContext;
+
+/**
+ * Observa as alteracoes feitas por qualquer posto de atendimento nas colecoes
+ * veiculo, motorista, usuario e utilizacao (change streams do MongoDB) e as
+ * repassa aos ouvintes registrados, como caches e telas abertas.
+ *
+ * Uma unica thread (daemon) le o fluxo de mudancas do banco; os ouvintes sao
+ * chamados nessa thread e nao devem bloquear. Se a conexao cair, a leitura e
+ * retomada a partir da ultima mudanca recebida.
+ *
+ * Change streams exigem um replica set. Em um servidor isolado o observador
+ * registra um aviso e se desativa: o sistema continua funcionando, mas cada
+ * tela so ve alteracoes de outros postos ao recarregar.
+ *
+ * Com os dados em memoria (ver Repositorios) nao ha banco a observar e o
+ * observador nao e iniciado.
+ *
+ * Em exclusoes o documento excluido so esta disponivel se a colecao tiver
+ * pre-imagens habilitadas (changeStreamPreAndPostImages, MongoDB 6+); sem
+ * isso a mudanca chega sem documento e o ouvinte deve recarregar seus dados.
+ */
+public final class ObservadorMudancas {
+
+    /**
+     * Tipos de mudanca repassados aos ouvintes.
+     */
+    public enum Tipo {
+        INSERCAO,
+        ALTERACAO,
+        EXCLUSAO,
+        /** Colecao removida ou renomeada, ou fluxo reiniciado: recarregar tudo. */
+        RECARGA
+    }
+
+    /**
+     * Uma mudanca em um documento.
+     */
+    public static final class Mudanca {
+        private final String colecao;
+        private final Tipo tipo;
+        private final BsonDocument documento;
+
+        Mudanca(String colecao, Tipo tipo, BsonDocument documento) {
+            this.colecao = colecao;
+            this.tipo = tipo;
+            this.documento = documento;
+        }
+
+        public String getColecao() {
+            return colecao;
+        }
+
+        public Tipo getTipo() {
+            return tipo;
+        }
+
+        /**
+         * Documento apos a mudanca (insercao e alteracao) ou antes dela
+         * (exclusao, quando houver pre-imagem).
+         *
+         * @return Documento ou null se nao disponivel
+         */
+        public BsonDocument getDocumento() {
+            return documento;
+        }
+
+        /**
+         * Converte o documento para um objeto do modelo.
+         *
+         * @param classe Classe do objeto, ex: Veiculo.class
+         * @return Objeto ou null se a mudanca nao tem documento
+         */
+        public <T> T getObjeto(Class<T> classe) {
+            if (documento == null) {
+                return null;
+            }
+            return Conexao.getCodecs().get(classe)
+                    .decode(new BsonDocumentReader(documento), DecoderContext.builder().build());
+        }
+
+        @Override
+        public String toString() {
+            return tipo + " " + colecao + (documento != null ? " " + documento.toJson() : "");
+        }
+    }
+
+    private static final List<String> COLECOES = List.of("veiculo", "motorista", "usuario", "utilizacao");
+
+    /** Erro do servidor quando change streams nao sao suportados (servidor isolado). */
+    private static final int ERRO_SEM_REPLICA_SET = 40573;
+
+    /** Erro do servidor quando o ponto de retomada nao esta mais no oplog. */
+    private static final int ERRO_HISTORICO_PERDIDO = 286;
+
+    private static final long ESPERA_RECONEXAO_MS = 5_000;
+
+    private static final Map<String, List<Consumer<Mudanca>>> OUVINTES = new ConcurrentHashMap<>();
+
+    /**
+     * Thread que deve ler as mudancas. Cada thread le enquanto for a atual:
+     * uma thread antiga que ainda nao terminou (ex: esperando para reconectar)
+     * quando iniciar() cria outra nao entrega nada em dobro nem interrompe a nova.
+     */
+    private static volatile Thread thread;
+    private static volatile boolean suportado = true;
+
+    private ObservadorMudancas() {
+    }
+
+    /**
+     * Registra um ouvinte para as mudancas de uma colecao. O registro pode
+     * ser feito antes ou depois de iniciar().
+     *
+     * @param colecao Nome da colecao, ex: "veiculo"
+     * @param ouvinte Chamado na thread do observador para cada mudanca
+     * @return Acao que cancela o registro
+     */
+    public static Runnable ouvir(String colecao, Consumer<Mudanca> ouvinte) {
+        List<Consumer<Mudanca>> lista = OUVINTES.computeIfAbsent(colecao, c -> new CopyOnWriteArrayList<>());
+        lista.add(ouvinte);
+        return () -> lista.remove(ouvinte);
+    }
+
+    /**
+     * Inicia a thread do observador. Chamadas repetidas nao tem efeito.
+     */
+    public static synchronized void iniciar() {
+        if (thread != null || !suportado || Repositorios.isMemoria()) {
+            return;
+        }
+        Thread nova = new Thread(ObservadorMudancas::executar, "frota-observador-mudancas");
+        nova.setDaemon(true);
+        thread = nova;
+        nova.start();
+    }
+
+    /**
+     * Para a thread do observador e aguarda seu termino (no maximo alguns
+     * segundos). Mesmo que ela demore mais, nao entrega mais nenhuma mudanca.
+     */
+    public static void parar() {
+        Thread atual;
+        synchronized (ObservadorMudancas.class) {
+            atual = thread;
+            thread = null;
+        }
+        if (atual != null) {
+            atual.interrupt();   // encerra a espera por reconexao
+            try {
+                atual.join(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Indica se o observador esta lendo mudancas do banco.
+     */
+    public static boolean isAtivo() {
+        return thread != null && suportado;
+    }
+
+    /**
+     * Indica se a thread que chama ainda e a thread atual do observador.
+     */
+    private static boolean ativo() {
+        return thread == Thread.currentThread();
+    }
+
+    private static void executar() {
+        MongoDatabase database = null;
+        BsonDocument retomarApos = null;
+        boolean usarPreImagem = true;
+        boolean recarregar = false;   // mudancas podem ter sido perdidas
+        try {
+            // Dentro do try: se falhar, o finally libera o observador para um novo iniciar()
+            database = Conexao.adquirir();
+            while (ativo()) {
+                ChangeStreamIterable<BsonDocument> fluxo = database
+                        .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLECOES))), BsonDocument.class)
+                        .fullDocument(FullDocument.UPDATE_LOOKUP)
+                        .maxAwaitTime(1, TimeUnit.SECONDS);
+                if (usarPreImagem) {
+                    fluxo = fluxo.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+                }
+                if (retomarApos != null) {
+                    fluxo = fluxo.resumeAfter(retomarApos);
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> cursor = fluxo.cursor()) {
+                    if (recarregar) {
+                        recarregar = false;
+                        for (String colecao : COLECOES) {
+                            entregar(new Mudanca(colecao, Tipo.RECARGA, null));
+                        }
+                    }
+                    while (ativo()) {
+                        // Espera no maximo maxAwaitTime, para que parar() seja atendido
+                        ChangeStreamDocument<BsonDocument> evento = cursor.tryNext();
+                        if (evento != null && ativo()) {
+                            retomarApos = evento.getResumeToken();
+                            notificar(evento);
+                        }
+                    }
+                } catch (MongoCommandException e) {
+                    if (e.getErrorCode() == ERRO_SEM_REPLICA_SET) {
+                        System.err.println("AVISO: Servidor MongoDB sem replica set; "
+                                + "alteracoes de outros postos so aparecem ao recarregar as telas.");
+                        suportado = false;
+                        return;
+                    }
+                    if (e.getErrorCode() == ERRO_HISTORICO_PERDIDO) {
+                        retomarApos = null;
+                        recarregar = true;
+                        continue;
+                    }
+                    if (usarPreImagem) {
+                        // Servidores anteriores ao 6.0 nao aceitam fullDocumentBeforeChange
+                        usarPreImagem = false;
+                        continue;
+                    }
+                    recarregar |= retomarApos == null;
+                    aguardarReconexao(e);
+                } catch (MongoException e) {
+                    // Sem ponto de retomada nao ha como recuperar o que mudou durante a queda
+                    recarregar |= retomarApos == null;
+                    if (ativo()) {
+                        aguardarReconexao(e);
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            // Cliente fechado durante o encerramento da aplicacao
+        } catch (RuntimeException e) {
+            System.err.println("AVISO: Leitura de mudancas encerrada: " + e.getMessage());
+        } finally {
+            if (database != null) {
+                Conexao.liberar();
+            }
+            synchronized (ObservadorMudancas.class) {
+                if (ativo()) {
+                    thread = null;
+                }
+            }
+        }
+    }
+
+    private static void aguardarReconexao(MongoException e) {
+        System.err.println("AVISO: Leitura de mudancas interrompida, tentando novamente: " + e.getMessage());
+        try {
+            Thread.sleep(ESPERA_RECONEXAO_MS);
+        } catch (InterruptedException ie) {
+            // parar() ja trocou a thread atual; o laco termina
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void notificar(ChangeStreamDocument<BsonDocument> evento) {
+        String colecao = evento.getNamespace() != null ? evento.getNamespace().getCollectionName() : null;
+        switch (evento.getOperationType()) {
+            case INSERT:
+                entregar(new Mudanca(colecao, Tipo.INSERCAO, evento.getFullDocument()));
+                break;
+            case UPDATE:
+            case REPLACE:
+                entregar(new Mudanca(colecao, Tipo.ALTERACAO, evento.getFullDocument()));
+                break;
+            case DELETE:
+                entregar(new Mudanca(colecao, Tipo.EXCLUSAO, evento.getFullDocumentBeforeChange()));
+                break;
+            default:
+                // drop, rename, dropDatabase, invalidate...
+                if (colecao != null) {
+                    entregar(new Mudanca(colecao, Tipo.RECARGA, null));
+                } else {
+                    for (String c : COLECOES) {
+                        entregar(new Mudanca(c, Tipo.RECARGA, null));
+                    }
+                }
+        }
+    }
+
+    private static void entregar(Mudanca mudanca) {
+        List<Consumer<Mudanca>> ouvintes = OUVINTES.get(mudanca.getColecao());
+        if (ouvintes == null) {
+            return;
+        }
+        for (Consumer<Mudanca> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(mudanca);
+            } catch (RuntimeException e) {
+                System.err.println("AVISO: Erro ao processar mudanca " + mudanca.getTipo() + " em "
+                        + mudanca.getColecao() + ": " + e.getMessage());
+            }
+        }
+    }
+}
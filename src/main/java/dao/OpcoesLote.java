@@ -0,0 +1,51 @@
+package dao;
+
+/**
+ * Opcoes das operacoes em lote (inserirLote, alterarLote, excluirLote).
+ *
+ * <pre>
+ * new OpcoesLote().ordenado(false).tamanhoLote(500)
+ * </pre>
+ *
+ * Em modo ordenado (padrao) os itens sao gravados na ordem da lista e a
+ * operacao para no primeiro erro; os itens seguintes nao sao gravados. Em
+ * modo nao ordenado todos os itens sao tentados e cada erro e registrado
+ * no ResultadoLote, o que e o mais indicado para importacoes.
+ */
+public class OpcoesLote {
+
+    /** Itens enviados ao banco por requisicao, se nao informado. */
+    public static final int TAMANHO_LOTE_PADRAO = 1000;
+
+    private boolean ordenado = true;
+    private int tamanhoLote = TAMANHO_LOTE_PADRAO;
+
+    /**
+     * Define se a operacao deve parar no primeiro erro.
+     */
+    public OpcoesLote ordenado(boolean ordenado) {
+        this.ordenado = ordenado;
+        return this;
+    }
+
+    /**
+     * Define quantos itens sao enviados por requisicao ao banco.
+     *
+     * @throws IllegalArgumentException se o tamanho nao for positivo
+     */
+    public OpcoesLote tamanhoLote(int tamanhoLote) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser positivo");
+        }
+        this.tamanhoLote = tamanhoLote;
+        return this;
+    }
+
+    public boolean isOrdenado() {
+        return ordenado;
+    }
+
+    public int getTamanhoLote() {
+        return tamanhoLote;
+    }
+}
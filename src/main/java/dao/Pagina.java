@@ -0,0 +1,61 @@
+package dao;
+
+import java.util.Collections;
+import java.util.List;
+import org.bson.BsonValue;
+
+/**
+ * Uma pagina de resultados obtida por paginacao por chave (keyset).
+ *
+ * A pagina guarda o valor do campo de ordenacao e o _id do seu ultimo
+ * item; a pagina seguinte e buscada a partir desse ponto (campo &gt; valor),
+ * sem usar skip, de modo que o custo de cada pagina nao depende de quantas
+ * paginas ja foram lidas. Para obter a proxima pagina passe esta pagina
+ * como "anterior" para IRepositorio.listarPagina.
+ *
+ * @param <T> Tipo dos itens da pagina
+ */
+public class Pagina<T> {
+
+    private final List<T> itens;
+    private final boolean temProxima;
+    private final BsonValue ultimoValor;  // valor do campo de ordenacao do ultimo item
+    private final BsonValue ultimoId;     // _id do ultimo item (desempate)
+
+    Pagina(List<T> itens, boolean temProxima, BsonValue ultimoValor, BsonValue ultimoId) {
+        this.itens = Collections.unmodifiableList(itens);
+        this.temProxima = temProxima;
+        this.ultimoValor = ultimoValor;
+        this.ultimoId = ultimoId;
+    }
+
+    /**
+     * Itens da pagina, na ordem pedida.
+     *
+     * @return Lista imutavel de itens
+     */
+    public List<T> getItens() {
+        return itens;
+    }
+
+    /**
+     * Indica se existem itens depois desta pagina.
+     *
+     * @return true se ha uma proxima pagina
+     */
+    public boolean temProxima() {
+        return temProxima;
+    }
+
+    public boolean isVazia() {
+        return itens.isEmpty();
+    }
+
+    BsonValue getUltimoValor() {
+        return ultimoValor;
+    }
+
+    BsonValue getUltimoId() {
+        return ultimoId;
+    }
+}
@@ -0,0 +1,266 @@
+package dao;
+
+import com.mongodb.MongoClientSettings;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+/**
+ * Registro das consultas lentas do Dao em um arquivo local com rotacao:
+ * cada consulta acima do limite gera uma linha com a colecao, a operacao,
+ * a duracao, os documentos devolvidos, a forma do filtro (sem os valores),
+ * a ordenacao e o resumo do explain() (plano, chaves e documentos
+ * examinados), por exemplo:
+ *
+ * 2026-10-18T10:15:02.114 utilizacao.buscarPorPeriodo 412 ms, 1830 docs
+ *   filtro={"$and": [{"dataRetirada": {"$gte": "?"}}, {"dataRetirada": {"$lte": "?"}}]} ordem=-
+ *   plano=COLLSCAN examinados=250000 chaves=0 devolvidos=1830
+ *
+ * (em uma unica linha no arquivo).
+ *
+ * O explain repete a consulta no servidor, por isso e feito em uma thread
+ * separada, no maximo uma vez por forma de consulta a cada intervalo;
+ * as demais ocorrencias sao registradas com "plano=(repetida)".
+ *
+ * Configuracao (propriedades de sistema):
+ * - frota.lento.ms (padrao 100; negativo desliga): duracao minima
+ * - frota.lento.arquivo (padrao logs/consultas-lentas.%g.log): padrao do
+ *   arquivo, no formato de java.util.logging.FileHandler
+ * - frota.lento.tamanho.kb (padrao 1024) e frota.lento.arquivos (padrao 5):
+ *   tamanho de cada arquivo e quantos sao mantidos na rotacao
+ * - frota.lento.explain (padrao true): false registra sem o explain
+ * - frota.lento.intervalo (segundos, padrao 300): intervalo minimo entre
+ *   dois explain da mesma forma de consulta
+ */
+public final class RegistroLento {
+
+    private static final long LIMIAR_MS = Long.getLong("frota.lento.ms", 100);
+    private static final String ARQUIVO = System.getProperty("frota.lento.arquivo", "logs/consultas-lentas.%g.log");
+    private static final int TAMANHO_KB = Integer.getInteger("frota.lento.tamanho.kb", 1024);
+    private static final int ARQUIVOS = Integer.getInteger("frota.lento.arquivos", 5);
+    private static final boolean EXPLAIN = Boolean.parseBoolean(System.getProperty("frota.lento.explain", "true"));
+    private static final long INTERVALO_NANOS =
+            TimeUnit.SECONDS.toNanos(Integer.getInteger("frota.lento.intervalo", 300));
+    private static final int MAXIMO_FORMAS = 1_000;
+    private static final String VALOR = "?";
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final Map<String, Long> ULTIMO_EXPLAIN = new ConcurrentHashMap<>();
+
+    // Uma thread e uma fila curta: se o servidor estiver lento, explains sao descartados
+    private static final ThreadPoolExecutor EXPLAINS = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), r -> {
+                Thread t = new Thread(r, "frota-explain");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private static volatile Logger arquivo;
+    private static volatile boolean falhou = false;
+
+    private RegistroLento() {
+    }
+
+    public static boolean isAtivo() {
+        return LIMIAR_MS >= 0 && !falhou;
+    }
+
+    /**
+     * Duracao minima, em milissegundos, de uma consulta registrada.
+     */
+    public static long getLimiarMs() {
+        return LIMIAR_MS;
+    }
+
+    /**
+     * Registra a consulta se a duracao passar do limite.
+     *
+     * @param colecao Nome da colecao
+     * @param operacao Metodo do Dao (ex: "buscarPorPeriodo")
+     * @param filtro Filtro usado (null = todos)
+     * @param ordem Ordenacao usada (null = nenhuma)
+     * @param registro CodecRegistry da colecao, para converter os filtros
+     * @param inicioNanos System.nanoTime() do inicio da consulta
+     * @param documentos Documentos devolvidos
+     * @param explain Executa o explain da mesma consulta (chamado em outra thread)
+     */
+    static void registrar(String colecao, String operacao, Bson filtro, Bson ordem, CodecRegistry registro,
+                          long inicioNanos, long documentos, Supplier<Document> explain) {
+        long nanos = System.nanoTime() - inicioNanos;
+        if (!isAtivo() || nanos < TimeUnit.MILLISECONDS.toNanos(LIMIAR_MS)) {
+            return;
+        }
+        String consulta = " filtro=" + forma(filtro, registro)
+                + " ordem=" + (ordem != null ? ordem.toBsonDocument(BsonDocument.class, registro).toJson() : "-");
+        String linha = FORMATO_DATA.format(LocalDateTime.now()) + " " + colecao + "." + operacao + " "
+                + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + documentos + " docs" + consulta;
+        if (!EXPLAIN) {
+            escrever(linha);
+            return;
+        }
+        if (!explainLiberado(colecao + "." + operacao + consulta)) {
+            escrever(linha + " plano=(repetida)");
+            return;
+        }
+        try {
+            EXPLAINS.execute(() -> {
+                String plano;
+                try {
+                    plano = resumirExplain(explain.get());
+                } catch (RuntimeException e) {
+                    // MongoException ou IllegalStateException se o cliente ja foi fechado
+                    // (ver Conexao): a linha e gravada mesmo assim
+                    plano = "(explain falhou: " + e.getMessage() + ")";
+                }
+                escrever(linha + " plano=" + plano);
+            });
+        } catch (RejectedExecutionException e) {
+            escrever(linha + " plano=(explain descartado)");
+        }
+    }
+
+    private static boolean explainLiberado(String chave) {
+        long agora = System.nanoTime();
+        if (ULTIMO_EXPLAIN.size() >= MAXIMO_FORMAS) {
+            ULTIMO_EXPLAIN.clear();
+        }
+        boolean[] liberado = {false};
+        ULTIMO_EXPLAIN.compute(chave, (c, ultimo) -> {
+            if (ultimo == null || agora - ultimo >= INTERVALO_NANOS) {
+                liberado[0] = true;
+                return agora;
+            }
+            return ultimo;
+        });
+        return liberado[0];
+    }
+
+    /**
+     * Forma de um filtro: o mesmo documento com todos os valores trocados
+     * por "?" (operadores e campos sao mantidos), para agrupar consultas
+     * iguais e nao gravar dados dos cadastros no arquivo.
+     *
+     * @param filtro Filtro (null = todos)
+     * @return Ex: {"veiculo.placa": "?", "dataDevolucao": {"$gte": "?"}}
+     */
+    public static String forma(Bson filtro) {
+        return forma(filtro, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private static String forma(Bson filtro, CodecRegistry registro) {
+        if (filtro == null) {
+            return "{}";
+        }
+        return mascarar(filtro.toBsonDocument(BsonDocument.class, registro)).asDocument().toJson();
+    }
+
+    private static BsonValue mascarar(BsonValue valor) {
+        if (valor.isDocument()) {
+            BsonDocument copia = new BsonDocument();
+            for (Map.Entry<String, BsonValue> campo : valor.asDocument().entrySet()) {
+                copia.put(campo.getKey(), mascarar(campo.getValue()));
+            }
+            return copia;
+        }
+        if (valor.isArray()) {
+            // $and/$or trazem subfiltros; $in e semelhantes, listas de valores
+            BsonArray copia = new BsonArray();
+            for (BsonValue item : valor.asArray()) {
+                if (item.isDocument()) {
+                    copia.add(mascarar(item));
+                } else if (copia.isEmpty()) {
+                    copia.add(new BsonString(VALOR));
+                }
+            }
+            return copia;
+        }
+        return new BsonString(VALOR);
+    }
+
+    /**
+     * Resume um explain("executionStats"): o plano vencedor (ver
+     * GerenciadorIndices.resumirPlano) e as chaves e documentos examinados.
+     *
+     * @param explain Documento retornado por FindIterable.explain(ExplainVerbosity.EXECUTION_STATS)
+     * @return Ex: "FETCH > IXSCAN(placa_1) examinados=30 chaves=30 devolvidos=30"
+     */
+    public static String resumirExplain(Document explain) {
+        StringBuilder resumo = new StringBuilder(GerenciadorIndices.resumirPlano(explain));
+        Document estatisticas = explain.get("executionStats", Document.class);
+        if (estatisticas != null) {
+            resumo.append(" examinados=").append(numero(estatisticas, "totalDocsExamined"))
+                    .append(" chaves=").append(numero(estatisticas, "totalKeysExamined"))
+                    .append(" devolvidos=").append(numero(estatisticas, "nReturned"));
+        }
+        return resumo.toString();
+    }
+
+    private static long numero(Document documento, String campo) {
+        Object valor = documento.get(campo);
+        return valor instanceof Number ? ((Number) valor).longValue() : 0;
+    }
+
+    private static void escrever(String linha) {
+        Logger logger = arquivo();
+        if (logger != null) {
+            logger.info(linha);
+        }
+    }
+
+    private static Logger arquivo() {
+        if (arquivo == null && !falhou) {
+            synchronized (RegistroLento.class) {
+                if (arquivo == null && !falhou) {
+                    arquivo = abrir();
+                    falhou = arquivo == null;
+                }
+            }
+        }
+        return arquivo;
+    }
+
+    private static Logger abrir() {
+        try {
+            Path pasta = Path.of(ARQUIVO).toAbsolutePath().getParent();
+            if (pasta != null) {
+                Files.createDirectories(pasta);
+            }
+            FileHandler handler = new FileHandler(ARQUIVO, TAMANHO_KB * 1024, Math.max(1, ARQUIVOS), true);
+            handler.setEncoding("UTF-8");
+            handler.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord registro) {
+                    return registro.getMessage() + System.lineSeparator();
+                }
+            });
+            Logger logger = Logger.getLogger("frota.lento");
+            logger.setUseParentHandlers(false);
+            logger.addHandler(handler);
+            return logger;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("AVISO: Registro de consultas lentas desativado, nao foi possivel abrir "
+                    + ARQUIVO + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package dao;
+
+import interfaces.IRepositorio;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Repositorio que mede o tempo, os erros e a quantidade de documentos de
+ * cada operacao de outro repositorio (ver Metricas), emite um EventoBanco
+ * para o Java Flight Recorder e repassa a chamada sem altera-la. Usado por
+ * Repositorios para qualquer implementacao.
+ *
+ * @param <T> Tipo da entidade gerenciada pelo repositorio
+ */
+class RepositorioMedido<T> implements IRepositorio<T> {
+
+    private final IRepositorio<T> repositorio;
+    private final String colecao;
+    private final Map<String, Metricas.Medida> medidas = new ConcurrentHashMap<>();
+
+    RepositorioMedido(IRepositorio<T> repositorio, Class<T> classe) {
+        this.repositorio = repositorio;
+        this.colecao = classe.getSimpleName().toLowerCase();
+    }
+
+    private <R> R medir(String metodo, Supplier<String> forma, Supplier<R> operacao, ToLongFunction<R> documentos) {
+        Metricas.Medida medida = medidas.computeIfAbsent(metodo,
+                m -> Metricas.medida(Metricas.REPOSITORIO, colecao + "." + m));
+        EventoBanco evento = new EventoBanco();
+        evento.begin();
+        long inicio = System.nanoTime();
+        R resultado;
+        try {
+            resultado = operacao.get();
+        } catch (RuntimeException | Error e) {
+            Metricas.registrarRepositorio(medida, inicio, 0, true);
+            registrarEvento(evento, metodo, forma, 0, true);
+            throw e;
+        }
+        long docs = documentos.applyAsLong(resultado);
+        Metricas.registrarRepositorio(medida, inicio, docs, false);
+        registrarEvento(evento, metodo, forma, docs, false);
+        return resultado;
+    }
+
+    private void medir(String metodo, Supplier<String> forma, Runnable operacao, long documentos) {
+        medir(metodo, forma, () -> {
+            operacao.run();
+            return null;
+        }, r -> documentos);
+    }
+
+    private void registrarEvento(EventoBanco evento, String metodo, Supplier<String> forma, long docs, boolean erro) {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.colecao = colecao;
+            evento.operacao = metodo;
+            evento.filtro = forma.get();
+            evento.documentos = docs;
+            evento.origem = Metricas.origemAtual();
+            evento.erro = erro;
+            evento.commit();
+        }
+    }
+
+    private static Supplier<String> chave(String chave) {
+        return () -> chave + " = ?";
+    }
+
+    private static Supplier<String> forma(Consulta consulta) {
+        return consulta::getForma;
+    }
+
+    private static Supplier<String> ordem(String campo, boolean crescente) {
+        return () -> "todos; ordem " + campo + (crescente ? " asc" : " desc");
+    }
+
+    private static long quantidade(Object objeto) {
+        return objeto != null ? 1 : 0;
+    }
+
+    @Override
+    public void inserir(T objeto) {
+        medir("inserir", () -> "1 objeto", () -> repositorio.inserir(objeto), 1);
+    }
+
+    @Override
+    public void alterar(String chave, String valor, T novo) {
+        medir("alterar", chave(chave), () -> repositorio.alterar(chave, valor, novo), 1);
+    }
+
+    @Override
+    public boolean excluir(String chave, String valor) {
+        return medir("excluir", chave(chave), () -> repositorio.excluir(chave, valor), r -> r ? 1 : 0);
+    }
+
+    @Override
+    public T buscarPorChave(String chave, Object valor) {
+        return medir("buscarPorChave", chave(chave), () -> repositorio.buscarPorChave(chave, valor),
+                RepositorioMedido::quantidade);
+    }
+
+    @Override
+    public List<T> listarTodos() {
+        return medir("listarTodos", () -> "todos", repositorio::listarTodos, List::size);
+    }
+
+    @Override
+    public List<T> filtrar(String campo, String criterio) {
+        return medir("filtrar", () -> campo + " contem ?", () -> repositorio.filtrar(campo, criterio),
+                List::size);
+    }
+
+    @Override
+    public List<T> buscar(Consulta consulta) {
+        return medir("buscar", forma(consulta), () -> repositorio.buscar(consulta), List::size);
+    }
+
+    @Override
+    public T buscarPrimeiro(Consulta consulta) {
+        return medir("buscarPrimeiro", forma(consulta), () -> repositorio.buscarPrimeiro(consulta),
+                RepositorioMedido::quantidade);
+    }
+
+    @Override
+    public long contar(Consulta consulta) {
+        return medir("contar", forma(consulta), () -> repositorio.contar(consulta), r -> 0);
+    }
+
+    @Override
+    public long contar() {
+        return medir("contar", () -> "todos", () -> repositorio.contar(), r -> 0);
+    }
+
+    @Override
+    public void percorrer(Consulta consulta, Consumer<T> acao) {
+        long[] documentos = {0};
+        medir("percorrer", forma(consulta), () -> {
+            repositorio.percorrer(consulta, objeto -> {
+                documentos[0]++;
+                acao.accept(objeto);
+            });
+            return null;
+        }, r -> documentos[0]);
+    }
+
+    @Override
+    public List<T> buscarPorPeriodo(String campo, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return medir("buscarPorPeriodo", () -> campo + " >= ? e " + campo + " <= ?",
+                () -> repositorio.buscarPorPeriodo(campo, dataInicio, dataFim), List::size);
+    }
+
+    @Override
+    public List<T> listarOrdenado(String campoOrdenacao, boolean crescente) {
+        return medir("listarOrdenado", ordem(campoOrdenacao, crescente),
+                () -> repositorio.listarOrdenado(campoOrdenacao, crescente), List::size);
+    }
+
+    @Override
+    public Pagina<T> listarPagina(String campoOrdenacao, boolean crescente, int tamanho, Pagina<T> anterior) {
+        return medir("listarPagina", ordem(campoOrdenacao, crescente),
+                () -> repositorio.listarPagina(campoOrdenacao, crescente, tamanho, anterior),
+                p -> p.getItens().size());
+    }
+
+    @Override
+    public Pagina<T> listarPagina(Consulta consulta, String campoOrdenacao, boolean crescente,
+                                  int tamanho, Pagina<T> anterior) {
+        return medir("listarPagina", forma(consulta),
+                () -> repositorio.listarPagina(consulta, campoOrdenacao, crescente, tamanho, anterior),
+                p -> p.getItens().size());
+    }
+
+    @Override
+    public boolean inserirSeUnico(T objeto, String nomeIndice) {
+        return medir("inserirSeUnico", () -> "indice " + nomeIndice,
+                () -> repositorio.inserirSeUnico(objeto, nomeIndice), r -> r ? 1 : 0);
+    }
+
+    @Override
+    public boolean substituirSe(Consulta consulta, T novo) {
+        return medir("substituirSe", forma(consulta), () -> repositorio.substituirSe(consulta, novo),
+                r -> r ? 1 : 0);
+    }
+
+    @Override
+    public ResultadoLote inserirLote(List<T> objetos, OpcoesLote opcoes) {
+        return medir("inserirLote", () -> objetos.size() + " objetos",
+                () -> repositorio.inserirLote(objetos, opcoes), ResultadoLote::getInseridos);
+    }
+
+    @Override
+    public ResultadoLote alterarLote(String chave, Function<T, ?> valorDaChave, List<T> novos, OpcoesLote opcoes) {
+        return medir("alterarLote", () -> chave + " em [" + novos.size() + "]",
+                () -> repositorio.alterarLote(chave, valorDaChave, novos, opcoes), ResultadoLote::getAlterados);
+    }
+
+    @Override
+    public ResultadoLote excluirLote(String chave, List<?> valores, OpcoesLote opcoes) {
+        return medir("excluirLote", () -> chave + " em [" + valores.size() + "]",
+                () -> repositorio.excluirLote(chave, valores, opcoes), ResultadoLote::getExcluidos);
+    }
+
+    @Override
+    public void fecharConexao() {
+        repositorio.fecharConexao();
+    }
+}
@@ -0,0 +1,1092 @@
+package dao;
+
+import interfaces.IRepositorio;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonMaxKey;
+import org.bson.BsonMinKey;
+import org.bson.BsonNull;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Repositorio em memoria, com o mesmo comportamento do Dao: objetos sao
+ * guardados como documentos BSON (codificados com os mesmos codecs do banco,
+ * ver Conexao), cada leitura devolve uma copia, consultas aceitam os mesmos
+ * criterios, ordenacao, limite e projecao, e a paginacao e por chave.
+ *
+ * Os indices declarados em GerenciadorIndices para a colecao sao mantidos em
+ * mapas ordenados: as consultas por igualdade, faixa ou lista de valores
+ * usam o indice com mais campos atendidos, e a paginacao percorre o indice do
+ * campo de ordenacao sem ordenar o resultado. Indices unicos (inclusive os
+ * parciais) sao respeitados como no banco.
+ *
+ * Leituras concorrentes sao permitidas; escritas sao exclusivas. Usado em
+ * testes, medicoes de desempenho e em postos sem acesso ao banco
+ * (-Dfrota.repositorio=memoria, ver Repositorios). Os dados nao sao gravados
+ * em disco.
+ *
+ * @param <T> Tipo dos objetos guardados
+ */
+public class RepositorioMemoria<T> implements IRepositorio<T> {
+
+    private static final Map<String, RepositorioMemoria<?>> REPOSITORIOS = new ConcurrentHashMap<>();
+
+    private static final BsonValue MINIMO = new BsonMinKey();
+    private static final BsonValue MAXIMO = new BsonMaxKey();
+    private static final Comparator<BsonValue> ORDEM_VALORES = RepositorioMemoria::comparar;
+
+    private final String colecao;
+    private final Codec<T> codec;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<BsonValue, BsonDocument> documentos = new LinkedHashMap<>();  // por _id, na ordem de insercao
+    private final List<IndiceMemoria> indices = new ArrayList<>();
+
+    /**
+     * Cria um repositorio vazio e independente (ex: um por teste). Para
+     * compartilhar os dados entre os servicos use para(Class).
+     *
+     * @param classe Classe dos objetos, ex: Veiculo.class (colecao "veiculo")
+     */
+    public RepositorioMemoria(Class<T> classe) {
+        this.colecao = classe.getSimpleName().toLowerCase();
+        this.codec = Conexao.getCodecs().get(classe);
+        for (GerenciadorIndices.Indice indice : GerenciadorIndices.getIndices()) {
+            if (indice.getColecao().equals(colecao)) {
+                indices.add(new IndiceMemoria(indice));
+            }
+        }
+    }
+
+    /**
+     * Retorna o repositorio em memoria (unico por processo) de uma classe.
+     *
+     * @param classe Classe dos objetos
+     * @return Repositorio compartilhado da colecao
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RepositorioMemoria<T> para(Class<T> classe) {
+        return (RepositorioMemoria<T>) REPOSITORIOS.computeIfAbsent(
+                classe.getSimpleName().toLowerCase(), c -> new RepositorioMemoria<>(classe));
+    }
+
+    /**
+     * Maior codigo gravado em uma colecao em memoria (ver Sequencia).
+     *
+     * @param colecao Nome da colecao
+     * @return Maior codigo ou 0 se a colecao estiver vazia
+     */
+    static long maiorCodigo(String colecao) {
+        RepositorioMemoria<?> repositorio = REPOSITORIOS.get(colecao);
+        if (repositorio == null) {
+            return 0L;
+        }
+        long maior = 0L;
+        repositorio.trava.readLock().lock();
+        try {
+            for (BsonDocument documento : repositorio.documentos.values()) {
+                BsonValue codigo = documento.get("codigo");
+                if (codigo != null && codigo.isNumber()) {
+                    maior = Math.max(maior, codigo.asNumber().longValue());
+                }
+            }
+        } finally {
+            repositorio.trava.readLock().unlock();
+        }
+        return maior;
+    }
+
+    /**
+     * Remove todos os objetos.
+     */
+    public void limpar() {
+        trava.writeLock().lock();
+        try {
+            documentos.clear();
+            for (IndiceMemoria indice : indices) {
+                indice.entradas.clear();
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nao ha conexao a liberar.
+     */
+    @Override
+    public void fecharConexao() {
+    }
+
+    // ------------------------------------------------------------------ escrita
+
+    @Override
+    public void inserir(T objeto) {
+        BsonDocument documento = codificar(objeto, null);
+        trava.writeLock().lock();
+        try {
+            IndiceMemoria violado = conflito(documento, null);
+            if (violado != null) {
+                throw chaveDuplicada(violado, documento);
+            }
+            guardar(documento);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean inserirSeUnico(T objeto, String nomeIndice) {
+        BsonDocument documento = codificar(objeto, null);
+        trava.writeLock().lock();
+        try {
+            IndiceMemoria violado = conflito(documento, null);
+            if (violado != null) {
+                if (violado.nome.equals(nomeIndice)) {
+                    return false;
+                }
+                throw chaveDuplicada(violado, documento);
+            }
+            guardar(documento);
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void alterar(String chave, String valor, T novo) {
+        Object valorConvertido = converterIdentificador(chave, valor);
+        trava.writeLock().lock();
+        try {
+            BsonDocument antigo = primeiro(new Consulta().igual(chave, valorConvertido));
+            if (antigo == null) {
+                System.err.println("AVISO: Nenhum documento encontrado para alterar com " + chave + " = " + valorConvertido);
+                Metricas.registrarAviso(colecao, "alterar");
+                return;
+            }
+            substituir(antigo, novo);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean substituirSe(Consulta consulta, T novo) {
+        trava.writeLock().lock();
+        try {
+            BsonDocument antigo = primeiro(consulta);
+            if (antigo == null) {
+                return false;
+            }
+            substituir(antigo, novo);
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean excluir(String chave, String valor) {
+        Object valorConvertido = converterIdentificador(chave, valor);
+        trava.writeLock().lock();
+        try {
+            BsonDocument documento = primeiro(new Consulta().igual(chave, valorConvertido));
+            if (documento == null) {
+                return false;
+            }
+            descartar(documento);
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insere varios objetos. Cada lote de opcoes.getTamanhoLote() itens e
+     * gravado com a trava de escrita, liberando as leituras entre lotes.
+     */
+    @Override
+    public ResultadoLote inserirLote(List<T> objetos, OpcoesLote opcoes) {
+        return gravarLote(objetos.size(), opcoes, i -> {
+            inserir(objetos.get(i));
+            return Efeito.INSERIDO;
+        });
+    }
+
+    @Override
+    public ResultadoLote alterarLote(String chave, Function<T, ?> valorDaChave, List<T> novos, OpcoesLote opcoes) {
+        return gravarLote(novos.size(), opcoes, i -> {
+            T novo = novos.get(i);
+            BsonDocument antigo = primeiro(new Consulta().igual(chave, valorDaChave.apply(novo)));
+            if (antigo == null) {
+                return Efeito.NENHUM;
+            }
+            return substituir(antigo, novo) ? Efeito.ALTERADO : Efeito.NENHUM;
+        });
+    }
+
+    @Override
+    public ResultadoLote excluirLote(String chave, List<?> valores, OpcoesLote opcoes) {
+        return gravarLote(valores.size(), opcoes, i -> {
+            BsonDocument documento = primeiro(new Consulta().igual(chave, valores.get(i)));
+            if (documento == null) {
+                return Efeito.NENHUM;
+            }
+            descartar(documento);
+            return Efeito.EXCLUIDO;
+        });
+    }
+
+    private enum Efeito {
+        NENHUM, INSERIDO, ALTERADO, EXCLUIDO
+    }
+
+    private ResultadoLote gravarLote(int total, OpcoesLote opcoes, Function<Integer, Efeito> operacao) {
+        ResultadoLote resultado = new ResultadoLote(total);
+        int tamanho = opcoes.getTamanhoLote();
+        for (int inicio = 0; inicio < total; inicio += tamanho) {
+            trava.writeLock().lock();
+            try {
+                for (int i = inicio; i < Math.min(inicio + tamanho, total); i++) {
+                    try {
+                        Efeito efeito = operacao.apply(i);
+                        resultado.somar(efeito == Efeito.INSERIDO ? 1 : 0, efeito == Efeito.ALTERADO ? 1 : 0,
+                                efeito == Efeito.EXCLUIDO ? 1 : 0);
+                    } catch (IllegalStateException e) {
+                        resultado.registrarFalha(i, e.getMessage(), true);
+                        if (opcoes.isOrdenado()) {
+                            resultado.registrarNaoProcessados(total - i - 1);
+                            return resultado;
+                        }
+                    }
+                }
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+        return resultado;
+    }
+
+    // ------------------------------------------------------------------ leitura
+
+    @Override
+    public T buscarPorChave(String chave, Object valor) {
+        return buscarPrimeiro(new Consulta().igual(chave, valor));
+    }
+
+    @Override
+    public List<T> buscar(Consulta consulta) {
+        List<T> retorno = new ArrayList<>();
+        for (BsonDocument documento : encontrar(consulta)) {
+            retorno.add(decodificar(documento));
+        }
+        return retorno;
+    }
+
+    @Override
+    public T buscarPrimeiro(Consulta consulta) {
+        trava.readLock().lock();
+        BsonDocument documento;
+        try {
+            documento = primeiro(consulta);
+        } finally {
+            trava.readLock().unlock();
+        }
+        return documento != null ? decodificar(projetar(documento, consulta)) : null;
+    }
+
+    @Override
+    public long contar(Consulta consulta) {
+        List<Condicao> condicoes = condicoes(consulta);
+        trava.readLock().lock();
+        try {
+            long total = 0;
+            for (BsonDocument documento : candidatos(condicoes)) {
+                if (atende(documento, condicoes)) {
+                    total++;
+                }
+            }
+            return total;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long contar() {
+        trava.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Percorre os resultados de uma consulta. Os documentos sao selecionados
+     * com a trava de leitura e convertidos fora dela, de modo que a acao pode
+     * gravar no proprio repositorio.
+     */
+    @Override
+    public void percorrer(Consulta consulta, Consumer<T> acao) {
+        for (BsonDocument documento : encontrar(consulta)) {
+            acao.accept(decodificar(documento));
+        }
+    }
+
+    @Override
+    public List<T> listarTodos() {
+        return buscar(new Consulta());
+    }
+
+    @Override
+    public List<T> filtrar(String campo, String criterio) {
+        return buscar(new Consulta().igual(campo, criterio));
+    }
+
+    @Override
+    public List<T> buscarPorPeriodo(String campo, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return buscar(new Consulta().entre(campo, dataInicio, dataFim));
+    }
+
+    @Override
+    public List<T> listarOrdenado(String campoOrdenacao, boolean crescente) {
+        return buscar(new Consulta().ordenarPor(campoOrdenacao, crescente));
+    }
+
+    @Override
+    public Pagina<T> listarPagina(String campoOrdenacao, boolean crescente, int tamanho, Pagina<T> anterior) {
+        return listarPagina(new Consulta(), campoOrdenacao, crescente, tamanho, anterior);
+    }
+
+    /**
+     * Lista uma pagina na ordem (campo, _id), como o Dao. Quando um indice
+     * termina no campo de ordenacao (e os campos anteriores sao filtrados por
+     * igualdade) a pagina e lida diretamente do indice, a partir do ultimo
+     * item da pagina anterior.
+     */
+    @Override
+    public Pagina<T> listarPagina(Consulta consulta, String campoOrdenacao, boolean crescente,
+                                  int tamanho, Pagina<T> anterior) {
+        if (anterior != null && !anterior.temProxima()) {
+            return new Pagina<>(new ArrayList<>(), false, anterior.getUltimoValor(), anterior.getUltimoId());
+        }
+        List<Condicao> condicoes = condicoes(consulta);
+        BsonValue valorAnterior = anterior != null ? anterior.getUltimoValor() : null;
+        BsonValue idAnterior = anterior != null ? anterior.getUltimoId() : null;
+
+        List<BsonDocument> selecionados = new ArrayList<>(tamanho + 1);
+        trava.readLock().lock();
+        try {
+            IndiceMemoria indice = indiceOrdenado(condicoes, campoOrdenacao);
+            if (indice != null) {
+                for (BsonDocument documento : indice.percorrer(this, condicoes, valorAnterior, crescente)) {
+                    if (atende(documento, condicoes)
+                            && depois(documento, campoOrdenacao, valorAnterior, idAnterior, crescente)) {
+                        selecionados.add(documento);
+                        if (selecionados.size() > tamanho) {
+                            break;
+                        }
+                    }
+                }
+            } else {
+                for (BsonDocument documento : candidatos(condicoes)) {
+                    if (atende(documento, condicoes)
+                            && depois(documento, campoOrdenacao, valorAnterior, idAnterior, crescente)) {
+                        selecionados.add(documento);
+                    }
+                }
+                Comparator<BsonDocument> ordem = Comparator
+                        .comparing((BsonDocument d) -> Dao.valorDoCampo(d, campoOrdenacao), ORDEM_VALORES)
+                        .thenComparing(d -> d.get("_id"), ORDEM_VALORES);
+                selecionados.sort(crescente ? ordem : ordem.reversed());
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+
+        boolean temProxima = selecionados.size() > tamanho;
+        if (temProxima) {
+            selecionados = selecionados.subList(0, tamanho);
+        }
+        List<T> itens = new ArrayList<>(selecionados.size());
+        for (BsonDocument documento : selecionados) {
+            itens.add(decodificar(projetar(documento, consulta, campoOrdenacao)));
+        }
+        if (selecionados.isEmpty()) {
+            return new Pagina<>(itens, false, null, null);
+        }
+        BsonDocument ultimo = selecionados.get(selecionados.size() - 1);
+        return new Pagina<>(itens, temProxima, Dao.valorDoCampo(ultimo, campoOrdenacao), ultimo.get("_id"));
+    }
+
+    /**
+     * Documentos (ja projetados) de uma consulta, na ordem pedida.
+     */
+    private List<BsonDocument> encontrar(Consulta consulta) {
+        List<Condicao> condicoes = condicoes(consulta);
+        List<BsonDocument> encontrados = new ArrayList<>();
+        trava.readLock().lock();
+        try {
+            for (BsonDocument documento : candidatos(condicoes)) {
+                if (atende(documento, condicoes)) {
+                    encontrados.add(documento);
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        if (!consulta.getOrdens().isEmpty()) {
+            encontrados.sort(ordenacao(consulta.getOrdens()));
+        }
+        if (consulta.getLimite() > 0 && encontrados.size() > consulta.getLimite()) {
+            encontrados = encontrados.subList(0, consulta.getLimite());
+        }
+        List<BsonDocument> projetados = new ArrayList<>(encontrados.size());
+        for (BsonDocument documento : encontrados) {
+            projetados.add(projetar(documento, consulta));
+        }
+        return projetados;
+    }
+
+    /**
+     * Primeiro documento de uma consulta (chamar com a trava adquirida).
+     */
+    private BsonDocument primeiro(Consulta consulta) {
+        List<Condicao> condicoes = condicoes(consulta);
+        if (consulta.getOrdens().isEmpty()) {
+            for (BsonDocument documento : candidatos(condicoes)) {
+                if (atende(documento, condicoes)) {
+                    return documento;
+                }
+            }
+            return null;
+        }
+        BsonDocument melhor = null;
+        Comparator<BsonDocument> ordem = ordenacao(consulta.getOrdens());
+        for (BsonDocument documento : candidatos(condicoes)) {
+            if (atende(documento, condicoes) && (melhor == null || ordem.compare(documento, melhor) < 0)) {
+                melhor = documento;
+            }
+        }
+        return melhor;
+    }
+
+    private static Comparator<BsonDocument> ordenacao(List<Consulta.Ordem> ordens) {
+        Comparator<BsonDocument> comparador = null;
+        for (Consulta.Ordem ordem : ordens) {
+            String campo = ordem.getCampo();
+            Comparator<BsonDocument> proximo = Comparator.comparing(d -> Dao.valorDoCampo(d, campo), ORDEM_VALORES);
+            if (!ordem.isCrescente()) {
+                proximo = proximo.reversed();
+            }
+            comparador = comparador == null ? proximo : comparador.thenComparing(proximo);
+        }
+        return comparador;
+    }
+
+    // ------------------------------------------------------------------ indices
+
+    /**
+     * Escolhe o indice que atende mais campos da consulta (igualdade nos
+     * primeiros campos e, opcionalmente, faixa ou lista de valores no
+     * seguinte) e retorna os documentos das entradas correspondentes. Sem
+     * indice aplicavel retorna todos os documentos.
+     */
+    private Collection<BsonDocument> candidatos(List<Condicao> condicoes) {
+        IndiceMemoria melhor = null;
+        int melhorPontos = 0;
+        for (IndiceMemoria indice : indices) {
+            int pontos = indice.pontuar(condicoes);
+            if (pontos > melhorPontos) {
+                melhor = indice;
+                melhorPontos = pontos;
+            }
+        }
+        if (melhor == null) {
+            return documentos.values();
+        }
+        List<BsonDocument> encontrados = new ArrayList<>();
+        for (BsonValue id : melhor.buscar(condicoes)) {
+            encontrados.add(documentos.get(id));
+        }
+        return encontrados;
+    }
+
+    /**
+     * Indice (nao parcial) cujo ultimo campo e o de ordenacao e cujos campos
+     * anteriores sao todos filtrados por igualdade.
+     */
+    private IndiceMemoria indiceOrdenado(List<Condicao> condicoes, String campoOrdenacao) {
+        IndiceMemoria melhor = null;
+        for (IndiceMemoria indice : indices) {
+            int ultimo = indice.campos.size() - 1;
+            if (indice.filtroParcial != null || !indice.campos.get(ultimo).equals(campoOrdenacao)
+                    || indice.prefixoIgual(condicoes).size() < ultimo) {
+                continue;
+            }
+            if (melhor == null || indice.campos.size() > melhor.campos.size()) {
+                melhor = indice;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Primeiro indice unico violado por um documento (chamar com a trava de escrita).
+     *
+     * @param ignorar _id do documento que esta sendo substituido, ou null
+     */
+    private IndiceMemoria conflito(BsonDocument documento, BsonValue ignorar) {
+        for (IndiceMemoria indice : indices) {
+            if (indice.unico && indice.inclui(documento)) {
+                NavigableSet<BsonValue> ids = indice.entradas.get(indice.chave(documento));
+                if (ids != null) {
+                    for (BsonValue id : ids) {
+                        if (!id.equals(ignorar)) {
+                            return indice;
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private IllegalStateException chaveDuplicada(IndiceMemoria indice, BsonDocument documento) {
+        return new IllegalStateException("Chave duplicada em " + colecao + " (indice " + indice.nome + "): "
+                + indice.campos + " = " + indice.chave(documento));
+    }
+
+    private void guardar(BsonDocument documento) {
+        BsonValue id = documento.get("_id");
+        documentos.put(id, documento);
+        for (IndiceMemoria indice : indices) {
+            indice.adicionar(id, documento);
+        }
+    }
+
+    private void descartar(BsonDocument documento) {
+        BsonValue id = documento.get("_id");
+        documentos.remove(id);
+        for (IndiceMemoria indice : indices) {
+            indice.remover(id, documento);
+        }
+    }
+
+    /**
+     * Substitui um documento mantendo seu _id (como replaceOne).
+     *
+     * @return true se o conteudo mudou
+     */
+    private boolean substituir(BsonDocument antigo, T novo) {
+        BsonValue id = antigo.get("_id");
+        BsonDocument documento = codificar(novo, id);
+        IndiceMemoria violado = conflito(documento, id);
+        if (violado != null) {
+            throw chaveDuplicada(violado, documento);
+        }
+        if (documento.equals(antigo)) {
+            return false;
+        }
+        descartar(antigo);
+        guardar(documento);
+        return true;
+    }
+
+    /**
+     * Indice ascendente sobre um ou mais campos: chave (valores dos campos)
+     * para os _id dos documentos, em ordem.
+     */
+    private static final class IndiceMemoria {
+        private final String nome;
+        private final List<String> campos;
+        private final boolean unico;
+        private final BsonDocument filtroParcial;
+        private final NavigableMap<List<BsonValue>, NavigableSet<BsonValue>> entradas =
+                new TreeMap<>(RepositorioMemoria::compararChaves);
+
+        IndiceMemoria(GerenciadorIndices.Indice indice) {
+            this.campos = indice.getCampos();
+            this.unico = indice.isUnico();
+            this.nome = indice.getNomeNoBanco();
+            Document parcial = indice.getFiltroParcial();
+            this.filtroParcial = parcial != null
+                    ? parcial.toBsonDocument(BsonDocument.class, Conexao.getCodecs())
+                    : null;
+        }
+
+        /**
+         * Indices parciais so contem documentos que atendem ao filtro (apenas
+         * igualdades, como os declarados em GerenciadorIndices).
+         */
+        boolean inclui(BsonDocument documento) {
+            if (filtroParcial == null) {
+                return true;
+            }
+            for (Map.Entry<String, BsonValue> entrada : filtroParcial.entrySet()) {
+                if (!iguais(Dao.valorDoCampo(documento, entrada.getKey()), entrada.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        List<BsonValue> chave(BsonDocument documento) {
+            List<BsonValue> chave = new ArrayList<>(campos.size());
+            for (String campo : campos) {
+                chave.add(Dao.valorDoCampo(documento, campo));
+            }
+            return chave;
+        }
+
+        void adicionar(BsonValue id, BsonDocument documento) {
+            if (inclui(documento)) {
+                entradas.computeIfAbsent(chave(documento), c -> new TreeSet<>(ORDEM_VALORES)).add(id);
+            }
+        }
+
+        void remover(BsonValue id, BsonDocument documento) {
+            if (!inclui(documento)) {
+                return;
+            }
+            List<BsonValue> chave = chave(documento);
+            NavigableSet<BsonValue> ids = entradas.get(chave);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    entradas.remove(chave);
+                }
+            }
+        }
+
+        /**
+         * Valores dos primeiros campos do indice filtrados por igualdade.
+         */
+        List<BsonValue> prefixoIgual(List<Condicao> condicoes) {
+            List<BsonValue> prefixo = new ArrayList<>();
+            for (String campo : campos) {
+                Condicao igual = buscarCondicao(condicoes, campo, true);
+                if (igual == null) {
+                    break;
+                }
+                prefixo.add(igual.valor);
+            }
+            return prefixo;
+        }
+
+        /**
+         * Quanto o indice restringe a consulta: 2 pontos por campo com
+         * igualdade e 1 se o campo seguinte tem faixa ou lista de valores.
+         * Indices parciais nao sao usados em leituras.
+         */
+        int pontuar(List<Condicao> condicoes) {
+            if (filtroParcial != null) {
+                return 0;
+            }
+            int iguais = prefixoIgual(condicoes).size();
+            int pontos = iguais * 2;
+            if (iguais < campos.size() && buscarCondicao(condicoes, campos.get(iguais), false) != null) {
+                pontos++;
+            }
+            return pontos;
+        }
+
+        /**
+         * _id dos documentos nas entradas que atendem ao prefixo e a faixa ou
+         * lista de valores do campo seguinte. Os limites sao aproximados: as
+         * condicoes sao verificadas novamente em cada documento.
+         */
+        Collection<BsonValue> buscar(List<Condicao> condicoes) {
+            List<BsonValue> prefixo = prefixoIgual(condicoes);
+            List<NavigableMap<List<BsonValue>, NavigableSet<BsonValue>>> faixas = new ArrayList<>();
+            if (prefixo.size() < campos.size()) {
+                String campo = campos.get(prefixo.size());
+                Condicao em = null;
+                BsonValue inicio = MINIMO;
+                BsonValue fim = MAXIMO;
+                for (Condicao condicao : condicoes) {
+                    if (!condicao.campo.equals(campo)) {
+                        continue;
+                    }
+                    switch (condicao.operador) {
+                        case MAIOR:
+                        case MAIOR_OU_IGUAL:
+                            inicio = condicao.valor;
+                            break;
+                        case MENOR:
+                        case MENOR_OU_IGUAL:
+                            fim = condicao.valor;
+                            break;
+                        case EM:
+                            em = condicao;
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                if (em != null && inicio == MINIMO && fim == MAXIMO) {
+                    for (BsonValue valor : em.valores) {
+                        faixas.add(faixa(prefixo, valor, valor));
+                    }
+                } else {
+                    faixas.add(faixa(prefixo, inicio, fim));
+                }
+            } else {
+                faixas.add(faixa(prefixo, null, null));
+            }
+
+            Collection<BsonValue> ids = new LinkedHashSet<>();
+            for (NavigableMap<List<BsonValue>, NavigableSet<BsonValue>> trecho : faixas) {
+                for (NavigableSet<BsonValue> entrada : trecho.values()) {
+                    ids.addAll(entrada);
+                }
+            }
+            return ids;
+        }
+
+        /**
+         * Documentos em ordem (campo de ordenacao, _id) a partir de um valor
+         * (inclusive) ou do inicio, para um indice escolhido por indiceOrdenado.
+         */
+        Iterable<BsonDocument> percorrer(RepositorioMemoria<?> repositorio, List<Condicao> condicoes,
+                                         BsonValue inicio, boolean crescente) {
+            List<BsonValue> prefixo = prefixoIgual(condicoes).subList(0, campos.size() - 1);
+            NavigableMap<List<BsonValue>, NavigableSet<BsonValue>> trecho = crescente
+                    ? faixa(prefixo, inicio != null ? inicio : MINIMO, MAXIMO)
+                    : faixa(prefixo, MINIMO, inicio != null ? inicio : MAXIMO);
+            if (!crescente) {
+                trecho = trecho.descendingMap();
+            }
+            NavigableMap<List<BsonValue>, NavigableSet<BsonValue>> ordenado = trecho;
+            return () -> ordenado.values().stream()
+                    .flatMap(ids -> (crescente ? ids : ids.descendingSet()).stream())
+                    .map(repositorio.documentos::get)
+                    .iterator();
+        }
+
+        /**
+         * Entradas [inicio, fim] com o prefixo e o campo seguinte entre dois
+         * valores (null = so o prefixo).
+         */
+        private NavigableMap<List<BsonValue>, NavigableSet<BsonValue>> faixa(List<BsonValue> prefixo,
+                                                                             BsonValue inicio, BsonValue fim) {
+            List<BsonValue> de = new ArrayList<>(prefixo);
+            List<BsonValue> ate = new ArrayList<>(prefixo);
+            if (inicio != null) {
+                de.add(inicio);
+                ate.add(fim);
+            }
+            // Chaves mais longas (campos seguintes do indice) ficam depois de "ate"
+            ate.add(MAXIMO);
+            return entradas.subMap(de, true, ate, true);
+        }
+    }
+
+    // ------------------------------------------------------------------ criterios
+
+    /**
+     * Criterio da consulta com o valor ja convertido para BSON.
+     */
+    private static final class Condicao {
+        private final String campo;
+        private final Consulta.Operador operador;
+        private final BsonValue valor;
+        private final List<BsonValue> valores;  // operador EM
+
+        Condicao(Consulta.Criterio criterio) {
+            this.campo = criterio.getCampo();
+            this.operador = criterio.getOperador();
+            if (operador == Consulta.Operador.EM) {
+                this.valor = null;
+                this.valores = new ArrayList<>();
+                for (Object item : (List<?>) criterio.getValor()) {
+                    valores.add(paraBson(item));
+                }
+            } else {
+                this.valor = paraBson(criterio.getValor());
+                this.valores = null;
+            }
+        }
+
+        boolean atende(BsonDocument documento) {
+            BsonValue atual = Dao.valorDoCampo(documento, campo);
+            switch (operador) {
+                case IGUAL:
+                    return iguais(atual, valor);
+                case EM:
+                    for (BsonValue item : valores) {
+                        if (iguais(atual, item)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    // Como no MongoDB, faixas so comparam valores do mesmo tipo
+                    if (ordemTipo(atual) != ordemTipo(valor) || atual.isNull()) {
+                        return false;
+                    }
+                    int c = comparar(atual, valor);
+                    switch (operador) {
+                        case MAIOR:
+                            return c > 0;
+                        case MAIOR_OU_IGUAL:
+                            return c >= 0;
+                        case MENOR:
+                            return c < 0;
+                        default:
+                            return c <= 0;
+                    }
+            }
+        }
+    }
+
+    private static List<Condicao> condicoes(Consulta consulta) {
+        List<Condicao> condicoes = new ArrayList<>();
+        for (Consulta.Criterio criterio : consulta.getCriterios()) {
+            condicoes.add(new Condicao(criterio));
+        }
+        return condicoes;
+    }
+
+    private static boolean atende(BsonDocument documento, List<Condicao> condicoes) {
+        for (Condicao condicao : condicoes) {
+            if (!condicao.atende(documento)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Condicao sobre um campo: de igualdade ou, se igualdade=false, de faixa ou lista.
+     */
+    private static Condicao buscarCondicao(List<Condicao> condicoes, String campo, boolean igualdade) {
+        for (Condicao condicao : condicoes) {
+            if (condicao.campo.equals(campo) && (condicao.operador == Consulta.Operador.IGUAL) == igualdade) {
+                return condicao;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Documento posterior ao ultimo item da pagina anterior na ordem (campo, _id).
+     */
+    private static boolean depois(BsonDocument documento, String campo, BsonValue valor, BsonValue id,
+                                  boolean crescente) {
+        if (valor == null) {
+            return true;
+        }
+        int c = comparar(Dao.valorDoCampo(documento, campo), valor);
+        if (c == 0) {
+            c = comparar(documento.get("_id"), id);
+        }
+        return crescente ? c > 0 : c < 0;
+    }
+
+    // ------------------------------------------------------------------ conversao
+
+    private BsonDocument codificar(T objeto, BsonValue id) {
+        BsonDocument codificado = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(codificado), objeto,
+                EncoderContext.builder().isEncodingCollectibleDocument(true).build());
+        BsonDocument documento = new BsonDocument("_id", id != null ? id : new BsonObjectId());
+        codificado.remove("_id");
+        documento.putAll(codificado);
+        return documento;
+    }
+
+    private T decodificar(BsonDocument documento) {
+        return codec.decode(new BsonDocumentReader(documento), DecoderContext.builder().build());
+    }
+
+    private static BsonValue paraBson(Object valor) {
+        if (valor == null) {
+            return BsonNull.VALUE;
+        }
+        if (valor instanceof BsonValue) {
+            return (BsonValue) valor;
+        }
+        return new Document("v", valor).toBsonDocument(BsonDocument.class, Conexao.getCodecs()).get("v");
+    }
+
+    /**
+     * Como o Dao: o valor do campo "codigo" e convertido para inteiro.
+     */
+    private static Object converterIdentificador(String chave, String valor) {
+        if (chave.equals("codigo")) {
+            try {
+                return Integer.parseInt(valor);
+            } catch (NumberFormatException e) {
+                return valor;
+            }
+        }
+        return valor;
+    }
+
+    private static BsonDocument projetar(BsonDocument documento, Consulta consulta, String... obrigatorios) {
+        if (!consulta.getCampos().isEmpty()) {
+            BsonDocument projetado = new BsonDocument("_id", documento.get("_id"));
+            for (String campo : consulta.getCampos()) {
+                copiarCampo(documento, projetado, campo);
+            }
+            for (String campo : obrigatorios) {
+                copiarCampo(documento, projetado, campo);
+            }
+            return projetado;
+        }
+        if (!consulta.getCamposExcluidos().isEmpty()) {
+            BsonDocument projetado = documento.clone();
+            for (String campo : consulta.getCamposExcluidos()) {
+                removerCampo(projetado, campo);
+            }
+            return projetado;
+        }
+        return documento;
+    }
+
+    private static void copiarCampo(BsonDocument origem, BsonDocument destino, String caminho) {
+        int ponto = caminho.indexOf('.');
+        if (ponto < 0) {
+            if (origem.containsKey(caminho)) {
+                destino.put(caminho, origem.get(caminho));
+            }
+            return;
+        }
+        String parte = caminho.substring(0, ponto);
+        BsonValue interno = origem.get(parte);
+        if (interno == null || !interno.isDocument()) {
+            return;
+        }
+        BsonValue existente = destino.get(parte);
+        BsonDocument subdocumento = existente != null && existente.isDocument()
+                ? existente.asDocument() : new BsonDocument();
+        copiarCampo(interno.asDocument(), subdocumento, caminho.substring(ponto + 1));
+        destino.put(parte, subdocumento);
+    }
+
+    private static void removerCampo(BsonDocument documento, String caminho) {
+        int ponto = caminho.indexOf('.');
+        if (ponto < 0) {
+            documento.remove(caminho);
+            return;
+        }
+        BsonValue interno = documento.get(caminho.substring(0, ponto));
+        if (interno != null && interno.isDocument()) {
+            removerCampo(interno.asDocument(), caminho.substring(ponto + 1));
+        }
+    }
+
+    // ------------------------------------------------------------------ comparacao
+
+    private static boolean iguais(BsonValue a, BsonValue b) {
+        return ordemTipo(a) == ordemTipo(b) && comparar(a, b) == 0;
+    }
+
+    /**
+     * Ordem dos tipos na comparacao do MongoDB (nulo < numeros < textos < ...).
+     */
+    private static int ordemTipo(BsonValue valor) {
+        switch (valor.getBsonType()) {
+            case MIN_KEY:
+                return 0;
+            case NULL:
+            case UNDEFINED:
+                return 1;
+            case INT32:
+            case INT64:
+            case DOUBLE:
+            case DECIMAL128:
+                return 2;
+            case STRING:
+            case SYMBOL:
+                return 3;
+            case DOCUMENT:
+                return 4;
+            case ARRAY:
+                return 5;
+            case BINARY:
+                return 6;
+            case OBJECT_ID:
+                return 7;
+            case BOOLEAN:
+                return 8;
+            case DATE_TIME:
+                return 9;
+            case TIMESTAMP:
+                return 10;
+            case MAX_KEY:
+                return 12;
+            default:
+                return 11;
+        }
+    }
+
+    static int comparar(BsonValue a, BsonValue b) {
+        int tipoA = ordemTipo(a);
+        int tipoB = ordemTipo(b);
+        if (tipoA != tipoB) {
+            return Integer.compare(tipoA, tipoB);
+        }
+        switch (tipoA) {
+            case 2:
+                if ((a.isInt32() || a.isInt64()) && (b.isInt32() || b.isInt64())) {
+                    return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+                }
+                return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+            case 3:
+                return (a.isString() ? a.asString().getValue() : a.asSymbol().getSymbol())
+                        .compareTo(b.isString() ? b.asString().getValue() : b.asSymbol().getSymbol());
+            case 7:
+                return a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case 8:
+                return Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            case 9:
+                return Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            case 10:
+                return a.asTimestamp().compareTo(b.asTimestamp());
+            case 0:
+            case 1:
+            case 12:
+                return 0;
+            default:
+                // Documentos, listas e outros tipos nao sao usados como chave
+                // pelos servicos: apenas uma ordem estavel
+                return a.toString().compareTo(b.toString());
+        }
+    }
+
+    private static int compararChaves(List<BsonValue> a, List<BsonValue> b) {
+        int tamanho = Math.min(a.size(), b.size());
+        for (int i = 0; i < tamanho; i++) {
+            int c = comparar(a.get(i), b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
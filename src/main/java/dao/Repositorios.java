@@ -0,0 +1,50 @@
+package dao;
+
+import interfaces.IRepositorio;
+
+/**
+ * Fornece aos servicos o repositorio configurado para cada classe do modelo.
+ *
+ * Configuracao (propriedade de sistema -Dfrota.repositorio):
+ * - mongo (padrao): Dao sobre o MongoDB (ver Conexao)
+ * - memoria: RepositorioMemoria, compartilhado por todos os servicos do
+ *   processo; nao usa o banco (testes, medicoes e postos sem conexao). Os
+ *   codigos sequenciais tambem sao gerados em memoria (ver Sequencia).
+ *
+ * Os repositorios retornados sao medidos (ver Metricas), exceto com
+ * -Dfrota.metricas=false.
+ */
+public final class Repositorios {
+
+    private static final String TIPO = System.getProperty("frota.repositorio", "mongo").trim().toLowerCase();
+
+    static {
+        if (!TIPO.equals("mongo") && !TIPO.equals("memoria")) {
+            System.err.println("AVISO: Repositorio desconhecido '" + TIPO + "' (frota.repositorio); usando mongo.");
+        }
+    }
+
+    private Repositorios() {
+    }
+
+    /**
+     * Indica se os dados estao em memoria (sem banco).
+     *
+     * @return true se -Dfrota.repositorio=memoria
+     */
+    public static boolean isMemoria() {
+        return TIPO.equals("memoria");
+    }
+
+    /**
+     * Retorna um repositorio para a colecao de uma classe. Cada chamada deve
+     * ser balanceada por fecharConexao() no repositorio retornado.
+     *
+     * @param classe Classe do modelo, ex: Veiculo.class
+     * @return Repositorio configurado
+     */
+    public static <T> IRepositorio<T> para(Class<T> classe) {
+        IRepositorio<T> repositorio = isMemoria() ? RepositorioMemoria.para(classe) : new Dao<>(classe);
+        return Metricas.isAtivas() ? new RepositorioMedido<>(repositorio, classe) : repositorio;
+    }
+}
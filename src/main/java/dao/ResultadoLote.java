@@ -0,0 +1,135 @@
+package dao;
+
+import com.mongodb.bulk.BulkWriteResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma operacao em lote: quantidades gravadas e os itens que
+ * falharam, identificados pela posicao na lista enviada.
+ */
+public class ResultadoLote {
+
+    /**
+     * Falha de um item do lote.
+     */
+    public static final class Falha {
+        private final int indice;
+        private final String mensagem;
+        private final boolean chaveDuplicada;
+
+        Falha(int indice, String mensagem, boolean chaveDuplicada) {
+            this.indice = indice;
+            this.mensagem = mensagem;
+            this.chaveDuplicada = chaveDuplicada;
+        }
+
+        /**
+         * Posicao do item na lista enviada (a partir de 0).
+         */
+        public int getIndice() {
+            return indice;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+
+        /**
+         * Indica se o item violou um indice unico (ex: placa ja cadastrada).
+         */
+        public boolean isChaveDuplicada() {
+            return chaveDuplicada;
+        }
+
+        @Override
+        public String toString() {
+            return "item " + indice + ": " + mensagem;
+        }
+    }
+
+    private final int total;
+    private int inseridos;
+    private int alterados;
+    private int excluidos;
+    private int naoProcessados;
+    private final List<Falha> falhas = new ArrayList<>();
+
+    ResultadoLote(int total) {
+        this.total = total;
+    }
+
+    void somar(BulkWriteResult resultado) {
+        inseridos += resultado.getInsertedCount();
+        alterados += resultado.getModifiedCount();
+        excluidos += resultado.getDeletedCount();
+    }
+
+    void somar(int inseridos, int alterados, int excluidos) {
+        this.inseridos += inseridos;
+        this.alterados += alterados;
+        this.excluidos += excluidos;
+    }
+
+    void registrarFalha(int indice, String mensagem, boolean chaveDuplicada) {
+        falhas.add(new Falha(indice, mensagem, chaveDuplicada));
+    }
+
+    void registrarNaoProcessados(int quantidade) {
+        naoProcessados += quantidade;
+    }
+
+    /**
+     * Quantidade de itens enviados.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public int getInseridos() {
+        return inseridos;
+    }
+
+    /**
+     * Quantidade de documentos efetivamente modificados (documentos
+     * encontrados mas identicos ao novo valor nao sao contados).
+     */
+    public int getAlterados() {
+        return alterados;
+    }
+
+    public int getExcluidos() {
+        return excluidos;
+    }
+
+    /**
+     * Itens que nao foram enviados porque a operacao ordenada parou em um erro.
+     */
+    public int getNaoProcessados() {
+        return naoProcessados;
+    }
+
+    /**
+     * Falhas por item, em ordem crescente de indice.
+     *
+     * @return Lista imutavel de falhas
+     */
+    public List<Falha> getFalhas() {
+        return Collections.unmodifiableList(falhas);
+    }
+
+    /**
+     * Indica se todos os itens foram gravados sem erro.
+     */
+    public boolean isSucesso() {
+        return falhas.isEmpty() && naoProcessados == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "total=" + total + ", inseridos=" + inseridos + ", alterados=" + alterados
+                + ", excluidos=" + excluidos + ", falhas=" + falhas.size()
+                + ", naoProcessados=" + naoProcessados;
+    }
+}
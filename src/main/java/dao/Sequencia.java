@@ -0,0 +1,111 @@
+package dao;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.Document;
+
+/**
+ * Gerador de codigos sequenciais baseado em uma colecao de contadores.
+ *
+ * Cada colecao tem um documento em "contadores" ({_id: nome, valor: n}) que
+ * e incrementado atomicamente com findOneAndUpdate/$inc. Para evitar uma ida
+ * ao banco por insercao, cada processo reserva um bloco de codigos de uma vez
+ * (padrao 100, ajustavel por -Dfrota.sequencia.bloco). Dois processos nunca
+ * recebem o mesmo codigo; codigos de um bloco nao utilizado sao descartados.
+ *
+ * Com os dados em memoria (ver Repositorios) a sequencia fica no processo e
+ * comeca depois do maior codigo ja guardado na colecao.
+ */
+public class Sequencia {
+
+    private static final String COLECAO = "contadores";
+    private static final int BLOCO = Integer.getInteger("frota.sequencia.bloco", 100);
+    private static final Map<String, Sequencia> SEQUENCIAS = new ConcurrentHashMap<>();
+
+    private final String nome;
+    private final int bloco;
+    private long proximo = 0;   // proximo codigo a entregar
+    private long limite = 0;    // primeiro codigo fora do bloco reservado
+    private boolean inicializada = false;
+
+    private Sequencia(String nome, int bloco) {
+        this.nome = nome;
+        this.bloco = bloco;
+    }
+
+    /**
+     * Retorna a sequencia (unica por processo) da colecao de uma classe.
+     *
+     * @param classe Classe persistida, ex: Motorista.class (colecao "motorista")
+     * @return Sequencia de codigos da colecao
+     */
+    public static Sequencia para(Class<?> classe) {
+        String colecao = classe.getSimpleName().toLowerCase();
+        return SEQUENCIAS.computeIfAbsent(colecao, n -> new Sequencia(n, BLOCO));
+    }
+
+    /**
+     * Retorna o proximo codigo livre, reservando um novo bloco no banco
+     * quando o bloco atual se esgota.
+     *
+     * @return Proximo codigo
+     */
+    public synchronized int proximo() {
+        if (proximo >= limite) {
+            reservarBloco();
+        }
+        return (int) proximo++;
+    }
+
+    private void reservarBloco() {
+        if (Repositorios.isMemoria()) {
+            if (!inicializada) {
+                proximo = RepositorioMemoria.maiorCodigo(nome) + 1;
+                inicializada = true;
+            }
+            limite = proximo + bloco;
+            return;
+        }
+        MongoDatabase database = Conexao.adquirir();
+        try {
+            MongoCollection<Document> contadores = database.getCollection(COLECAO);
+            if (!inicializada) {
+                // Garante que o contador comeca depois do maior codigo ja gravado
+                // (colecoes criadas antes da existencia do contador)
+                contadores.updateOne(Filters.eq("_id", nome),
+                        Updates.max("valor", maiorCodigo(database)),
+                        new UpdateOptions().upsert(true));
+                inicializada = true;
+            }
+            Document contador = contadores.findOneAndUpdate(Filters.eq("_id", nome),
+                    Updates.inc("valor", (long) bloco),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            long fim = ((Number) contador.get("valor")).longValue();
+            proximo = fim - bloco + 1;
+            limite = fim + 1;
+        } finally {
+            Conexao.liberar();
+        }
+    }
+
+    private long maiorCodigo(MongoDatabase database) {
+        Document maior = database.getCollection(nome)
+                .find()
+                .sort(Sorts.descending("codigo"))
+                .projection(Projections.include("codigo"))
+                .first();
+        if (maior == null || !(maior.get("codigo") instanceof Number)) {
+            return 0L;
+        }
+        return ((Number) maior.get("codigo")).longValue();
+    }
+}
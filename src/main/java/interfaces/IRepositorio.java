@@ -1,11 +1,22 @@
 package interfaces;
 
+import dao.Consulta;
+import dao.OpcoesLote;
+import dao.Pagina;
+import dao.ResultadoLote;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Interface que define operacoes basicas de um repositorio generico.
  * Implementa o principio de abstracao e permite polimorfismo.
  * 
+ * Implementacoes: dao.Dao (MongoDB) e dao.RepositorioMemoria (em memoria,
+ * para testes, medicoes e uso sem banco). Os servicos obtem a implementacao
+ * configurada por dao.Repositorios.
+ * 
  * @param <T> Tipo da entidade gerenciada pelo repositorio
  */
 public interface IRepositorio<T> {
@@ -14,9 +25,8 @@ public interface IRepositorio<T> {
      * Insere um novo objeto no repositorio.
      * 
      * @param objeto Objeto a ser inserido
-     * @throws Exception Se houver erro na insercao
      */
-    void inserir(T objeto) throws Exception;
+    void inserir(T objeto);
     
     /**
      * Altera um objeto existente no repositorio.
@@ -24,9 +34,8 @@ public interface IRepositorio<T> {
      * @param chave Nome do campo identificador
      * @param valor Valor do campo identificador
      * @param novo Objeto com os novos valores
-     * @throws Exception Se houver erro na alteracao
      */
-    void alterar(String chave, String valor, T novo) throws Exception;
+    void alterar(String chave, String valor, T novo);
     
     /**
      * Exclui um objeto do repositorio.
@@ -34,9 +43,8 @@ public interface IRepositorio<T> {
      * @param chave Nome do campo identificador
      * @param valor Valor do campo identificador
      * @return true se o objeto foi excluido, false caso contrario
-     * @throws Exception Se houver erro na exclusao
      */
-    boolean excluir(String chave, String valor) throws Exception;
+    boolean excluir(String chave, String valor);
     
     /**
      * Busca um objeto pela chave.
@@ -44,17 +52,15 @@ public interface IRepositorio<T> {
      * @param chave Nome do campo identificador
      * @param valor Valor do campo identificador
      * @return Objeto encontrado ou null
-     * @throws Exception Se houver erro na busca
      */
-    T buscarPorChave(String chave, Object valor) throws Exception;
+    T buscarPorChave(String chave, Object valor);
     
     /**
      * Lista todos os objetos do repositorio.
      * 
      * @return Lista com todos os objetos
-     * @throws Exception Se houver erro na listagem
      */
-    List<T> listarTodos() throws Exception;
+    List<T> listarTodos();
     
     /**
      * Filtra objetos por um criterio especifico.
@@ -62,7 +68,145 @@ public interface IRepositorio<T> {
      * @param campo Nome do campo para filtrar
      * @param criterio Valor do criterio
      * @return Lista de objetos que atendem ao criterio
-     * @throws Exception Se houver erro na filtragem
      */
-    List<T> filtrar(String campo, String criterio) throws Exception;
+    List<T> filtrar(String campo, String criterio);
+    
+    /**
+     * Executa uma consulta (filtro, ordenacao, limite e projecao).
+     * 
+     * @param consulta Consulta, ex: new Consulta().igual("veiculo.placa", "ABC1234")
+     * @return Objetos encontrados, na ordem pedida
+     */
+    List<T> buscar(Consulta consulta);
+    
+    /**
+     * Retorna o primeiro objeto de uma consulta.
+     * 
+     * @param consulta Consulta
+     * @return Primeiro objeto encontrado ou null
+     */
+    T buscarPrimeiro(Consulta consulta);
+    
+    /**
+     * Conta os objetos que atendem a uma consulta (ordenacao e limite sao ignorados).
+     * 
+     * @param consulta Consulta
+     * @return Numero de objetos
+     */
+    long contar(Consulta consulta);
+    
+    /**
+     * Conta todos os objetos do repositorio.
+     * 
+     * @return Numero de objetos
+     */
+    long contar();
+    
+    /**
+     * Percorre os resultados de uma consulta sem montar uma lista com todos.
+     * 
+     * @param consulta Consulta (new Consulta() percorre todos os objetos)
+     * @param acao Acao executada para cada objeto, na ordem da consulta
+     */
+    void percorrer(Consulta consulta, Consumer<T> acao);
+    
+    /**
+     * Busca objetos com um campo de data dentro de um periodo (inclusive).
+     * 
+     * @param campo Nome do campo de data
+     * @param dataInicio Inicio do periodo
+     * @param dataFim Fim do periodo
+     * @return Objetos no periodo
+     */
+    List<T> buscarPorPeriodo(String campo, LocalDateTime dataInicio, LocalDateTime dataFim);
+    
+    /**
+     * Lista todos os objetos ordenados por um campo.
+     * 
+     * @param campoOrdenacao Campo de ordenacao
+     * @param crescente true para ordem crescente
+     * @return Lista ordenada
+     */
+    List<T> listarOrdenado(String campoOrdenacao, boolean crescente);
+    
+    /**
+     * Lista uma pagina de objetos ordenados por um campo, usando paginacao
+     * por chave: a pagina seguinte comeca depois do ultimo item da anterior.
+     * 
+     * @param campoOrdenacao Campo de ordenacao (ex: codigo, dataRetirada)
+     * @param crescente true para ordem crescente
+     * @param tamanho Quantidade maxima de itens na pagina
+     * @param anterior Pagina anterior, ou null para a primeira pagina
+     * @return Pagina com ate "tamanho" itens
+     */
+    Pagina<T> listarPagina(String campoOrdenacao, boolean crescente, int tamanho, Pagina<T> anterior);
+    
+    /**
+     * Lista uma pagina dos objetos que atendem a uma consulta, usando paginacao
+     * por chave. Ordenacao e limite da consulta sao ignorados.
+     * 
+     * @param consulta Filtro adicional (ex: veiculo.placa)
+     * @param campoOrdenacao Campo de ordenacao
+     * @param crescente true para ordem crescente
+     * @param tamanho Quantidade maxima de itens na pagina
+     * @param anterior Pagina anterior, ou null para a primeira pagina
+     * @return Pagina com ate "tamanho" itens
+     */
+    Pagina<T> listarPagina(Consulta consulta, String campoOrdenacao, boolean crescente, 
+                           int tamanho, Pagina<T> anterior);
+    
+    /**
+     * Insere um objeto somente se nao violar um indice unico, verificando e
+     * inserindo em uma unica operacao.
+     * 
+     * @param objeto Objeto a inserir
+     * @param nomeIndice Nome do indice unico (ver GerenciadorIndices)
+     * @return true se inseriu, false se ja existia objeto conflitante nesse indice
+     */
+    boolean inserirSeUnico(T objeto, String nomeIndice);
+    
+    /**
+     * Substitui o primeiro objeto que atende a consulta, somente se ele existir.
+     * 
+     * @param consulta Condicao, ex: codigo = 10 e dataDevolucao nula
+     * @param novo Objeto com os novos valores
+     * @return true se algum objeto atendia a condicao e foi substituido
+     */
+    boolean substituirSe(Consulta consulta, T novo);
+    
+    /**
+     * Insere varios objetos, enviados ao banco em lotes.
+     * 
+     * @param objetos Objetos a serem inseridos
+     * @param opcoes Modo (ordenado ou nao) e tamanho do lote
+     * @return Quantidades gravadas e falhas por item
+     */
+    ResultadoLote inserirLote(List<T> objetos, OpcoesLote opcoes);
+    
+    /**
+     * Substitui varios objetos existentes, enviados ao banco em lotes.
+     * 
+     * @param chave Nome do campo identificador (ex: placa)
+     * @param valorDaChave Obtem o valor do identificador de cada objeto (ex: Veiculo::getPlaca)
+     * @param novos Objetos com os novos valores
+     * @param opcoes Modo (ordenado ou nao) e tamanho do lote
+     * @return Quantidades gravadas e falhas por item
+     */
+    ResultadoLote alterarLote(String chave, Function<T, ?> valorDaChave, List<T> novos, OpcoesLote opcoes);
+    
+    /**
+     * Exclui varios objetos, enviados ao banco em lotes.
+     * 
+     * @param chave Nome do campo identificador
+     * @param valores Valores do identificador dos objetos a excluir
+     * @param opcoes Modo (ordenado ou nao) e tamanho do lote
+     * @return Quantidades excluidas e falhas por item
+     */
+    ResultadoLote excluirLote(String chave, List<?> valores, OpcoesLote opcoes);
+    
+    /**
+     * Libera os recursos do repositorio (ex: referencia a conexao).
+     * Chamadas repetidas nao tem efeito.
+     */
+    void fecharConexao();
 }
@@ -1,5 +1,7 @@
 package modelo;
 
+import org.bson.codecs.pojo.annotations.BsonIgnore;
+
 /**
  * Classe que representa um motorista autorizado a utilizar os veiculos da frota.
  */
@@ -98,6 +100,7 @@ public class Motorista {
      * 
      * @return true se a CNH tem formato valido
      */
+    @BsonIgnore
     public boolean isCnhValida() {
         return cnh != null && cnh.length() == 11 && cnh.matches("\\d{11}");
     }
@@ -107,6 +110,7 @@ public class Motorista {
      * 
      * @return String formatada com codigo e nome
      */
+    @BsonIgnore
     public String getDisplayName() {
         return codigo + " - " + nome + " (" + setor + ")";
     }
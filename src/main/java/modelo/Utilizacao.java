@@ -2,6 +2,7 @@ package modelo;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import org.bson.codecs.pojo.annotations.BsonIgnore;
 
 /**
  * Classe que representa um registro de utilizacao de veiculo.
@@ -183,6 +184,7 @@ public class Utilizacao {
      * 
      * @return Horas de utilizacao, ou -1 se ainda em uso
      */
+    @BsonIgnore
     public long getTempoUtilizacaoHoras() {
         if (dataRetirada == null) return -1;
         
@@ -195,6 +197,7 @@ public class Utilizacao {
      * 
      * @return String formatada para interface
      */
+    @BsonIgnore
     public String getDisplayInfo() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         
@@ -1,5 +1,7 @@
 package modelo;
 
+import org.bson.codecs.pojo.annotations.BsonIgnore;
+
 /**
  * Classe que representa um veiculo da frota.
  */
@@ -73,6 +75,7 @@ public class Veiculo {
      * 
      * @return true se a placa e valida
      */
+    @BsonIgnore
     public boolean isPlacaValida() {
         if (placa == null || placa.isEmpty()) return false;
         
@@ -96,6 +99,7 @@ public class Veiculo {
      * 
      * @return String formatada
      */
+    @BsonIgnore
     public String getDisplayInfo() {
         return placa + " - " + marca + " " + modelo;
     }
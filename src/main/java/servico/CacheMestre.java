@@ -0,0 +1,85 @@
+package servico;
+
+import dao.CacheLeitura;
+import dao.ObservadorMudancas;
+import dao.ObservadorMudancas.Mudanca;
+import java.util.function.Function;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Veiculo;
+
+/**
+ * Caches de leitura dos cadastros mestres (veiculos, motoristas e usuarios),
+ * compartilhados por todas as instancias dos servicos do processo.
+ *
+ * Tamanho e tempo de vida sao ajustaveis por -Dfrota.cache.capacidade
+ * (padrao 10000 por cache) e -Dfrota.cache.ttl.segundos (padrao 300). Os
+ * servicos invalidam as entradas ao atualizar ou remover. Alteracoes feitas
+ * por outros postos chegam pelo ObservadorMudancas quando ele esta ativo;
+ * caso contrario sao vistas apos o tempo de vida.
+ */
+final class CacheMestre {
+
+    private static final int CAPACIDADE = Integer.getInteger("frota.cache.capacidade", 10_000);
+    private static final long TTL_SEGUNDOS = Long.getLong("frota.cache.ttl.segundos", 300);
+
+    static final CacheLeitura<String, Veiculo> VEICULOS_POR_PLACA =
+            new CacheLeitura<>("veiculo.placa", CAPACIDADE, TTL_SEGUNDOS);
+
+    static final CacheLeitura<Integer, Motorista> MOTORISTAS_POR_CODIGO =
+            new CacheLeitura<>("motorista.codigo", CAPACIDADE, TTL_SEGUNDOS);
+
+    static final CacheLeitura<Integer, Usuario> USUARIOS_POR_CODIGO =
+            new CacheLeitura<>("usuario.codigo", CAPACIDADE, TTL_SEGUNDOS);
+
+    static final CacheLeitura<String, Usuario> USUARIOS_POR_LOGIN =
+            new CacheLeitura<>("usuario.login", CAPACIDADE, TTL_SEGUNDOS);
+
+    static {
+        ObservadorMudancas.ouvir("veiculo", m -> aplicar(m, VEICULOS_POR_PLACA, Veiculo.class, Veiculo::getPlaca));
+        ObservadorMudancas.ouvir("motorista", m -> aplicar(m, MOTORISTAS_POR_CODIGO, Motorista.class, Motorista::getCodigo));
+        ObservadorMudancas.ouvir("usuario", CacheMestre::aplicarUsuario);
+    }
+
+    private CacheMestre() {
+    }
+
+    /**
+     * Aplica uma mudanca vinda de outro posto: guarda o novo objeto ou, em
+     * exclusoes, remove a chave. Sem documento o cache inteiro e descartado.
+     */
+    private static <K, V> void aplicar(Mudanca mudanca, CacheLeitura<K, V> cache, Class<V> classe,
+                                       Function<V, K> chave) {
+        V objeto = mudanca.getObjeto(classe);
+        if (objeto == null) {
+            cache.invalidarTudo();
+        } else if (mudanca.getTipo() == ObservadorMudancas.Tipo.EXCLUSAO) {
+            cache.invalidar(chave.apply(objeto));
+        } else {
+            cache.guardar(chave.apply(objeto), objeto);
+        }
+    }
+
+    private static void aplicarUsuario(Mudanca mudanca) {
+        Usuario usuario = mudanca.getObjeto(Usuario.class);
+        if (usuario == null) {
+            USUARIOS_POR_CODIGO.invalidarTudo();
+            USUARIOS_POR_LOGIN.invalidarTudo();
+            return;
+        }
+        // O login pode ter mudado: remove a entrada antiga antes de guardar a nova
+        invalidarUsuario(usuario.getCodigo());
+        if (mudanca.getTipo() != ObservadorMudancas.Tipo.EXCLUSAO) {
+            USUARIOS_POR_CODIGO.guardar(usuario.getCodigo(), usuario);
+            USUARIOS_POR_LOGIN.guardar(usuario.getLogin(), usuario);
+        }
+    }
+
+    /**
+     * Remove um usuario dos dois caches de usuarios.
+     */
+    static void invalidarUsuario(int codigo) {
+        USUARIOS_POR_CODIGO.invalidar(codigo);
+        USUARIOS_POR_LOGIN.invalidarSe(u -> u.getCodigo() == codigo);
+    }
+}
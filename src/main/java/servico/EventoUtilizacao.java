@@ -0,0 +1,54 @@
+package servico;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada retirada ou devolucao registrada
+ * pelo ServicoUtilizacao. A duracao do evento e a duracao da operacao,
+ * incluindo as consultas ao banco (eventos frota.Banco na mesma thread).
+ */
+@Name("frota.Utilizacao")
+@Label("Operacao de utilizacao")
+@Category({"Frota", "Servico"})
+@Description("Retirada ou devolucao de veiculo e, se recusada, o motivo")
+final class EventoUtilizacao extends jdk.jfr.Event {
+
+    @Label("Operacao")
+    String operacao;
+
+    @Label("Placa")
+    String placa;
+
+    @Label("Motorista")
+    int motorista;
+
+    @Label("Operador")
+    String operador;
+
+    @Label("Concluida")
+    boolean concluida;
+
+    @Label("Recusa")
+    @Description("Mensagem da UtilizacaoException, se a operacao foi recusada")
+    String recusa;
+
+    /**
+     * Encerra o evento e o grava, se a gravacao estiver ativa para ele.
+     */
+    void registrar(String operacao, String placa, int motorista, String operador,
+                   boolean concluida, String recusa) {
+        end();
+        if (shouldCommit()) {
+            this.operacao = operacao;
+            this.placa = placa;
+            this.motorista = motorista;
+            this.operador = operador;
+            this.concluida = concluida;
+            this.recusa = recusa;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package servico;
+
+import dao.CacheLeitura;
+import dao.Consulta;
+import dao.Repositorios;
+import interfaces.IRepositorio;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+
+/**
+ * Converte utilizacoes entre o formato gravado no banco e o formato completo.
+ *
+ * No banco cada utilizacao guarda apenas as chaves das entidades relacionadas
+ * (veiculo.placa, motorista.codigo, operadorRetirada.codigo e
+ * operadorDevolucao.codigo); nome, CNH, setor, marca, modelo, login e senha
+ * nao sao repetidos em cada documento. Ao ler, as referencias sao
+ * substituidas pelos objetos completos ("hidratacao"), usando um cache de
+ * identidade por operacao para que cada veiculo, motorista ou operador seja
+ * buscado uma unica vez. Veiculos e motoristas tambem sao procurados nos
+ * caches compartilhados (CacheMestre) antes de consultar o banco. A senha
+ * dos operadores nao e carregada.
+ */
+class HidratadorUtilizacao {
+
+    /** Entradas mantidas no cache de identidade ao percorrer um cursor. */
+    private static final int LIMITE_CACHE = 256;
+
+    /** Campos de usuario que nao sao carregados na hidratacao. */
+    private static final String[] CAMPOS_OCULTOS_USUARIO = {"senha"};
+
+    private final IRepositorio<Veiculo> daoVeiculo;
+    private final IRepositorio<Motorista> daoMotorista;
+    private final IRepositorio<Usuario> daoUsuario;
+
+    HidratadorUtilizacao(IRepositorio<Veiculo> daoVeiculo, IRepositorio<Motorista> daoMotorista, IRepositorio<Usuario> daoUsuario) {
+        this.daoVeiculo = daoVeiculo;
+        this.daoMotorista = daoMotorista;
+        this.daoUsuario = daoUsuario;
+    }
+
+    /**
+     * Retorna uma copia da utilizacao contendo apenas as referencias, no
+     * formato em que deve ser gravada.
+     *
+     * @param u Utilizacao completa
+     * @return Copia enxuta para gravacao
+     */
+    static Utilizacao referencias(Utilizacao u) {
+        return new Utilizacao(u.getCodigo(),
+                u.getVeiculo() != null ? new Veiculo(u.getVeiculo().getPlaca(), null, null) : null,
+                u.getMotorista() != null ? new Motorista(u.getMotorista().getCodigo(), null, null, null) : null,
+                u.getDataRetirada(), u.getDataDevolucao(),
+                referenciaUsuario(u.getOperadorRetirada()),
+                referenciaUsuario(u.getOperadorDevolucao()));
+    }
+
+    private static Usuario referenciaUsuario(Usuario usuario) {
+        return usuario != null ? new Usuario(usuario.getCodigo(), null, null, null) : null;
+    }
+
+    /**
+     * Hidrata uma utilizacao.
+     *
+     * @param u Utilizacao lida do banco (pode ser null)
+     * @return A mesma utilizacao, com as referencias substituidas
+     */
+    Utilizacao hidratar(Utilizacao u) {
+        if (u != null) {
+            new Sessao(LIMITE_CACHE).hidratar(u);
+        }
+        return u;
+    }
+
+    /**
+     * Hidrata um conjunto de utilizacoes com uma consulta por tipo de entidade
+     * (placa IN [...], codigo IN [...]).
+     *
+     * @param utilizacoes Utilizacoes lidas do banco
+     * @param <C> Tipo da colecao
+     * @return A mesma colecao, com as utilizacoes hidratadas
+     */
+    <C extends Collection<Utilizacao>> C hidratar(C utilizacoes) {
+        if (utilizacoes.isEmpty()) {
+            return utilizacoes;
+        }
+        Set<String> placas = new HashSet<>();
+        Set<Integer> motoristas = new HashSet<>();
+        Set<Integer> operadores = new HashSet<>();
+        for (Utilizacao u : utilizacoes) {
+            if (u.getVeiculo() != null) placas.add(u.getVeiculo().getPlaca());
+            if (u.getMotorista() != null) motoristas.add(u.getMotorista().getCodigo());
+            if (u.getOperadorRetirada() != null) operadores.add(u.getOperadorRetirada().getCodigo());
+            if (u.getOperadorDevolucao() != null) operadores.add(u.getOperadorDevolucao().getCodigo());
+        }
+
+        Sessao sessao = new Sessao(0);
+        carregar(sessao.veiculos, daoVeiculo, "placa", placas, Veiculo::getPlaca, 
+                CacheMestre.VEICULOS_POR_PLACA);
+        carregar(sessao.motoristas, daoMotorista, "codigo", motoristas, Motorista::getCodigo, 
+                CacheMestre.MOTORISTAS_POR_CODIGO);
+        carregar(sessao.usuarios, daoUsuario, "codigo", operadores, Usuario::getCodigo, null, 
+                CAMPOS_OCULTOS_USUARIO);
+        for (Utilizacao u : utilizacoes) {
+            sessao.hidratar(u);
+        }
+        return utilizacoes;
+    }
+
+    /**
+     * Envolve uma acao para que cada utilizacao seja hidratada antes de ser
+     * entregue. Usa um cache de identidade limitado, adequado para percorrer
+     * cursores com qualquer quantidade de registros.
+     *
+     * @param acao Acao que recebe utilizacoes hidratadas
+     * @return Acao que recebe utilizacoes lidas do banco
+     */
+    Consumer<Utilizacao> hidratando(Consumer<Utilizacao> acao) {
+        Sessao sessao = new Sessao(LIMITE_CACHE);
+        return u -> {
+            sessao.hidratar(u);
+            acao.accept(u);
+        };
+    }
+
+    /**
+     * Carrega as entidades das chaves informadas: primeiro do cache
+     * compartilhado (se houver), depois com uma consulta IN pelas restantes.
+     */
+    private static <K, T> void carregar(Map<K, T> destino, IRepositorio<T> dao, String campo, Set<K> chaves,
+                                        Function<T, K> chave, CacheLeitura<K, T> compartilhado,
+                                        String... camposOcultos) {
+        Set<K> faltantes = new HashSet<>();
+        for (K k : chaves) {
+            T entidade = compartilhado != null ? compartilhado.buscar(k) : null;
+            if (entidade != null) {
+                destino.put(k, entidade);
+            } else {
+                faltantes.add(k);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            for (T entidade : dao.buscar(new Consulta().em(campo, faltantes).excluirCampos(camposOcultos))) {
+                destino.put(chave.apply(entidade), entidade);
+                if (compartilhado != null) {
+                    compartilhado.guardar(chave.apply(entidade), entidade);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache de identidade de uma operacao de leitura.
+     */
+    private class Sessao {
+        private final Map<String, Veiculo> veiculos;
+        private final Map<Integer, Motorista> motoristas;
+        private final Map<Integer, Usuario> usuarios;
+
+        Sessao(int limite) {
+            veiculos = criarMapa(limite);
+            motoristas = criarMapa(limite);
+            usuarios = criarMapa(limite);
+        }
+
+        void hidratar(Utilizacao u) {
+            if (u.getVeiculo() != null) {
+                Veiculo v = buscar(veiculos, u.getVeiculo().getPlaca(), daoVeiculo, "placa",
+                        CacheMestre.VEICULOS_POR_PLACA);
+                if (v != null) u.setVeiculo(v);
+            }
+            if (u.getMotorista() != null) {
+                Motorista m = buscar(motoristas, u.getMotorista().getCodigo(), daoMotorista, "codigo",
+                        CacheMestre.MOTORISTAS_POR_CODIGO);
+                if (m != null) u.setMotorista(m);
+            }
+            if (u.getOperadorRetirada() != null) {
+                Usuario o = buscar(usuarios, u.getOperadorRetirada().getCodigo(), daoUsuario, "codigo",
+                        null, CAMPOS_OCULTOS_USUARIO);
+                if (o != null) u.setOperadorRetirada(o);
+            }
+            if (u.getOperadorDevolucao() != null) {
+                Usuario o = buscar(usuarios, u.getOperadorDevolucao().getCodigo(), daoUsuario, "codigo",
+                        null, CAMPOS_OCULTOS_USUARIO);
+                if (o != null) u.setOperadorDevolucao(o);
+            }
+        }
+
+        private <K, T> T buscar(Map<K, T> cache, K chave, IRepositorio<T> dao, String campo,
+                                CacheLeitura<K, T> compartilhado, String... camposOcultos) {
+            if (cache.containsKey(chave)) {
+                return cache.get(chave);
+            }
+            // Entidades excluidas ficam como null no cache e a referencia e mantida
+            Function<K, T> carregar = k -> dao.buscarPrimeiro(
+                    new Consulta().igual(campo, k).excluirCampos(camposOcultos));
+            T entidade = compartilhado != null ? compartilhado.obter(chave, carregar) : carregar.apply(chave);
+            cache.put(chave, entidade);
+            return entidade;
+        }
+    }
+
+    /**
+     * Mapa LRU com limite de entradas (0 = sem limite).
+     */
+    private static <K, V> Map<K, V> criarMapa(int limite) {
+        if (limite <= 0) {
+            return new HashMap<>();
+        }
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> maisAntiga) {
+                return size() > limite;
+            }
+        };
+    }
+}
@@ -0,0 +1,573 @@
+package servico;
+
+import dao.Conexao;
+import dao.GerenciadorIndices;
+import dao.Consulta;
+import dao.OpcoesLote;
+import dao.Repositorios;
+import dao.ResultadoLote;
+import dao.Sequencia;
+import interfaces.IRepositorio;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import org.bson.Document;
+
+/**
+ * Importa veiculos, motoristas e historico de utilizacoes a partir de
+ * arquivos CSV ou JSON Lines (um objeto JSON por linha).
+ *
+ * O arquivo e lido em blocos (padrao 2000 linhas, ajustavel por
+ * -Dfrota.importacao.bloco), sem carregar tudo em memoria. Para cada bloco:
+ * - a conversao e as validacoes dos servicos (ServicoVeiculo.validar,
+ *   ServicoMotorista.validar) sao executadas em paralelo;
+ * - registros repetidos no arquivo ou ja cadastrados sao descartados com
+ *   uma unica consulta por bloco (placa IN [...], cnh IN [...]);
+ * - os registros restantes sao gravados com inserirLote nao ordenado.
+ *
+ * Linhas rejeitadas sao informadas no Resultado com o numero da linha e o
+ * motivo. No CSV a primeira linha deve conter os nomes das colunas
+ * (separadas por ";" ou ","); cada registro ocupa uma linha.
+ *
+ * Colunas:
+ * - veiculos: placa, marca, modelo
+ * - motoristas: nome, cnh, setor (o codigo e sempre gerado)
+ * - utilizacoes: placa, motorista, operadorRetirada, operadorDevolucao,
+ *   dataRetirada, dataDevolucao (codigos de motorista e operadores; datas
+ *   ISO ou dd/MM/yyyy HH:mm). Somente utilizacoes encerradas sao aceitas:
+ *   retiradas em aberto devem passar por ServicoUtilizacao.registrarRetirada.
+ */
+public class ImportadorFrota {
+
+    private static final int TAMANHO_BLOCO = Integer.getInteger("frota.importacao.bloco", 2000);
+
+    /** Quantidade maxima de rejeicoes guardadas com detalhe no resultado. */
+    private static final int LIMITE_REJEICOES = 1000;
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * Uma linha rejeitada.
+     */
+    public static final class Rejeicao {
+        private final long linha;
+        private final String motivo;
+
+        Rejeicao(long linha, String motivo) {
+            this.linha = linha;
+            this.motivo = motivo;
+        }
+
+        public long getLinha() {
+            return linha;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "linha " + linha + ": " + motivo;
+        }
+    }
+
+    /**
+     * Resultado de uma importacao.
+     */
+    public static final class Resultado {
+        private final Path arquivo;
+        private final long inicio = System.nanoTime();
+        private long duracaoNanos;
+        private long lidos;
+        private long importados;
+        private long rejeitados;
+        private final List<Rejeicao> rejeicoes = new ArrayList<>();
+
+        Resultado(Path arquivo) {
+            this.arquivo = arquivo;
+        }
+
+        void rejeitar(long linha, String motivo) {
+            rejeitados++;
+            if (rejeicoes.size() < LIMITE_REJEICOES) {
+                rejeicoes.add(new Rejeicao(linha, motivo));
+            }
+        }
+
+        void finalizar() {
+            duracaoNanos = System.nanoTime() - inicio;
+            rejeicoes.sort((a, b) -> Long.compare(a.linha, b.linha));
+        }
+
+        public long getLidos() {
+            return lidos;
+        }
+
+        public long getImportados() {
+            return importados;
+        }
+
+        public long getRejeitados() {
+            return rejeitados;
+        }
+
+        /**
+         * Rejeicoes em ordem de linha (no maximo as primeiras 1000).
+         */
+        public List<Rejeicao> getRejeicoes() {
+            return Collections.unmodifiableList(rejeicoes);
+        }
+
+        public long getDuracaoMillis() {
+            return duracaoNanos / 1_000_000;
+        }
+
+        /**
+         * Linhas processadas por segundo.
+         */
+        public double getTaxa() {
+            return duracaoNanos > 0 ? lidos * 1_000_000_000.0 / duracaoNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d lidos, %d importados, %d rejeitados em %d ms (%.0f linhas/s)",
+                    arquivo.getFileName(), lidos, importados, rejeitados, getDuracaoMillis(), getTaxa());
+        }
+    }
+
+    /**
+     * Uma linha do arquivo durante o processamento.
+     */
+    private static final class Item<T> {
+        final long linha;
+        final String texto;
+        T objeto;
+        String erro;
+
+        Item(long linha, String texto) {
+            this.linha = linha;
+            this.texto = texto;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversor<T> {
+        T converter(Map<String, String> campos) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Gravador<T> {
+        void gravar(List<Item<T>> itens, Resultado resultado);
+    }
+
+    private final IRepositorio<Veiculo> daoVeiculo;
+    private final IRepositorio<Motorista> daoMotorista;
+    private final IRepositorio<Usuario> daoUsuario;
+    private final IRepositorio<Utilizacao> daoUtilizacao;
+
+    public ImportadorFrota() {
+        this.daoVeiculo = Repositorios.para(Veiculo.class);
+        this.daoMotorista = Repositorios.para(Motorista.class);
+        this.daoUsuario = Repositorios.para(Usuario.class);
+        this.daoUtilizacao = Repositorios.para(Utilizacao.class);
+    }
+
+    /**
+     * Importa veiculos. Placas repetidas no arquivo ou ja cadastradas sao rejeitadas.
+     *
+     * @param arquivo Arquivo .csv ou .jsonl
+     * @return Resultado da importacao
+     * @throws IOException Se o arquivo nao puder ser lido
+     */
+    public Resultado importarVeiculos(Path arquivo) throws IOException {
+        Set<String> placasDoArquivo = new HashSet<>();
+        return importar(arquivo, campos -> {
+            Veiculo veiculo = new Veiculo(campos.get("placa"), campos.get("marca"), campos.get("modelo"));
+            ServicoVeiculo.validar(veiculo);
+            return veiculo;
+        }, (itens, resultado) -> {
+            Map<String, Item<Veiculo>> porPlaca = unicos(itens, v -> v.getPlaca(), placasDoArquivo,
+                    "Placa repetida no arquivo", resultado);
+            for (Veiculo existente : daoVeiculo.buscar(new Consulta()
+                    .em("placa", porPlaca.keySet()).campos("placa"))) {
+                Item<Veiculo> item = porPlaca.remove(existente.getPlaca());
+                resultado.rejeitar(item.linha, "Ja existe um veiculo cadastrado com a placa: " + existente.getPlaca());
+            }
+            inserir(daoVeiculo, new ArrayList<>(porPlaca.values()), resultado);
+        });
+    }
+
+    /**
+     * Importa motoristas. CNHs repetidas no arquivo ou ja cadastradas sao
+     * rejeitadas; o codigo de cada motorista e gerado pela sequencia.
+     *
+     * @param arquivo Arquivo .csv ou .jsonl
+     * @return Resultado da importacao
+     * @throws IOException Se o arquivo nao puder ser lido
+     */
+    public Resultado importarMotoristas(Path arquivo) throws IOException {
+        Set<String> cnhsDoArquivo = new HashSet<>();
+        Sequencia sequencia = Sequencia.para(Motorista.class);
+        return importar(arquivo, campos -> {
+            Motorista motorista = new Motorista(0, campos.get("nome"), campos.get("cnh"), campos.get("setor"));
+            ServicoMotorista.validar(motorista);
+            return motorista;
+        }, (itens, resultado) -> {
+            Map<String, Item<Motorista>> porCnh = unicos(itens, m -> m.getCnh(), cnhsDoArquivo,
+                    "CNH repetida no arquivo", resultado);
+            for (Motorista existente : daoMotorista.buscar(new Consulta()
+                    .em("cnh", porCnh.keySet()).campos("cnh"))) {
+                Item<Motorista> item = porCnh.remove(existente.getCnh());
+                resultado.rejeitar(item.linha, "Ja existe um motorista cadastrado com a CNH: " + existente.getCnh());
+            }
+            for (Item<Motorista> item : porCnh.values()) {
+                item.objeto.setCodigo(sequencia.proximo());
+            }
+            inserir(daoMotorista, new ArrayList<>(porCnh.values()), resultado);
+        });
+    }
+
+    /**
+     * Importa historico de utilizacoes encerradas. Veiculo, motorista e
+     * operadores precisam estar cadastrados; sao verificados com uma
+     * consulta por tipo em cada bloco. As utilizacoes sao gravadas no
+     * formato de referencias (ver HidratadorUtilizacao).
+     *
+     * @param arquivo Arquivo .csv ou .jsonl
+     * @return Resultado da importacao
+     * @throws IOException Se o arquivo nao puder ser lido
+     */
+    public Resultado importarUtilizacoes(Path arquivo) throws IOException {
+        Sequencia sequencia = Sequencia.para(Utilizacao.class);
+        return importar(arquivo, this::converterUtilizacao, (itens, resultado) -> {
+            Set<String> placas = new HashSet<>();
+            Set<Integer> motoristas = new HashSet<>();
+            Set<Integer> operadores = new HashSet<>();
+            for (Item<Utilizacao> item : itens) {
+                placas.add(item.objeto.getVeiculo().getPlaca());
+                motoristas.add(item.objeto.getMotorista().getCodigo());
+                operadores.add(item.objeto.getOperadorRetirada().getCodigo());
+                operadores.add(item.objeto.getOperadorDevolucao().getCodigo());
+            }
+            Set<String> placasCadastradas = new HashSet<>();
+            daoVeiculo.buscar(new Consulta().em("placa", placas).campos("placa"))
+                    .forEach(v -> placasCadastradas.add(v.getPlaca()));
+            Set<Integer> motoristasCadastrados = new HashSet<>();
+            daoMotorista.buscar(new Consulta().em("codigo", motoristas).campos("codigo"))
+                    .forEach(m -> motoristasCadastrados.add(m.getCodigo()));
+            Set<Integer> operadoresCadastrados = new HashSet<>();
+            daoUsuario.buscar(new Consulta().em("codigo", operadores).campos("codigo"))
+                    .forEach(u -> operadoresCadastrados.add(u.getCodigo()));
+
+            List<Item<Utilizacao>> validos = new ArrayList<>();
+            for (Item<Utilizacao> item : itens) {
+                Utilizacao u = item.objeto;
+                if (!placasCadastradas.contains(u.getVeiculo().getPlaca())) {
+                    resultado.rejeitar(item.linha, "Veiculo nao encontrado: " + u.getVeiculo().getPlaca());
+                } else if (!motoristasCadastrados.contains(u.getMotorista().getCodigo())) {
+                    resultado.rejeitar(item.linha, "Motorista nao encontrado: " + u.getMotorista().getCodigo());
+                } else if (!operadoresCadastrados.contains(u.getOperadorRetirada().getCodigo())) {
+                    resultado.rejeitar(item.linha, "Operador nao encontrado: " + u.getOperadorRetirada().getCodigo());
+                } else if (!operadoresCadastrados.contains(u.getOperadorDevolucao().getCodigo())) {
+                    resultado.rejeitar(item.linha, "Operador nao encontrado: " + u.getOperadorDevolucao().getCodigo());
+                } else {
+                    u.setCodigo(sequencia.proximo());
+                    validos.add(item);
+                }
+            }
+            inserir(daoUtilizacao, validos, resultado);
+        });
+    }
+
+    private Utilizacao converterUtilizacao(Map<String, String> campos) {
+        String placa = obrigatorio(campos, "placa").trim().toUpperCase();
+        int motorista = inteiro(campos, "motorista");
+        int operadorRetirada = inteiro(campos, "operadorRetirada");
+        String devolucao = campos.get("operadorDevolucao");
+        int operadorDevolucao = devolucao == null || devolucao.trim().isEmpty()
+                ? operadorRetirada : inteiro(campos, "operadorDevolucao");
+        LocalDateTime dataRetirada = data(campos, "dataRetirada");
+        LocalDateTime dataDevolucao = data(campos, "dataDevolucao");
+        if (dataDevolucao.isBefore(dataRetirada)) {
+            throw new IllegalArgumentException("Data de devolucao anterior a retirada");
+        }
+        // Ja no formato gravado: apenas as chaves das entidades relacionadas
+        return new Utilizacao(0, new Veiculo(placa, null, null),
+                new Motorista(motorista, null, null, null), dataRetirada, dataDevolucao,
+                new Usuario(operadorRetirada, null, null, null),
+                new Usuario(operadorDevolucao, null, null, null));
+    }
+
+    /**
+     * Fecha as conexoes usadas pelo importador.
+     */
+    public void fecharConexao() {
+        daoVeiculo.fecharConexao();
+        daoMotorista.fecharConexao();
+        daoUsuario.fecharConexao();
+        daoUtilizacao.fecharConexao();
+    }
+
+    // ---------------------------------------------------------------------
+    // Processamento em blocos
+    // ---------------------------------------------------------------------
+
+    private <T> Resultado importar(Path arquivo, Conversor<T> conversor, Gravador<T> gravador) throws IOException {
+        Resultado resultado = new Resultado(arquivo);
+        boolean csv = arquivo.getFileName().toString().toLowerCase().endsWith(".csv");
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String[] cabecalho = null;
+            char separador = ',';
+            long numeroLinha = 0;
+            List<Item<T>> bloco = new ArrayList<>(TAMANHO_BLOCO);
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (linha.trim().isEmpty()) {
+                    continue;
+                }
+                if (csv && cabecalho == null) {
+                    separador = linha.indexOf(';') >= 0 ? ';' : ',';
+                    cabecalho = dividirCsv(linha, separador).toArray(new String[0]);
+                    continue;
+                }
+                bloco.add(new Item<>(numeroLinha, linha));
+                if (bloco.size() == TAMANHO_BLOCO) {
+                    processar(bloco, csv, cabecalho, separador, conversor, gravador, resultado);
+                    bloco = new ArrayList<>(TAMANHO_BLOCO);
+                }
+            }
+            if (!bloco.isEmpty()) {
+                processar(bloco, csv, cabecalho, separador, conversor, gravador, resultado);
+            }
+        }
+        resultado.finalizar();
+        return resultado;
+    }
+
+    private static <T> void processar(List<Item<T>> bloco, boolean csv, String[] cabecalho, char separador,
+                                      Conversor<T> conversor, Gravador<T> gravador, Resultado resultado) {
+        // Leitura dos campos, conversao e validacao em paralelo (nao acessam o banco)
+        bloco.parallelStream().forEach(item -> {
+            try {
+                Map<String, String> campos = csv
+                        ? camposCsv(cabecalho, dividirCsv(item.texto, separador))
+                        : camposJson(item.texto);
+                item.objeto = conversor.converter(campos);
+            } catch (Exception e) {
+                item.erro = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+        });
+
+        resultado.lidos += bloco.size();
+        List<Item<T>> validos = new ArrayList<>(bloco.size());
+        for (Item<T> item : bloco) {
+            if (item.erro != null) {
+                resultado.rejeitar(item.linha, item.erro);
+            } else {
+                validos.add(item);
+            }
+        }
+        if (!validos.isEmpty()) {
+            gravador.gravar(validos, resultado);
+        }
+    }
+
+    /**
+     * Indexa os itens pela chave, rejeitando chaves ja vistas no arquivo.
+     */
+    private static <T> Map<String, Item<T>> unicos(List<Item<T>> itens, Function<T, String> chave,
+                                                   Set<String> vistas, String motivo, Resultado resultado) {
+        Map<String, Item<T>> porChave = new LinkedHashMap<>();
+        for (Item<T> item : itens) {
+            String valor = chave.apply(item.objeto);
+            if (vistas.add(valor)) {
+                porChave.put(valor, item);
+            } else {
+                resultado.rejeitar(item.linha, motivo + ": " + valor);
+            }
+        }
+        return porChave;
+    }
+
+    private static <T> void inserir(IRepositorio<T> dao, List<Item<T>> itens, Resultado resultado) {
+        if (itens.isEmpty()) {
+            return;
+        }
+        List<T> objetos = new ArrayList<>(itens.size());
+        for (Item<T> item : itens) {
+            objetos.add(item.objeto);
+        }
+        ResultadoLote lote = dao.inserirLote(objetos, new OpcoesLote().ordenado(false));
+        for (ResultadoLote.Falha falha : lote.getFalhas()) {
+            resultado.rejeitar(itens.get(falha.getIndice()).linha,
+                    (falha.isChaveDuplicada() ? "Registro duplicado: " : "Erro ao gravar: ") + falha.getMensagem());
+        }
+        resultado.importados += lote.getInseridos();
+    }
+
+    // ---------------------------------------------------------------------
+    // Leitura de CSV e JSON
+    // ---------------------------------------------------------------------
+
+    /**
+     * Divide uma linha CSV. Campos podem estar entre aspas; aspas dentro de
+     * um campo sao escritas em dobro ("").
+     */
+    static List<String> dividirCsv(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString().trim());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString().trim());
+        return campos;
+    }
+
+    private static Map<String, String> camposCsv(String[] cabecalho, List<String> valores) {
+        if (valores.size() > cabecalho.length) {
+            throw new IllegalArgumentException("Linha com " + valores.size()
+                    + " colunas; o cabecalho tem " + cabecalho.length);
+        }
+        Map<String, String> campos = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < valores.size(); i++) {
+            campos.put(cabecalho[i], valores.get(i));
+        }
+        return campos;
+    }
+
+    private static Map<String, String> camposJson(String linha) {
+        Document documento;
+        try {
+            documento = Document.parse(linha);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("JSON invalido: " + e.getMessage());
+        }
+        Map<String, String> campos = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, Object> campo : documento.entrySet()) {
+            Object valor = campo.getValue();
+            if (valor instanceof Date) {
+                valor = LocalDateTime.ofInstant(((Date) valor).toInstant(), ZoneId.systemDefault());
+            }
+            campos.put(campo.getKey(), valor != null ? valor.toString() : null);
+        }
+        return campos;
+    }
+
+    private static String obrigatorio(Map<String, String> campos, String nome) {
+        String valor = campos.get(nome);
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("Campo obrigatorio: " + nome);
+        }
+        return valor;
+    }
+
+    private static int inteiro(Map<String, String> campos, String nome) {
+        String valor = obrigatorio(campos, nome).trim();
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Campo " + nome + " deve ser um codigo numerico: " + valor);
+        }
+    }
+
+    private static LocalDateTime data(Map<String, String> campos, String nome) {
+        String valor = obrigatorio(campos, nome).trim();
+        try {
+            return LocalDateTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(valor, FORMATO_DATA);
+            } catch (DateTimeParseException e2) {
+                throw new IllegalArgumentException("Data invalida em " + nome + ": " + valor);
+            }
+        }
+    }
+
+    /**
+     * Importa um arquivo pela linha de comando.
+     *
+     * Uso: ImportadorFrota veiculos|motoristas|utilizacoes arquivo.csv|arquivo.jsonl
+     *
+     * @param args tipo e caminho do arquivo
+     * @throws IOException Se o arquivo nao puder ser lido
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: ImportadorFrota veiculos|motoristas|utilizacoes <arquivo.csv|arquivo.jsonl>");
+            System.exit(1);
+        }
+        GerenciadorIndices.garantirIndices();
+        ImportadorFrota importador = new ImportadorFrota();
+        try {
+            Path arquivo = Paths.get(args[1]);
+            Resultado resultado;
+            switch (args[0]) {
+                case "veiculos":
+                    resultado = importador.importarVeiculos(arquivo);
+                    break;
+                case "motoristas":
+                    resultado = importador.importarMotoristas(arquivo);
+                    break;
+                case "utilizacoes":
+                    resultado = importador.importarUtilizacoes(arquivo);
+                    break;
+                default:
+                    System.err.println("Tipo desconhecido: " + args[0]);
+                    return;
+            }
+            System.out.println(resultado);
+            for (Rejeicao rejeicao : resultado.getRejeicoes()) {
+                System.out.println("   " + rejeicao);
+            }
+            if (resultado.getRejeitados() > resultado.getRejeicoes().size()) {
+                System.out.println("   ... e mais " + (resultado.getRejeitados() - resultado.getRejeicoes().size())
+                        + " rejeicao(oes)");
+            }
+        } finally {
+            importador.fecharConexao();
+            Conexao.encerrar();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package servico;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+import modelo.Utilizacao;
+
+/**
+ * Gera relatorios de utilizacoes escrevendo diretamente em um Writer.
+ *
+ * As utilizacoes sao lidas do cursor do banco e escritas uma a uma, de modo
+ * que nem a lista de objetos nem o texto completo do relatorio ficam em
+ * memoria: o consumo e constante independente do numero de registros.
+ */
+public class RelatorioUtilizacoes {
+
+    private static final String LINHA_DUPLA = "=".repeat(80);
+    private static final String LINHA_SIMPLES = "-".repeat(80);
+
+    private final ServicoUtilizacao servicoUtilizacao;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    public RelatorioUtilizacoes(ServicoUtilizacao servicoUtilizacao) {
+        this.servicoUtilizacao = servicoUtilizacao;
+    }
+
+    /**
+     * Escreve o relatorio de todas as utilizacoes.
+     *
+     * @param saida Destino do relatorio (arquivo, tela, etc.)
+     * @return Quantidade de utilizacoes escritas
+     * @throws IOException Se houver erro ao escrever na saida
+     */
+    public long escreverTodas(Writer saida) throws IOException {
+        saida.write(LINHA_DUPLA + "\n");
+        saida.write("RELATORIO DE TODAS AS UTILIZACOES\n");
+        saida.write(LINHA_DUPLA + "\n\n");
+
+        long total = servicoUtilizacao.contarTodas();
+        long[] escritas = {0};
+
+        if (total == 0) {
+            saida.write("Nenhuma utilizacao registrada.\n");
+        } else {
+            long emUso = servicoUtilizacao.contarEmAberto();
+            saida.write("Total de utilizacoes: " + total + "\n\n");
+            saida.write("Em uso: " + emUso + "\n");
+            saida.write("Devolvidos: " + (total - emUso) + "\n\n");
+
+            try {
+                servicoUtilizacao.percorrerTodas(u -> {
+                    try {
+                        escreverUtilizacao(saida, u);
+                        escritas[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        saida.write(LINHA_DUPLA + "\n");
+        saida.flush();
+        return escritas[0];
+    }
+
+    private void escreverUtilizacao(Writer saida, Utilizacao u) throws IOException {
+        saida.write(LINHA_SIMPLES + "\n");
+        saida.write("Codigo: " + u.getCodigo() + "\n");
+        saida.write("Veiculo: " + u.getVeiculo().getPlaca()
+                + " - " + u.getVeiculo().getMarca()
+                + " " + u.getVeiculo().getModelo() + "\n");
+        saida.write("Motorista: " + u.getMotorista().getNome() + "\n");
+        saida.write("Retirada: " + u.getDataRetirada().format(formatter) + "\n");
+        saida.write("Devolucao: "
+                + (u.getDataDevolucao() != null ? u.getDataDevolucao().format(formatter) : "EM USO") + "\n");
+        saida.write("Status: " + (u.isEmUso() ? "EM USO" : "DEVOLVIDO") + "\n");
+    }
+}
@@ -1,7 +1,11 @@
 package servico;
 
-import dao.Dao;
+import dao.Consulta;
+import dao.Pagina;
+import dao.Repositorios;
+import dao.Sequencia;
 import excecoes.MotoristaInvalidoException;
+import interfaces.IRepositorio;
 import modelo.Motorista;
 import java.util.List;
 
@@ -11,10 +15,10 @@ import java.util.List;
  */
 public class ServicoMotorista {
     
-    private final Dao<Motorista> dao;
+    private final IRepositorio<Motorista> dao;
     
     public ServicoMotorista() {
-        this.dao = new Dao<>(Motorista.class);
+        this.dao = Repositorios.para(Motorista.class);
     }
     
     /**
@@ -24,7 +28,30 @@ public class ServicoMotorista {
      * @throws MotoristaInvalidoException Se dados forem invalidos ou CNH duplicada
      */
     public void cadastrar(Motorista motorista) throws MotoristaInvalidoException {
-        // Validacoes
+        validar(motorista);
+        
+        // Verifica se ja existe motorista com a mesma CNH
+        Motorista existente = dao.buscarPorChave("cnh", motorista.getCnh());
+        if (existente != null) {
+            throw new MotoristaInvalidoException("Ja existe um motorista cadastrado com a CNH: " + motorista.getCnh());
+        }
+        
+        // Se codigo nao foi definido, gerar automaticamente
+        if (motorista.getCodigo() == 0) {
+            motorista.setCodigo(gerarProximoCodigo());
+        }
+        
+        dao.inserir(motorista);
+    }
+    
+    /**
+     * Valida os dados de um motorista novo. Nao consulta o banco; usado 
+     * tambem pela importacao em lote.
+     * 
+     * @param motorista Motorista a validar
+     * @throws MotoristaInvalidoException Se dados forem invalidos
+     */
+    static void validar(Motorista motorista) throws MotoristaInvalidoException {
         if (motorista == null) {
             throw new IllegalArgumentException("Motorista nao pode ser nulo");
         }
@@ -44,19 +71,6 @@ public class ServicoMotorista {
         if (motorista.getSetor() == null || motorista.getSetor().trim().isEmpty()) {
             throw new MotoristaInvalidoException("Setor e obrigatorio");
         }
-        
-        // Verifica se ja existe motorista com a mesma CNH
-        Motorista existente = dao.buscarPorChave("cnh", motorista.getCnh());
-        if (existente != null) {
-            throw new MotoristaInvalidoException("Ja existe um motorista cadastrado com a CNH: " + motorista.getCnh());
-        }
-        
-        // Se codigo nao foi definido, gerar automaticamente
-        if (motorista.getCodigo() == 0) {
-            motorista.setCodigo(gerarProximoCodigo());
-        }
-        
-        dao.inserir(motorista);
     }
     
     /**
@@ -90,6 +104,7 @@ public class ServicoMotorista {
         }
         
         dao.alterar("codigo", String.valueOf(motorista.getCodigo()), motorista);
+        CacheMestre.MOTORISTAS_POR_CODIGO.invalidar(motorista.getCodigo());
     }
     
     /**
@@ -99,7 +114,11 @@ public class ServicoMotorista {
      * @return true se foi removido
      */
     public boolean remover(int codigo) {
-        return dao.excluir("codigo", String.valueOf(codigo));
+        // Invalida depois da exclusao: uma leitura concorrente feita antes dela
+        // recolocaria o registro excluido no cache
+        boolean removido = dao.excluir("codigo", String.valueOf(codigo));
+        CacheMestre.MOTORISTAS_POR_CODIGO.invalidar(codigo);
+        return removido;
     }
     
     /**
@@ -109,7 +128,7 @@ public class ServicoMotorista {
      * @return Motorista encontrado ou null
      */
     public Motorista buscarPorCodigo(int codigo) {
-        return dao.buscarPorChave("codigo", codigo);
+        return CacheMestre.MOTORISTAS_POR_CODIGO.obter(codigo, c -> dao.buscarPorChave("codigo", c));
     }
     
     /**
@@ -131,6 +150,29 @@ public class ServicoMotorista {
         return dao.listarTodos();
     }
     
+    /**
+     * Lista os motoristas para selecao (ex: combos), ordenados por nome.
+     * Apenas codigo e nome sao carregados; cnh e setor ficam nulos.
+     * 
+     * @return Lista de motoristas com codigo e nome
+     */
+    public List<Motorista> listarParaSelecao() {
+        return dao.buscar(new Consulta()
+                .campos("codigo", "nome")
+                .ordenarPor("nome", true));
+    }
+    
+    /**
+     * Lista uma pagina de motoristas ordenados por codigo.
+     * 
+     * @param tamanho Quantidade maxima de itens na pagina
+     * @param anterior Pagina anterior ou null para a primeira
+     * @return Pagina de motoristas
+     */
+    public Pagina<Motorista> listarPagina(int tamanho, Pagina<Motorista> anterior) {
+        return dao.listarPagina("codigo", true, tamanho, anterior);
+    }
+    
     /**
      * Lista motoristas de um setor especifico.
      * 
@@ -143,22 +185,12 @@ public class ServicoMotorista {
     
     /**
      * Gera o proximo codigo disponivel para motorista.
+     * Usa a sequencia atomica da colecao (sem varrer os registros existentes).
      * 
      * @return Proximo codigo
      */
     private int gerarProximoCodigo() {
-        List<Motorista> motoristas = dao.listarTodos();
-        if (motoristas.isEmpty()) {
-            return 1;
-        }
-        
-        int maxCodigo = 0;
-        for (Motorista m : motoristas) {
-            if (m.getCodigo() > maxCodigo) {
-                maxCodigo = m.getCodigo();
-            }
-        }
-        return maxCodigo + 1;
+        return Sequencia.para(Motorista.class).proximo();
     }
     
     /**
@@ -1,8 +1,12 @@
 package servico;
 
-import dao.Dao;
+import dao.Consulta;
+import dao.Pagina;
+import dao.Repositorios;
+import dao.Sequencia;
 import excecoes.UsuarioDuplicadoException;
 import excecoes.AutenticacaoException;
+import interfaces.IRepositorio;
 import interfaces.IServicoAutenticacao;
 import modelo.Usuario;
 import java.util.List;
@@ -13,10 +17,10 @@ import java.util.List;
  */
 public class ServicoUsuario implements IServicoAutenticacao {
     
-    private final Dao<Usuario> dao;
+    private final IRepositorio<Usuario> dao;
     
     public ServicoUsuario() {
-        this.dao = new Dao<>(Usuario.class);
+        this.dao = Repositorios.para(Usuario.class);
     }
     
     /**
@@ -59,7 +63,8 @@ public class ServicoUsuario implements IServicoAutenticacao {
     }
     
     /**
-     * Atualiza dados de um usuario.
+     * Atualiza dados de um usuario. Se a senha nao for informada (null),
+     * a senha gravada e mantida.
      * 
      * @param usuario Usuario com dados atualizados
      * @throws UsuarioDuplicadoException Se o novo login ja existe
@@ -83,7 +88,12 @@ public class ServicoUsuario implements IServicoAutenticacao {
             }
         }
         
+        if (usuario.getSenha() == null) {
+            usuario.setSenha(original.getSenha());
+        }
+        
         dao.alterar("codigo", String.valueOf(usuario.getCodigo()), usuario);
+        CacheMestre.invalidarUsuario(usuario.getCodigo());
     }
     
     /**
@@ -93,7 +103,11 @@ public class ServicoUsuario implements IServicoAutenticacao {
      * @return true se foi removido
      */
     public boolean remover(int codigo) {
-        return dao.excluir("codigo", String.valueOf(codigo));
+        // Invalida depois da exclusao: uma leitura concorrente feita antes dela
+        // recolocaria o registro excluido no cache
+        boolean removido = dao.excluir("codigo", String.valueOf(codigo));
+        CacheMestre.invalidarUsuario(codigo);
+        return removido;
     }
     
     /**
@@ -103,7 +117,7 @@ public class ServicoUsuario implements IServicoAutenticacao {
      * @return Usuario encontrado ou null
      */
     public Usuario buscarPorCodigo(int codigo) {
-        return dao.buscarPorChave("codigo", codigo);
+        return CacheMestre.USUARIOS_POR_CODIGO.obter(codigo, c -> dao.buscarPorChave("codigo", c));
     }
     
     /**
@@ -113,7 +127,7 @@ public class ServicoUsuario implements IServicoAutenticacao {
      * @return Usuario encontrado ou null
      */
     public Usuario buscarPorLogin(String login) {
-        return dao.buscarPorChave("login", login);
+        return CacheMestre.USUARIOS_POR_LOGIN.obter(login, l -> dao.buscarPorChave("login", l));
     }
     
     /**
@@ -125,6 +139,26 @@ public class ServicoUsuario implements IServicoAutenticacao {
         return dao.listarTodos();
     }
     
+    /**
+     * Lista todos os usuarios sem carregar a senha (ex: tabela de usuarios).
+     * 
+     * @return Lista de usuarios com a senha nula
+     */
+    public List<Usuario> listarSemSenha() {
+        return dao.buscar(new Consulta().excluirCampos("senha"));
+    }
+    
+    /**
+     * Lista uma pagina de usuarios ordenados por codigo.
+     * 
+     * @param tamanho Quantidade maxima de itens na pagina
+     * @param anterior Pagina anterior ou null para a primeira
+     * @return Pagina de usuarios
+     */
+    public Pagina<Usuario> listarPagina(int tamanho, Pagina<Usuario> anterior) {
+        return dao.listarPagina("codigo", true, tamanho, anterior);
+    }
+    
     @Override
     public Usuario autenticar(String login, String senha) throws AutenticacaoException {
         if (login == null || login.trim().isEmpty()) {
@@ -135,9 +169,12 @@ public class ServicoUsuario implements IServicoAutenticacao {
             throw new AutenticacaoException("Senha nao informada");
         }
         
+        // Sempre no banco, nunca no cache: uma senha alterada ou um usuario
+        // excluido (em qualquer posto) deve valer no proximo login
         Usuario usuario = dao.buscarPorChave("login", login);
         
         if (usuario == null) {
+            CacheMestre.USUARIOS_POR_LOGIN.invalidar(login);
             throw new AutenticacaoException("Usuario nao encontrado");
         }
         
@@ -158,22 +195,12 @@ public class ServicoUsuario implements IServicoAutenticacao {
     
     /**
      * Gera o proximo codigo disponivel para usuario.
+     * Usa a sequencia atomica da colecao (sem varrer os registros existentes).
      * 
      * @return Proximo codigo
      */
     private int gerarProximoCodigo() {
-        List<Usuario> usuarios = dao.listarTodos();
-        if (usuarios.isEmpty()) {
-            return 1;
-        }
-        
-        int maxCodigo = 0;
-        for (Usuario u : usuarios) {
-            if (u.getCodigo() > maxCodigo) {
-                maxCodigo = u.getCodigo();
-            }
-        }
-        return maxCodigo + 1;
+        return Sequencia.para(Usuario.class).proximo();
     }
     
     /**
@@ -1,7 +1,14 @@
 package servico;
 
-import dao.Dao;
+import dao.Consulta;
+import dao.GerenciadorIndices;
+import dao.Metricas;
+import dao.ObservadorMudancas;
+import dao.Pagina;
+import dao.Repositorios;
+import dao.Sequencia;
 import excecoes.UtilizacaoException;
+import interfaces.IRepositorio;
 import modelo.Motorista;
 import modelo.Usuario;
 import modelo.Utilizacao;
@@ -9,7 +16,14 @@ import modelo.Veiculo;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Servico responsavel por gerenciar utilizacoes de veiculos.
@@ -20,14 +34,38 @@ import java.util.List;
  */
 public class ServicoUtilizacao {
     
-    private final Dao<Utilizacao> dao;
-    private final Dao<Veiculo> daoVeiculo;
-    private final Dao<Motorista> daoMotorista;
+    private final IRepositorio<Utilizacao> dao;
+    private final IRepositorio<Veiculo> daoVeiculo;
+    private final IRepositorio<Motorista> daoMotorista;
+    private final IRepositorio<Usuario> daoUsuario;
+    private final HidratadorUtilizacao hidratador;
+    
+    /**
+     * Utilizacoes em aberto conhecidas por este processo (placa -> codigo da
+     * utilizacao), mantido nas retiradas, devolucoes e exclusoes locais e,
+     * com o ObservadorMudancas ativo, nas dos demais postos. E apenas um
+     * atalho para achar a utilizacao a devolver: sem o observador (servidor
+     * sem replica set) retiradas de outros postos nao aparecem aqui, por isso
+     * nenhuma decisao ("veiculo esta em uso?") e tomada so com ele.
+     */
+    private static final Map<String, Integer> EM_ABERTO_POR_PLACA = new ConcurrentHashMap<>();
+    
+    // Tempo das operacoes do posto de atendimento; recusas contam como erro (ver Metricas)
+    private static final Metricas.Medida MEDIDA_RETIRADA = 
+            Metricas.medida(Metricas.SERVICO, "ServicoUtilizacao.registrarRetirada");
+    private static final Metricas.Medida MEDIDA_DEVOLUCAO = 
+            Metricas.medida(Metricas.SERVICO, "ServicoUtilizacao.registrarDevolucao");
+    
+    static {
+        ObservadorMudancas.ouvir("utilizacao", ServicoUtilizacao::aplicarMudanca);
+    }
     
     public ServicoUtilizacao() {
-        this.dao = new Dao<>(Utilizacao.class);
-        this.daoVeiculo = new Dao<>(Veiculo.class);
-        this.daoMotorista = new Dao<>(Motorista.class);
+        this.dao = Repositorios.para(Utilizacao.class);
+        this.daoVeiculo = Repositorios.para(Veiculo.class);
+        this.daoMotorista = Repositorios.para(Motorista.class);
+        this.daoUsuario = Repositorios.para(Usuario.class);
+        this.hidratador = new HidratadorUtilizacao(daoVeiculo, daoMotorista, daoUsuario);
     }
     
     /**
@@ -42,35 +80,66 @@ public class ServicoUtilizacao {
      */
     public Utilizacao registrarRetirada(String placa, int codigoMotorista, Usuario operador) 
             throws UtilizacaoException {
+        EventoUtilizacao evento = new EventoUtilizacao();
+        evento.begin();
+        long inicio = System.nanoTime();
+        Utilizacao utilizacao = null;
+        String recusa = null;
+        try {
+            utilizacao = retirar(placa, codigoMotorista, operador);
+            return utilizacao;
+        } catch (UtilizacaoException e) {
+            recusa = e.getMessage();
+            throw e;
+        } finally {
+            MEDIDA_RETIRADA.registrar(inicio, utilizacao != null ? 1 : 0, utilizacao == null);
+            evento.registrar("retirada", placa, codigoMotorista, login(operador), utilizacao != null, recusa);
+        }
+    }
+    
+    private Utilizacao retirar(String placa, int codigoMotorista, Usuario operador) throws UtilizacaoException {
         
         // Validar operador (autenticacao ja foi feita, mas precisa do objeto)
         if (operador == null) {
             throw new UtilizacaoException("Operacao requer autenticacao de operador");
         }
         
-        // Validar veiculo
-        Veiculo veiculo = daoVeiculo.buscarPorChave("placa", placa);
+        // Validar veiculo e motorista (cadastros em cache, ver CacheMestre)
+        Veiculo veiculo = CacheMestre.VEICULOS_POR_PLACA.obter(placa, p -> daoVeiculo.buscarPorChave("placa", p));
         if (veiculo == null) {
             throw new UtilizacaoException("Veiculo nao encontrado: " + placa);
         }
         
-        // Validar motorista
-        Motorista motorista = daoMotorista.buscarPorChave("codigo", codigoMotorista);
+        Motorista motorista = CacheMestre.MOTORISTAS_POR_CODIGO.obter(codigoMotorista, 
+                c -> daoMotorista.buscarPorChave("codigo", c));
         if (motorista == null) {
             throw new UtilizacaoException("Motorista nao encontrado: " + codigoMotorista);
         }
         
-        // Verificar se o veiculo ja esta em uso
-        if (veiculoEmUso(placa)) {
-            throw new UtilizacaoException("Veiculo ja esta em uso: " + placa);
-        }
-        
         // Criar nova utilizacao
         int codigo = gerarProximoCodigo();
         LocalDateTime agora = LocalDateTime.now();
         
         Utilizacao utilizacao = new Utilizacao(codigo, veiculo, motorista, agora, operador);
-        dao.inserir(utilizacao);
+        
+        // Verificacao e retirada em uma unica operacao: o indice unico parcial 
+        // sobre utilizacoes em aberto rejeita a insercao se o veiculo ja estiver 
+        // em uso, mesmo que outro posto de atendimento tenha retirado agora
+        // No banco sao gravadas apenas as referencias (ver HidratadorUtilizacao)
+        // Sem o indice nao ha garantia contra duas retiradas do mesmo veiculo: recusa
+        boolean inserida;
+        try {
+            inserida = dao.inserirSeUnico(HidratadorUtilizacao.referencias(utilizacao), 
+                    GerenciadorIndices.INDICE_EM_ABERTO_POR_PLACA);
+        } catch (IllegalStateException e) {
+            throw new UtilizacaoException("Retiradas indisponiveis, verifique os indices do banco: " 
+                    + e.getMessage());
+        }
+        if (!inserida) {
+            consultarEmAberto(placa);
+            throw new UtilizacaoException("Veiculo ja esta em uso: " + placa);
+        }
+        EM_ABERTO_POR_PLACA.put(placa, codigo);
         
         return utilizacao;
     }
@@ -84,26 +153,47 @@ public class ServicoUtilizacao {
      * @throws UtilizacaoException Se houver problema na devolucao
      */
     public void registrarDevolucao(String placa, Usuario operador) throws UtilizacaoException {
+        EventoUtilizacao evento = new EventoUtilizacao();
+        evento.begin();
+        long inicio = System.nanoTime();
+        boolean devolvida = false;
+        String recusa = null;
+        try {
+            devolver(placa, operador);
+            devolvida = true;
+        } catch (UtilizacaoException e) {
+            recusa = e.getMessage();
+            throw e;
+        } finally {
+            MEDIDA_DEVOLUCAO.registrar(inicio, devolvida ? 1 : 0, !devolvida);
+            evento.registrar("devolucao", placa, 0, login(operador), devolvida, recusa);
+        }
+    }
+    
+    private static String login(Usuario operador) {
+        return operador != null ? operador.getLogin() : null;
+    }
+    
+    private void devolver(String placa, Usuario operador) throws UtilizacaoException {
         
         // Validar operador
         if (operador == null) {
             throw new UtilizacaoException("Operacao requer autenticacao de operador");
         }
         
-        // Buscar utilizacao em aberto para este veiculo
-        List<Utilizacao> utilizacoes = dao.listarTodos();
+        // Buscar utilizacao em aberto para este veiculo: primeiro pelo codigo
+        // conhecido localmente, depois pela consulta indexada no banco
         Utilizacao utilizacaoAtual = null;
-        
-        for (Utilizacao u : utilizacoes) {
-            if (u.getVeiculo() != null && 
-                u.getVeiculo().getPlaca().equals(placa) && 
-                u.isEmUso()) {
-                utilizacaoAtual = u;
-                break;
-            }
+        Integer codigoEmAberto = EM_ABERTO_POR_PLACA.get(placa);
+        if (codigoEmAberto != null) {
+            utilizacaoAtual = dao.buscarPorChave("codigo", codigoEmAberto);
+        }
+        if (utilizacaoAtual == null || !utilizacaoAtual.isEmUso()) {
+            utilizacaoAtual = consultarEmAberto(placa);
         }
         
         if (utilizacaoAtual == null) {
+            EM_ABERTO_POR_PLACA.remove(placa);
             throw new UtilizacaoException("Nao ha utilizacao em aberto para o veiculo: " + placa);
         }
         
@@ -111,8 +201,15 @@ public class ServicoUtilizacao {
         LocalDateTime agora = LocalDateTime.now();
         utilizacaoAtual.devolverVeiculo(agora, operador);
         
-        // Atualizar no banco
-        dao.alterar("codigo", String.valueOf(utilizacaoAtual.getCodigo()), utilizacaoAtual);
+        // Atualizar no banco, somente se ainda estiver em aberto (outro posto
+        // pode ter registrado a devolucao ao mesmo tempo)
+        boolean devolvida = dao.substituirSe(new Consulta()
+                .igual("codigo", utilizacaoAtual.getCodigo())
+                .nulo("dataDevolucao"), HidratadorUtilizacao.referencias(utilizacaoAtual));
+        EM_ABERTO_POR_PLACA.remove(placa);
+        if (!devolvida) {
+            throw new UtilizacaoException("Devolucao ja registrada para o veiculo: " + placa);
+        }
     }
     
     /**
@@ -128,18 +225,11 @@ public class ServicoUtilizacao {
         LocalDateTime inicio = data.atStartOfDay();
         LocalDateTime fim = data.atTime(LocalTime.MAX);
         
-        // Buscar todas utilizacoes no periodo
-        List<Utilizacao> todasDoPeriodo = dao.buscarPorPeriodo("dataRetirada", inicio, fim);
-        
-        // Filtrar por placa
-        List<Utilizacao> resultado = new java.util.ArrayList<>();
-        for (Utilizacao u : todasDoPeriodo) {
-            if (u.getVeiculo() != null && u.getVeiculo().getPlaca().equals(placa)) {
-                resultado.add(u);
-            }
-        }
-        
-        return resultado;
+        // Consulta unica no indice {veiculo.placa, dataRetirada}
+        return hidratador.hidratar(dao.buscar(new Consulta()
+                .igual("veiculo.placa", placa)
+                .entre("dataRetirada", inicio, fim)
+                .ordenarPor("dataRetirada", true)));
     }
     
     /**
@@ -151,18 +241,10 @@ public class ServicoUtilizacao {
      * @return Lista ordenada de utilizacoes
      */
     public List<Utilizacao> listarUtilizacoesPorPlaca(String placa) {
-        // Buscar todas utilizacoes
-        List<Utilizacao> todas = dao.listarOrdenado("dataRetirada", true);
-        
-        // Filtrar por placa
-        List<Utilizacao> resultado = new java.util.ArrayList<>();
-        for (Utilizacao u : todas) {
-            if (u.getVeiculo() != null && u.getVeiculo().getPlaca().equals(placa)) {
-                resultado.add(u);
-            }
-        }
-        
-        return resultado;
+        // Filtro e ordenacao no banco, atendidos pelo indice {veiculo.placa, dataRetirada}
+        return hidratador.hidratar(dao.buscar(new Consulta()
+                .igual("veiculo.placa", placa)
+                .ordenarPor("dataRetirada", true)));
     }
     
     /**
@@ -172,7 +254,7 @@ public class ServicoUtilizacao {
      * @return Lista ordenada
      */
     public List<Utilizacao> listarTodasOrdenadas(boolean crescente) {
-        return dao.listarOrdenado("dataRetirada", crescente);
+        return hidratador.hidratar(dao.listarOrdenado("dataRetirada", crescente));
     }
     
     /**
@@ -181,7 +263,63 @@ public class ServicoUtilizacao {
      * @return Lista de todas utilizacoes
      */
     public List<Utilizacao> listarTodas() {
-        return dao.listarTodos();
+        return hidratador.hidratar(dao.listarTodos());
+    }
+    
+    /**
+     * Percorre todas as utilizacoes sem carrega-las em memoria.
+     * 
+     * @param acao Acao executada para cada utilizacao
+     */
+    public void percorrerTodas(Consumer<Utilizacao> acao) {
+        dao.percorrer(new Consulta(), hidratador.hidratando(acao));
+    }
+    
+    /**
+     * Conta todas as utilizacoes registradas.
+     * 
+     * @return Numero de utilizacoes
+     */
+    public long contarTodas() {
+        return dao.contar();
+    }
+    
+    /**
+     * Conta as utilizacoes em aberto (veiculos em uso).
+     * 
+     * @return Numero de utilizacoes em aberto
+     */
+    public long contarEmAberto() {
+        return dao.contar(consultaEmAberto());
+    }
+    
+    /**
+     * Lista uma pagina de utilizacoes ordenadas por data de retirada.
+     * 
+     * @param crescente true para ordem crescente
+     * @param tamanho Quantidade maxima de utilizacoes na pagina
+     * @param anterior Pagina anterior ou null para a primeira
+     * @return Pagina de utilizacoes
+     */
+    public Pagina<Utilizacao> listarPagina(boolean crescente, int tamanho, Pagina<Utilizacao> anterior) {
+        Pagina<Utilizacao> pagina = dao.listarPagina("dataRetirada", crescente, tamanho, anterior);
+        hidratador.hidratar(pagina.getItens());
+        return pagina;
+    }
+    
+    /**
+     * Lista uma pagina das utilizacoes de um veiculo, em ordem crescente de data.
+     * 
+     * @param placa Placa do veiculo
+     * @param tamanho Quantidade maxima de utilizacoes na pagina
+     * @param anterior Pagina anterior ou null para a primeira
+     * @return Pagina de utilizacoes
+     */
+    public Pagina<Utilizacao> listarPaginaPorPlaca(String placa, int tamanho, Pagina<Utilizacao> anterior) {
+        Pagina<Utilizacao> pagina = dao.listarPagina(new Consulta().igual("veiculo.placa", placa), 
+                "dataRetirada", true, tamanho, anterior);
+        hidratador.hidratar(pagina.getItens());
+        return pagina;
     }
     
     /**
@@ -190,16 +328,7 @@ public class ServicoUtilizacao {
      * @return Lista de utilizacoes em aberto
      */
     public List<Utilizacao> listarEmAberto() {
-        List<Utilizacao> todas = dao.listarTodos();
-        List<Utilizacao> emAberto = new java.util.ArrayList<>();
-        
-        for (Utilizacao u : todas) {
-            if (u.isEmUso()) {
-                emAberto.add(u);
-            }
-        }
-        
-        return emAberto;
+        return hidratador.hidratar(dao.buscar(consultaEmAberto()));
     }
     
     /**
@@ -209,27 +338,73 @@ public class ServicoUtilizacao {
      * @return Utilizacao encontrada ou null
      */
     public Utilizacao buscarPorCodigo(int codigo) {
-        return dao.buscarPorChave("codigo", codigo);
+        return hidratador.hidratar(dao.buscarPorChave("codigo", codigo));
     }
     
     /**
-     * Verifica se um veiculo esta em uso.
+     * Verifica se um veiculo esta em uso, consultando o banco (consulta
+     * indexada por veiculo.placa + dataDevolucao), de modo que retiradas
+     * feitas em outros postos sempre sao consideradas.
      * 
      * @param placa Placa do veiculo
      * @return true se esta em uso
      */
     public boolean veiculoEmUso(String placa) {
-        List<Utilizacao> todas = dao.listarTodos();
-        
-        for (Utilizacao u : todas) {
-            if (u.getVeiculo() != null && 
-                u.getVeiculo().getPlaca().equals(placa) && 
-                u.isEmUso()) {
-                return true;
+        return consultarEmAberto(placa) != null;
+    }
+    
+    /**
+     * Retorna as placas de todos os veiculos em uso, obtidas com uma unica
+     * consulta ao banco. Pensado para telas que exibem o status de varios
+     * veiculos: consulte uma vez por atualizacao e use o conjunto retornado.
+     * 
+     * @return Conjunto (imutavel) de placas em uso no momento da consulta
+     */
+    public Set<String> placasEmUso() {
+        Set<String> placas = new HashSet<>();
+        Map<String, Integer> atual = new HashMap<>();
+        for (Utilizacao u : dao.buscar(consultaEmAberto().campos("codigo", "veiculo.placa"))) {
+            if (u.getVeiculo() != null) {
+                placas.add(u.getVeiculo().getPlaca());
+                atual.put(u.getVeiculo().getPlaca(), u.getCodigo());
             }
         }
-        
-        return false;
+        // Aproveita a consulta para sincronizar o mapa local de utilizacoes em aberto
+        synchronized (EM_ABERTO_POR_PLACA) {
+            EM_ABERTO_POR_PLACA.keySet().retainAll(atual.keySet());
+            EM_ABERTO_POR_PLACA.putAll(atual);
+        }
+        return Collections.unmodifiableSet(placas);
+    }
+    
+    /**
+     * Busca no banco a utilizacao em aberto de um veiculo (consulta indexada
+     * por veiculo.placa + dataDevolucao).
+     * 
+     * @param placa Placa do veiculo
+     * @return Utilizacao em aberto ou null se o veiculo estiver disponivel
+     */
+    public Utilizacao buscarEmAberto(String placa) {
+        return hidratador.hidratar(consultarEmAberto(placa));
+    }
+    
+    /**
+     * Busca a utilizacao em aberto de um veiculo sem hidratar as referencias
+     * e atualiza o mapa local de utilizacoes em aberto.
+     */
+    private Utilizacao consultarEmAberto(String placa) {
+        Utilizacao emAberto = dao.buscarPrimeiro(consultaEmAberto().igual("veiculo.placa", placa));
+        if (emAberto != null) {
+            EM_ABERTO_POR_PLACA.put(placa, emAberto.getCodigo());
+        } else {
+            EM_ABERTO_POR_PLACA.remove(placa);
+        }
+        return emAberto;
+    }
+    
+    private static Consulta consultaEmAberto() {
+        // dataDevolucao nula ou ausente
+        return new Consulta().nulo("dataDevolucao");
     }
     
     /**
@@ -243,7 +418,7 @@ public class ServicoUtilizacao {
         LocalDateTime inicio = dataInicio.atStartOfDay();
         LocalDateTime fim = dataFim.atTime(LocalTime.MAX);
         
-        return dao.buscarPorPeriodo("dataRetirada", inicio, fim);
+        return hidratador.hidratar(dao.buscarPorPeriodo("dataRetirada", inicio, fim));
     }
     
     /**
@@ -253,27 +428,48 @@ public class ServicoUtilizacao {
      * @return true se foi removida
      */
     public boolean remover(int codigo) {
-        return dao.excluir("codigo", String.valueOf(codigo));
+        boolean removida = dao.excluir("codigo", String.valueOf(codigo));
+        if (removida) {
+            EM_ABERTO_POR_PLACA.values().remove(codigo);
+        }
+        return removida;
+    }
+    
+    /**
+     * Substitui as referencias de uma utilizacao lida diretamente do banco
+     * (ex: recebida pelo ObservadorMudancas) pelos objetos completos.
+     * 
+     * @param utilizacao Utilizacao no formato gravado
+     * @return A mesma utilizacao, hidratada
+     */
+    public Utilizacao hidratar(Utilizacao utilizacao) {
+        return hidratador.hidratar(utilizacao);
+    }
+    
+    /**
+     * Mantem o mapa de utilizacoes em aberto coerente com as retiradas e
+     * devolucoes feitas em outros postos.
+     */
+    private static void aplicarMudanca(ObservadorMudancas.Mudanca mudanca) {
+        Utilizacao u = mudanca.getObjeto(Utilizacao.class);
+        if (u == null || u.getVeiculo() == null) {
+            // Sem o documento nao e possivel saber a placa: as proximas devolucoes consultam o banco
+            EM_ABERTO_POR_PLACA.clear();
+        } else if (mudanca.getTipo() != ObservadorMudancas.Tipo.EXCLUSAO && u.isEmUso()) {
+            EM_ABERTO_POR_PLACA.put(u.getVeiculo().getPlaca(), u.getCodigo());
+        } else {
+            EM_ABERTO_POR_PLACA.remove(u.getVeiculo().getPlaca(), u.getCodigo());
+        }
     }
     
     /**
      * Gera o proximo codigo disponivel para utilizacao.
+     * Usa a sequencia atomica da colecao (sem varrer os registros existentes).
      * 
      * @return Proximo codigo
      */
     private int gerarProximoCodigo() {
-        List<Utilizacao> utilizacoes = dao.listarTodos();
-        if (utilizacoes.isEmpty()) {
-            return 1;
-        }
-        
-        int maxCodigo = 0;
-        for (Utilizacao u : utilizacoes) {
-            if (u.getCodigo() > maxCodigo) {
-                maxCodigo = u.getCodigo();
-            }
-        }
-        return maxCodigo + 1;
+        return Sequencia.para(Utilizacao.class).proximo();
     }
     
     /**
@@ -281,5 +477,8 @@ public class ServicoUtilizacao {
      */
     public void fecharConexao() {
         dao.fecharConexao();
+        daoVeiculo.fecharConexao();
+        daoMotorista.fecharConexao();
+        daoUsuario.fecharConexao();
     }
 }
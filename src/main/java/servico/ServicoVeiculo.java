@@ -1,7 +1,10 @@
 package servico;
 
-import dao.Dao;
+import dao.Consulta;
+import dao.Pagina;
+import dao.Repositorios;
 import excecoes.VeiculoDuplicadoException;
+import interfaces.IRepositorio;
 import modelo.Veiculo;
 import java.util.List;
 
@@ -11,10 +14,10 @@ import java.util.List;
  */
 public class ServicoVeiculo {
     
-    private final Dao<Veiculo> dao;
+    private final IRepositorio<Veiculo> dao;
     
     public ServicoVeiculo() {
-        this.dao = new Dao<>(Veiculo.class);
+        this.dao = Repositorios.para(Veiculo.class);
     }
     
     /**
@@ -24,7 +27,25 @@ public class ServicoVeiculo {
      * @throws VeiculoDuplicadoException Se ja existe veiculo com a mesma placa
      */
     public void cadastrar(Veiculo veiculo) throws VeiculoDuplicadoException {
-        // Validacoes
+        validar(veiculo);
+        
+        // Verifica se ja existe veiculo com a mesma placa
+        Veiculo existente = dao.buscarPorChave("placa", veiculo.getPlaca());
+        if (existente != null) {
+            throw new VeiculoDuplicadoException(veiculo.getPlaca());
+        }
+        
+        dao.inserir(veiculo);
+    }
+    
+    /**
+     * Valida os dados de um veiculo novo e normaliza a placa (maiusculas, sem
+     * espacos). Nao consulta o banco; usado tambem pela importacao em lote.
+     * 
+     * @param veiculo Veiculo a validar
+     * @throws IllegalArgumentException Se dados forem invalidos
+     */
+    static void validar(Veiculo veiculo) {
         if (veiculo == null) {
             throw new IllegalArgumentException("Veiculo nao pode ser nulo");
         }
@@ -48,14 +69,6 @@ public class ServicoVeiculo {
         if (!veiculo.isPlacaValida()) {
             throw new IllegalArgumentException("Placa invalida. Use formato ABC-1234 ou ABC1D23");
         }
-        
-        // Verifica se ja existe veiculo com a mesma placa
-        Veiculo existente = dao.buscarPorChave("placa", veiculo.getPlaca());
-        if (existente != null) {
-            throw new VeiculoDuplicadoException(veiculo.getPlaca());
-        }
-        
-        dao.inserir(veiculo);
     }
     
     /**
@@ -80,6 +93,7 @@ public class ServicoVeiculo {
         }
         
         dao.alterar("placa", veiculo.getPlaca(), veiculo);
+        CacheMestre.VEICULOS_POR_PLACA.invalidar(veiculo.getPlaca());
     }
     
     /**
@@ -89,17 +103,22 @@ public class ServicoVeiculo {
      * @return true se foi removido
      */
     public boolean remover(String placa) {
-        return dao.excluir("placa", placa);
+        // Invalida depois da exclusao: uma leitura concorrente feita antes dela
+        // recolocaria o registro excluido no cache
+        boolean removido = dao.excluir("placa", placa);
+        CacheMestre.VEICULOS_POR_PLACA.invalidar(placa);
+        return removido;
     }
     
     /**
-     * Busca um veiculo por placa.
+     * Busca um veiculo por placa, usando o cache de veiculos (ver CacheMestre).
+     * O objeto retornado e compartilhado e nao deve ser alterado.
      * 
      * @param placa Placa do veiculo
      * @return Veiculo encontrado ou null
      */
     public Veiculo buscarPorPlaca(String placa) {
-        return dao.buscarPorChave("placa", placa);
+        return CacheMestre.VEICULOS_POR_PLACA.obter(placa, p -> dao.buscarPorChave("placa", p));
     }
     
     /**
@@ -111,6 +130,29 @@ public class ServicoVeiculo {
         return dao.listarTodos();
     }
     
+    /**
+     * Lista os veiculos para selecao (ex: combos), ordenados por placa.
+     * Apenas placa, marca e modelo sao carregados.
+     * 
+     * @return Lista de veiculos
+     */
+    public List<Veiculo> listarParaSelecao() {
+        return dao.buscar(new Consulta()
+                .campos("placa", "marca", "modelo")
+                .ordenarPor("placa", true));
+    }
+    
+    /**
+     * Lista uma pagina de veiculos ordenados por placa.
+     * 
+     * @param tamanho Quantidade maxima de itens na pagina
+     * @param anterior Pagina anterior ou null para a primeira
+     * @return Pagina de veiculos
+     */
+    public Pagina<Veiculo> listarPagina(int tamanho, Pagina<Veiculo> anterior) {
+        return dao.listarPagina("placa", true, tamanho, anterior);
+    }
+    
     /**
      * Lista veiculos ordenados por placa.
      * 
@@ -0,0 +1,63 @@
+import dao.CacheLeitura;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste do cache de leitura: leitura atraves do cache, expiracao por tempo
+ * de vida, descarte da entrada menos usada e estatisticas. Nao usa o banco.
+ */
+public class TesteCache {
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== TESTE DO CACHE DE LEITURA ===\n");
+
+        AtomicInteger cargas = new AtomicInteger();
+        CacheLeitura<String, String> cache = new CacheLeitura<>("teste", 2, 1);
+
+        System.out.println("1. Leitura atraves do cache...");
+        cache.obter("ABC1234", placa -> { cargas.incrementAndGet(); return "Veiculo " + placa; });
+        cache.obter("ABC1234", placa -> { cargas.incrementAndGet(); return "Veiculo " + placa; });
+        verificar(cargas.get() == 1, "segunda busca atendida pelo cache");
+        verificar(cache.getAcertos() == 1 && cache.getFalhas() == 1, "1 acerto e 1 falha");
+
+        System.out.println("\n2. Chave inexistente nao e guardada...");
+        cache.obter("XYZ0000", placa -> { cargas.incrementAndGet(); return null; });
+        cache.obter("XYZ0000", placa -> { cargas.incrementAndGet(); return null; });
+        verificar(cargas.get() == 3, "consulta repetida para chave inexistente");
+
+        System.out.println("\n3. Capacidade e descarte LRU...");
+        cache.guardar("B", "b");
+        cache.buscar("ABC1234");
+        cache.guardar("C", "c");
+        verificar(cache.getTamanho() == 2 && cache.getDescartadas() == 1, "capacidade respeitada");
+        verificar(cache.buscar("B") == null && cache.buscar("ABC1234") != null, "descartada a menos usada");
+
+        System.out.println("\n4. Invalidacao...");
+        cache.invalidar("ABC1234");
+        verificar(cache.buscar("ABC1234") == null, "invalidar por chave");
+        cache.invalidarSe(valor -> valor.equals("c"));
+        verificar(cache.getTamanho() == 0, "invalidar por condicao");
+
+        System.out.println("\n5. Expiracao...");
+        cache.guardar("D", "d");
+        Thread.sleep(1100);
+        verificar(cache.buscar("D") == null && cache.getExpiradas() == 1, "entrada expirada");
+
+        System.out.println("\n6. Invalidacao durante a carga...");
+        String carregado = cache.obter("E", placa -> {
+            // Outro posto altera o objeto enquanto a consulta esta em andamento
+            cache.invalidar(placa);
+            return "antigo";
+        });
+        verificar("antigo".equals(carregado) && cache.buscar("E") == null,
+                "valor carregado antes da invalidacao nao e guardado");
+        cache.obter("E", placa -> "novo");
+        verificar("novo".equals(cache.buscar("E")), "carga seguinte e guardada");
+
+        System.out.println("\n   " + cache);
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
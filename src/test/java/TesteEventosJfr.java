@@ -0,0 +1,83 @@
+import dao.Consulta;
+import dao.Repositorios;
+import excecoes.UtilizacaoException;
+import interfaces.IRepositorio;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Veiculo;
+import servico.ServicoUtilizacao;
+
+/**
+ * Teste dos eventos do Java Flight Recorder: operacoes de repositorio
+ * (frota.Banco) e retiradas/devolucoes (frota.Utilizacao). Usa o
+ * repositorio em memoria (definido pelo proprio teste).
+ */
+public class TesteEventosJfr {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("frota.repositorio", "memoria");
+        System.out.println("=== TESTE DOS EVENTOS DO JFR ===\n");
+
+        IRepositorio<Veiculo> veiculos = Repositorios.para(Veiculo.class);
+        IRepositorio<Motorista> motoristas = Repositorios.para(Motorista.class);
+        veiculos.inserir(new Veiculo("JFR0001", "Fiat", "Uno"));
+        motoristas.inserir(new Motorista(9001, "Motorista JFR", "00000000000", "B"));
+        Usuario operador = new Usuario(9001, "Operador JFR", "jfr", "x");
+        ServicoUtilizacao servico = new ServicoUtilizacao();
+
+        Path arquivo = Files.createTempFile("frota", ".jfr");
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable("frota.Banco").withThreshold(Duration.ZERO);
+            gravacao.enable("frota.Utilizacao");
+            gravacao.start();
+
+            System.out.println("1. Operacoes...");
+            veiculos.buscar(new Consulta().igual("marca", "Fiat").igual("modelo", "Uno").limite(5));
+            servico.registrarRetirada("JFR0001", 9001, operador);
+            try {
+                servico.registrarRetirada("JFR0001", 9001, operador);
+            } catch (UtilizacaoException e) {
+                // esperado: veiculo ja em uso
+            }
+            servico.registrarDevolucao("JFR0001", operador);
+
+            gravacao.stop();
+            gravacao.dump(arquivo);
+        }
+
+        System.out.println("\n2. Eventos gravados...");
+        List<RecordedEvent> eventos = RecordingFile.readAllEvents(arquivo);
+        Files.deleteIfExists(arquivo);
+        RecordedEvent busca = eventos.stream()
+                .filter(e -> e.getEventType().getName().equals("frota.Banco"))
+                .filter(e -> "buscar".equals(e.getString("operacao")))
+                .findFirst().orElse(null);
+        verificar(busca != null && "veiculo".equals(busca.getString("colecao")), "evento da busca de veiculos");
+        verificar(busca != null && "marca = ? e modelo = ?; limite 5".equals(busca.getString("filtro")),
+                "forma do filtro sem valores: " + (busca != null ? busca.getString("filtro") : null));
+        verificar(busca != null && busca.getLong("documentos") == 1, "documentos devolvidos");
+
+        List<RecordedEvent> utilizacoes = eventos.stream()
+                .filter(e -> e.getEventType().getName().equals("frota.Utilizacao")).toList();
+        long retiradas = utilizacoes.stream()
+                .filter(e -> "retirada".equals(e.getString("operacao")) && e.getBoolean("concluida")).count();
+        RecordedEvent recusa = utilizacoes.stream()
+                .filter(e -> !e.getBoolean("concluida")).findFirst().orElse(null);
+        verificar(utilizacoes.size() == 3 && retiradas == 1, "tres operacoes de utilizacao, uma retirada concluida");
+        verificar(recusa != null && recusa.getString("recusa").contains("em uso")
+                && "jfr".equals(recusa.getString("operador")), "recusa com motivo e operador");
+        verificar(eventos.stream().anyMatch(e -> e.getEventType().getName().equals("frota.Banco")
+                && "inserirSeUnico".equals(e.getString("operacao"))), "insercao da retirada gravada como evento");
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
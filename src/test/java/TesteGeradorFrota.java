@@ -0,0 +1,130 @@
+import dao.Consulta;
+import dao.RepositorioMemoria;
+import ferramentas.GeradorFrota;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+
+/**
+ * Teste do gerador de frota sintetica: validade, determinismo e forma das
+ * distribuicoes. Usa o repositorio em memoria (definido pelo proprio teste).
+ */
+public class TesteGeradorFrota {
+
+    public static void main(String[] args) {
+        System.setProperty("frota.repositorio", "memoria");
+        System.out.println("=== TESTE DO GERADOR DE FROTA ===\n");
+
+        System.out.println("1. Geracao...");
+        GeradorFrota.Resultado resultado = gerador(7L).gerar();
+        System.out.println("   " + resultado);
+        verificar(resultado.getVeiculos() == 100 && resultado.getMotoristas() == 40
+                && resultado.getUtilizacoes() == 20_000 && resultado.getFalhas() == 0, "quantidades pedidas gravadas");
+
+        List<Veiculo> veiculos = RepositorioMemoria.para(Veiculo.class).listarTodos();
+        List<Motorista> motoristas = RepositorioMemoria.para(Motorista.class).listarTodos();
+        List<Utilizacao> utilizacoes = RepositorioMemoria.para(Utilizacao.class)
+                .buscar(new Consulta().ordenarPor("codigo", true));
+
+        System.out.println("\n2. Cadastros validos...");
+        boolean placasValidas = veiculos.stream().allMatch(Veiculo::isPlacaValida);
+        boolean mercosul = veiculos.stream().anyMatch(v -> Character.isLetter(v.getPlaca().charAt(4)));
+        boolean antigas = veiculos.stream().anyMatch(v -> Character.isDigit(v.getPlaca().charAt(4)));
+        verificar(placasValidas && mercosul && antigas, "placas validas nos dois formatos");
+        verificar(motoristas.stream().allMatch(Motorista::isCnhValida), "CNHs com 11 digitos");
+
+        System.out.println("\n3. Historico coerente...");
+        Map<String, LocalDateTime> ultimaDevolucao = new HashMap<>();
+        Set<String> emAberto = new HashSet<>();
+        boolean semSobreposicao = true;
+        boolean emOrdem = true;
+        LocalDateTime anterior = LocalDateTime.MIN;
+        for (Utilizacao u : utilizacoes) {
+            String placa = u.getVeiculo().getPlaca();
+            emOrdem &= !u.getDataRetirada().isBefore(anterior);
+            anterior = u.getDataRetirada();
+            semSobreposicao &= !emAberto.contains(placa);
+            LocalDateTime devolucao = ultimaDevolucao.get(placa);
+            semSobreposicao &= devolucao == null || u.getDataRetirada().isAfter(devolucao);
+            if (u.isEmUso()) {
+                emAberto.add(placa);
+            } else {
+                semSobreposicao &= u.getDataDevolucao().isAfter(u.getDataRetirada());
+                ultimaDevolucao.put(placa, u.getDataDevolucao());
+            }
+        }
+        verificar(emOrdem, "codigos crescentes com a data de retirada");
+        verificar(semSobreposicao, "utilizacoes do mesmo veiculo nao se sobrepoem");
+        verificar(!emAberto.isEmpty() && emAberto.size() == resultado.getEmAberto(),
+                "ultima utilizacao de alguns veiculos em aberto: " + emAberto.size());
+
+        System.out.println("\n4. Distribuicoes...");
+        Map<String, Integer> porVeiculo = new HashMap<>();
+        int primeiroAno = 0;
+        int ultimoAno = 0;
+        for (Utilizacao u : utilizacoes) {
+            porVeiculo.merge(u.getVeiculo().getPlaca(), 1, Integer::sum);
+            int ano = u.getDataRetirada().getYear();
+            primeiroAno += ano == 2020 ? 1 : 0;
+            ultimoAno += ano == 2024 ? 1 : 0;
+        }
+        List<Integer> quantidades = new ArrayList<>(porVeiculo.values());
+        quantidades.sort((a, b) -> b - a);
+        int dezMaiores = quantidades.subList(0, 10).stream().mapToInt(Integer::intValue).sum();
+        verificar(dezMaiores > utilizacoes.size() * 0.25, "10% dos veiculos com mais de 25% do uso: " + dezMaiores);
+        verificar(ultimoAno > primeiroAno * 1.3, "uso crescente: " + primeiroAno + " em 2020, " + ultimoAno + " em 2024");
+
+        System.out.println("\n5. Determinismo...");
+        String assinatura = assinatura(veiculos, utilizacoes);
+        limpar();
+        gerador(7L).gerar();
+        String repetida = assinatura(RepositorioMemoria.para(Veiculo.class).listarTodos(),
+                RepositorioMemoria.para(Utilizacao.class).buscar(new Consulta().ordenarPor("codigo", true)));
+        limpar();
+        gerador(8L).gerar();
+        String outra = assinatura(RepositorioMemoria.para(Veiculo.class).listarTodos(),
+                RepositorioMemoria.para(Utilizacao.class).buscar(new Consulta().ordenarPor("codigo", true)));
+        verificar(assinatura.equals(repetida), "mesma semente, mesmos dados");
+        verificar(!assinatura.equals(outra), "outra semente, outros dados");
+    }
+
+    private static GeradorFrota gerador(long semente) {
+        return new GeradorFrota(semente)
+                .veiculos(100)
+                .motoristas(40)
+                .operadores(3)
+                .utilizacoes(20_000)
+                .periodo(LocalDate.of(2020, 1, 1), LocalDate.of(2025, 1, 1));
+    }
+
+    private static void limpar() {
+        RepositorioMemoria.para(Veiculo.class).limpar();
+        RepositorioMemoria.para(Motorista.class).limpar();
+        RepositorioMemoria.para(Usuario.class).limpar();
+        RepositorioMemoria.para(Utilizacao.class).limpar();
+    }
+
+    /**
+     * Conteudo gerado sem os codigos (a sequencia continua entre as geracoes).
+     */
+    private static String assinatura(List<Veiculo> veiculos, List<Utilizacao> utilizacoes) {
+        StringBuilder sb = new StringBuilder();
+        veiculos.forEach(v -> sb.append(v.getPlaca()).append(v.getModelo()).append(';'));
+        utilizacoes.forEach(u -> sb.append(u.getVeiculo().getPlaca()).append(u.getDataRetirada())
+                .append(u.getDataDevolucao()).append(';'));
+        return sb.toString();
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
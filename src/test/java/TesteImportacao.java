@@ -0,0 +1,110 @@
+import dao.Conexao;
+import dao.Dao;
+import dao.OpcoesLote;
+import modelo.Motorista;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import servico.ImportadorFrota;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Teste da importacao em lote: gera arquivos CSV e JSON Lines com registros
+ * validos, invalidos e repetidos e confere o resultado de cada importacao.
+ */
+public class TesteImportacao {
+
+    private static final int QUANTIDADE = 5000;
+
+    public static void main(String[] args) {
+        System.out.println("=== TESTE DE IMPORTACAO EM LOTE ===\n");
+
+        ImportadorFrota importador = new ImportadorFrota();
+        Dao<Veiculo> daoVeiculo = new Dao<>(Veiculo.class);
+        Dao<Motorista> daoMotorista = new Dao<>(Motorista.class);
+        Dao<Utilizacao> daoUtilizacao = new Dao<>(Utilizacao.class);
+        List<String> placas = new ArrayList<>();
+
+        try {
+            // 1. Veiculos (CSV): QUANTIDADE validos + 1 placa invalida + 1 repetida
+            Path csv = Files.createTempFile("veiculos", ".csv");
+            List<String> linhas = new ArrayList<>();
+            linhas.add("placa;marca;modelo");
+            for (int i = 0; i < QUANTIDADE; i++) {
+                String placa = String.format("IMP%04d", i);
+                placas.add(placa);
+                linhas.add(placa.toLowerCase() + ";Importada;\"Modelo; " + i + "\"");
+            }
+            linhas.add("XX;Importada;Invalida");
+            linhas.add("IMP0001;Importada;Repetida");
+            Files.write(csv, linhas);
+            daoVeiculo.excluirLote("placa", placas, new OpcoesLote().ordenado(false));
+
+            System.out.println("1. Importando veiculos (CSV)...");
+            ImportadorFrota.Resultado veiculos = importador.importarVeiculos(csv);
+            System.out.println("   " + veiculos);
+            veiculos.getRejeicoes().forEach(r -> System.out.println("   " + r));
+            verificar(veiculos.getImportados() == QUANTIDADE, "veiculos validos importados");
+            verificar(veiculos.getRejeitados() == 2, "placa invalida e repetida rejeitadas");
+            verificar("Modelo; 7".equals(daoVeiculo.buscarPorChave("placa", "IMP0007").getModelo()),
+                    "campo entre aspas com separador");
+
+            System.out.println("\n2. Reimportando o mesmo arquivo...");
+            ImportadorFrota.Resultado repetida = importador.importarVeiculos(csv);
+            System.out.println("   " + repetida);
+            verificar(repetida.getImportados() == 0, "nenhum veiculo duplicado");
+
+            // 3. Motoristas (JSON Lines)
+            Path jsonl = Files.createTempFile("motoristas", ".jsonl");
+            Files.write(jsonl, List.of(
+                    "{\"nome\": \"Importado Um\", \"cnh\": \"70000000001\", \"setor\": \"Campus\"}",
+                    "{\"nome\": \"Importado Dois\", \"cnh\": \"70000000002\", \"setor\": \"Campus\"}",
+                    "{\"nome\": \"CNH curta\", \"cnh\": \"123\", \"setor\": \"Campus\"}",
+                    "{nao e json"));
+            daoMotorista.excluirLote("cnh", List.of("70000000001", "70000000002"), new OpcoesLote());
+
+            System.out.println("\n3. Importando motoristas (JSON Lines)...");
+            ImportadorFrota.Resultado motoristas = importador.importarMotoristas(jsonl);
+            System.out.println("   " + motoristas);
+            motoristas.getRejeicoes().forEach(r -> System.out.println("   " + r));
+            verificar(motoristas.getImportados() == 2 && motoristas.getRejeitados() == 2,
+                    "2 importados e 2 rejeitados");
+            Motorista importado = daoMotorista.buscarPorChave("cnh", "70000000001");
+            verificar(importado != null && importado.getCodigo() > 0, "codigo gerado");
+
+            // 4. Historico de utilizacoes (CSV)
+            Path historico = Files.createTempFile("utilizacoes", ".csv");
+            Files.write(historico, List.of(
+                    "placa,motorista,operadorRetirada,dataRetirada,dataDevolucao",
+                    "IMP0001," + importado.getCodigo() + ",1,2024-03-01T08:00,2024-03-01T17:30",
+                    "IMP0002," + importado.getCodigo() + ",1,01/03/2024 08:00,01/03/2024 07:00",
+                    "ZZZ9999," + importado.getCodigo() + ",1,2024-03-01T08:00,2024-03-01T09:00"));
+
+            System.out.println("\n4. Importando historico de utilizacoes...");
+            ImportadorFrota.Resultado utilizacoes = importador.importarUtilizacoes(historico);
+            System.out.println("   " + utilizacoes);
+            utilizacoes.getRejeicoes().forEach(r -> System.out.println("   " + r));
+            verificar(utilizacoes.getRejeitados() >= 2, "datas invertidas e veiculo inexistente rejeitados");
+
+        } catch (Exception e) {
+            System.out.println("\n❌ ERRO: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            daoUtilizacao.excluirLote("veiculo.placa", placas, new OpcoesLote().ordenado(false));
+            daoVeiculo.excluirLote("placa", placas, new OpcoesLote().ordenado(false));
+            daoMotorista.excluirLote("cnh", List.of("70000000001", "70000000002"), new OpcoesLote());
+            importador.fecharConexao();
+            daoVeiculo.fecharConexao();
+            daoMotorista.fecharConexao();
+            daoUtilizacao.fecharConexao();
+            Conexao.encerrar();
+        }
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,106 @@
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import dao.Conexao;
+import dao.GerenciadorIndices;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.bson.conversions.Bson;
+
+/**
+ * Verifica, com explain(), se as consultas usadas pelos servicos sao
+ * atendidas por indices (IXSCAN) e nao por varredura da colecao (COLLSCAN).
+ */
+public class TesteIndices {
+
+    private static int falhas = 0;
+
+    public static void main(String[] args) {
+        System.out.println("=== TESTE DE INDICES (EXPLAIN) ===\n");
+
+        MongoDatabase database = Conexao.adquirir();
+        try {
+            // Cria os indices que faltarem (na aplicacao isso e feito em segundo plano, ver App)
+            GerenciadorIndices.garantirIndices(database);
+
+            LocalDateTime inicio = LocalDateTime.now().minusDays(1);
+            LocalDateTime fim = LocalDateTime.now();
+
+            verificar(database, "veiculo", Filters.eq("placa", "ABC1234"), null);
+            verificar(database, "veiculo", Filters.eq("marca", "Toyota"), null);
+            verificar(database, "motorista", Filters.eq("codigo", 1), null);
+            verificar(database, "motorista", Filters.eq("cnh", "12345678901"), null);
+            verificar(database, "motorista", Filters.eq("setor", "Direcao"), null);
+            verificar(database, "usuario", Filters.eq("codigo", 1), null);
+            verificar(database, "usuario", Filters.eq("login", "admin"), null);
+            verificar(database, "utilizacao", Filters.eq("codigo", 1), null);
+            verificar(database, "utilizacao",
+                    Filters.and(Filters.gte("dataRetirada", inicio), Filters.lte("dataRetirada", fim)), null);
+            verificar(database, "utilizacao",
+                    Filters.and(Filters.eq("veiculo.placa", "ABC1234"), Filters.eq("dataDevolucao", null)), null);
+            verificar(database, "utilizacao", Filters.eq("veiculo.placa", "ABC1234"),
+                    Sorts.ascending("dataRetirada"));
+            verificar(database, "utilizacao", Filters.eq("dataDevolucao", null), null);
+
+            // Ordens de Dao.listarPagina: alem do indice, nao pode haver SORT
+            verificarPagina(database, "veiculo", new Document(), Sorts.ascending("placa", "_id"));
+            verificarPagina(database, "motorista", new Document(), Sorts.ascending("codigo", "_id"));
+            verificarPagina(database, "usuario", new Document(), Sorts.ascending("codigo", "_id"));
+            verificarPagina(database, "utilizacao", new Document(), Sorts.descending("dataRetirada", "_id"));
+            verificarPagina(database, "utilizacao", Filters.eq("veiculo.placa", "ABC1234"),
+                    Sorts.ascending("dataRetirada", "_id"));
+            // Paginas seguintes do historico (tela de utilizacoes, mais recentes primeiro)
+            ObjectId ultimoId = new ObjectId();
+            verificarPagina(database, "utilizacao", Filters.or(Filters.and(Filters.lte("dataRetirada", fim),
+                    Filters.or(Filters.lt("dataRetirada", fim),
+                            Filters.and(Filters.eq("dataRetirada", fim), Filters.lt("_id", ultimoId)))),
+                    Filters.eq("dataRetirada", null)),
+                    Sorts.descending("dataRetirada", "_id"));
+
+            System.out.println("\n--- Relatorio de indices ---");
+            List<String> relatorio = GerenciadorIndices.verificar();
+            if (relatorio.isEmpty()) {
+                System.out.println("   ✅ Todos os indices declarados existem");
+            }
+            relatorio.forEach(linha -> System.out.println("   " + linha));
+
+            System.out.println();
+            System.out.println(falhas == 0
+                    ? "✅ TODAS AS CONSULTAS USAM INDICE"
+                    : "❌ " + falhas + " CONSULTA(S) SEM INDICE");
+        } finally {
+            Conexao.liberar();
+            Conexao.encerrar();
+        }
+    }
+
+    private static void verificarPagina(MongoDatabase database, String colecao, Bson filtro, Bson ordem) {
+        String plano = GerenciadorIndices.resumirPlano(
+                database.getCollection(colecao).find(filtro).sort(ordem).limit(201).explain());
+        // SORT_MERGE (uniao de faixas ja ordenadas, usada no $or dos nulos) nao e uma ordenacao em memoria
+        boolean semOrdenacao = plano.contains("IXSCAN") && !plano.replace("SORT_MERGE", "").contains("SORT");
+        if (!semOrdenacao) {
+            falhas++;
+        }
+        System.out.println((semOrdenacao ? "   ✅ " : "   ❌ ") + colecao + " pagina "
+                + ordem.toBsonDocument().toJson() + " -> " + plano);
+    }
+
+    private static void verificar(MongoDatabase database, String colecao, Bson filtro, Bson ordem) {
+        MongoCollection<Document> collection = database.getCollection(colecao);
+        var consulta = collection.find(filtro);
+        if (ordem != null) {
+            consulta = consulta.sort(ordem);
+        }
+        String plano = GerenciadorIndices.resumirPlano(consulta.explain());
+        boolean usaIndice = plano.contains("IXSCAN") || plano.contains("IDHACK");
+        if (!usaIndice) {
+            falhas++;
+        }
+        System.out.println((usaIndice ? "   ✅ " : "   ❌ ") + colecao + " "
+                + filtro.toBsonDocument().toJson() + " -> " + plano);
+    }
+}
@@ -0,0 +1,91 @@
+import dao.Conexao;
+import dao.Dao;
+import dao.GerenciadorIndices;
+import dao.OpcoesLote;
+import dao.ResultadoLote;
+import modelo.Veiculo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Teste das operacoes em lote (inserirLote, alterarLote, excluirLote),
+ * incluindo o relatorio de falhas por item e a diferenca entre os modos
+ * ordenado e nao ordenado.
+ */
+public class TesteLote {
+
+    private static final int QUANTIDADE = 2500;
+
+    public static void main(String[] args) {
+        System.out.println("=== TESTE DE OPERACOES EM LOTE ===\n");
+
+        // As falhas por duplicidade dependem do indice unico de placa
+        GerenciadorIndices.garantirIndices();
+        Dao<Veiculo> dao = new Dao<>(Veiculo.class);
+        List<String> placas = new ArrayList<>();
+        List<Veiculo> veiculos = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE; i++) {
+            String placa = String.format("LTE%04d", i);
+            placas.add(placa);
+            veiculos.add(new Veiculo(placa, "LoteMarca", "Modelo " + i));
+        }
+
+        try {
+            dao.excluirLote("placa", placas, new OpcoesLote().ordenado(false));
+
+            // 1. Insercao em lotes de 1000
+            System.out.println("1. Inserindo " + QUANTIDADE + " veiculos...");
+            long inicio = System.nanoTime();
+            ResultadoLote inseridos = dao.inserirLote(veiculos, new OpcoesLote());
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            System.out.println("   " + inseridos + " (" + ms + " ms)");
+            verificar(inseridos.getInseridos() == QUANTIDADE, "todos inseridos");
+
+            // 2. Duplicados em modo nao ordenado: cada um vira uma falha
+            System.out.println("\n2. Reinserindo 3 duplicados + 1 novo (nao ordenado)...");
+            List<Veiculo> mistura = List.of(veiculos.get(0), veiculos.get(1),
+                    new Veiculo("LTE9999", "LoteMarca", "Novo"), veiculos.get(2));
+            placas.add("LTE9999");
+            ResultadoLote naoOrdenado = dao.inserirLote(mistura, new OpcoesLote().ordenado(false));
+            naoOrdenado.getFalhas().forEach(f -> System.out.println("   " + f.getIndice() + ": duplicada=" + f.isChaveDuplicada()));
+            verificar(naoOrdenado.getInseridos() == 1 && naoOrdenado.getFalhas().size() == 3,
+                    "1 inserido e 3 falhas");
+            verificar(naoOrdenado.getFalhas().get(2).getIndice() == 3, "indice da falha na lista enviada");
+
+            // 3. Modo ordenado: para no primeiro erro
+            System.out.println("\n3. Reinserindo duplicados (ordenado)...");
+            ResultadoLote ordenado = dao.inserirLote(mistura, new OpcoesLote());
+            System.out.println("   " + ordenado);
+            verificar(ordenado.getFalhas().size() == 1 && ordenado.getNaoProcessados() == 3,
+                    "parou no primeiro item");
+
+            // 4. Alteracao em lotes pequenos
+            System.out.println("\n4. Alterando modelo de todos os veiculos...");
+            veiculos.forEach(v -> v.setModelo(v.getModelo() + " (alterado)"));
+            ResultadoLote alterados = dao.alterarLote("placa", Veiculo::getPlaca, veiculos,
+                    new OpcoesLote().tamanhoLote(300));
+            System.out.println("   " + alterados);
+            verificar(alterados.getAlterados() == QUANTIDADE, "todos alterados");
+            verificar(dao.buscarPorChave("placa", "LTE0042").getModelo().endsWith("(alterado)"),
+                    "valor gravado");
+
+            // 5. Exclusao
+            System.out.println("\n5. Excluindo...");
+            ResultadoLote excluidos = dao.excluirLote("placa", placas, new OpcoesLote().ordenado(false));
+            System.out.println("   " + excluidos);
+            verificar(excluidos.getExcluidos() == QUANTIDADE + 1, "todos excluidos");
+
+        } catch (Exception e) {
+            System.out.println("\n❌ ERRO: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            dao.fecharConexao();
+            Conexao.encerrar();
+        }
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,88 @@
+import dao.CacheLeitura;
+import dao.Consulta;
+import dao.Histograma;
+import dao.Metricas;
+import dao.OpcoesLote;
+import dao.Repositorios;
+import interfaces.IRepositorio;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import modelo.Veiculo;
+
+/**
+ * Teste das metricas: histograma, medicao dos repositorios por metodo e por
+ * origem, publicacao no JMX e resumo em texto. Usa o repositorio em memoria
+ * (definido pelo proprio teste).
+ */
+public class TesteMetricas {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("frota.repositorio", "memoria");
+        System.out.println("=== TESTE DAS METRICAS ===\n");
+
+        System.out.println("1. Histograma...");
+        Histograma histograma = new Histograma();
+        for (long i = 1; i <= 10_000; i++) {
+            histograma.registrar(i * 1_000);   // 1 us a 10 ms
+        }
+        verificar(histograma.getQuantidade() == 10_000 && histograma.getMaximo() == 10_000_000L, "quantidade e maximo");
+        verificar(dentro(histograma.percentil(0.5), 5_000_000L) && dentro(histograma.percentil(0.99), 9_900_000L),
+                "p50 e p99 com erro de ate 12,5%: " + histograma.percentil(0.5) + ", " + histograma.percentil(0.99));
+        verificar(histograma.percentil(1.0) == 10_000_000L && new Histograma().percentil(0.5) == 0,
+                "p100 igual ao maximo, histograma vazio devolve zero");
+
+        System.out.println("\n2. Repositorio medido...");
+        IRepositorio<Veiculo> repositorio = Repositorios.para(Veiculo.class);
+        List<Veiculo> veiculos = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            veiculos.add(new Veiculo(String.format("MET%04d", i), "Fiat", "Uno"));
+        }
+        repositorio.inserirLote(veiculos, new OpcoesLote());
+        Metricas.naOrigem("teste.tela", () -> {
+            repositorio.buscar(new Consulta().igual("marca", "Fiat"));
+            repositorio.buscarPorChave("placa", "MET0001");
+            return null;
+        });
+        repositorio.alterar("placa", "XXX9999", new Veiculo("XXX9999", "A", "B"));
+        Metricas.Medida buscar = Metricas.medida(Metricas.REPOSITORIO, "veiculo.buscar");
+        Metricas.Medida origem = Metricas.medida(Metricas.ORIGEM, "teste.tela");
+        verificar(buscar.getChamadas() == 1 && buscar.getDocumentos() == 30, "chamadas e documentos por metodo");
+        verificar(origem.getChamadas() == 2 && origem.getDocumentos() == 31, "operacoes atribuidas a origem");
+        verificar(Metricas.medida(Metricas.REPOSITORIO, "veiculo.alterar").getAvisos() == 1,
+                "alteracao sem documento contada como aviso");
+        for (int i = 0; i < 150; i++) {
+            Metricas.naOrigem("utilizacao-" + i, () -> repositorio.buscarPorChave("placa", "MET0001"));
+        }
+        verificar(Metricas.medidas(Metricas.ORIGEM).size() <= 101
+                && Metricas.medida(Metricas.ORIGEM, "(outras)").getChamadas() > 0,
+                "origens limitadas, excedentes somadas em (outras)");
+
+        System.out.println("\n3. JMX...");
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        Object chamadas = servidor.getAttribute(
+                new ObjectName("frota:type=Repositorio,colecao=veiculo,metodo=buscar"), "Chamadas");
+        verificar(Long.valueOf(1).equals(chamadas), "medida publicada no JMX");
+        CacheLeitura<String, String> cache = new CacheLeitura<>("teste.metricas", 10, 60);
+        cache.obter("a", k -> "A");
+        cache.obter("a", k -> "A");
+        Object taxa = servidor.getAttribute(new ObjectName("frota:type=Cache,nome=teste.metricas"), "TaxaAcerto");
+        verificar(Double.valueOf(0.5).equals(taxa), "taxa de acerto do cache no JMX");
+
+        System.out.println("\n4. Resumo...");
+        String relatorio = Metricas.relatorio();
+        System.out.println(relatorio);
+        verificar(relatorio.contains("veiculo.buscar") && relatorio.contains("teste.tela")
+                && relatorio.contains("teste.metricas"), "resumo com repositorios, origens e caches");
+    }
+
+    private static boolean dentro(long valor, long esperado) {
+        return Math.abs(valor - esperado) <= esperado * 0.125;
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,105 @@
+import dao.OpcoesLote;
+import dao.Pagina;
+import dao.Repositorios;
+import interfaces.IRepositorio;
+import modelo.Motorista;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Paginacao por chave atravessando valores nulos: utilizacoes em aberto
+ * (dataDevolucao nula) misturadas com devolvidas, em ordem crescente
+ * (nulos primeiro) e decrescente (nulos por ultimo), em paginas pequenas
+ * para que a troca de pagina caia no meio dos nulos.
+ *
+ * Por padrao usa o repositorio em memoria; com -Dfrota.repositorio=mongo
+ * usa o banco veiculos_teste (ou o de -Dfrota.mongo.banco).
+ */
+public class TestePaginacaoNulos {
+
+    private static final int PRIMEIRO_CODIGO = 900_001;
+    private static final int TOTAL = 30;
+    private static int falhas = 0;
+
+    public static void main(String[] args) {
+        if (System.getProperty("frota.repositorio") == null) {
+            System.setProperty("frota.repositorio", "memoria");
+        }
+        if (System.getProperty("frota.mongo.banco") == null) {
+            System.setProperty("frota.mongo.banco", "veiculos_teste");
+        }
+        System.out.println("=== TESTE DE PAGINACAO COM NULOS ("
+                + System.getProperty("frota.repositorio") + ") ===\n");
+
+        IRepositorio<Utilizacao> repositorio = Repositorios.para(Utilizacao.class);
+        List<Integer> codigos = new ArrayList<>();
+        try {
+            LocalDateTime base = LocalDateTime.now().withNano(0).minusDays(1);
+            List<Utilizacao> utilizacoes = new ArrayList<>();
+            for (int i = 0; i < TOTAL; i++) {
+                int codigo = PRIMEIRO_CODIGO + i;
+                codigos.add(codigo);
+                Veiculo veiculo = new Veiculo(String.format("NUL%04d", i), "Fiat", "Uno");
+                Motorista motorista = new Motorista(codigo, "Motorista " + i, String.format("%011d", codigo), "Setor");
+                Utilizacao u = new Utilizacao(codigo, veiculo, motorista, base.plusMinutes(i), null);
+                if (i % 3 == 0) {
+                    // Algumas devolucoes com a mesma data, para o desempate pelo _id
+                    u.setDataDevolucao(base.plusHours(1).plusMinutes(i / 6));
+                }
+                utilizacoes.add(u);
+            }
+            repositorio.inserirLote(utilizacoes, new OpcoesLote());
+
+            System.out.println("1. Ordem crescente (nulos primeiro)...");
+            verificarPaginas(repositorio, true);
+            System.out.println("\n2. Ordem decrescente (nulos por ultimo)...");
+            verificarPaginas(repositorio, false);
+        } finally {
+            repositorio.excluirLote("codigo", codigos, new OpcoesLote());
+            repositorio.fecharConexao();
+        }
+
+        System.out.println();
+        System.out.println(falhas == 0 ? "✅ TODOS OS TESTES PASSARAM" : "❌ " + falhas + " TESTE(S) FALHARAM");
+    }
+
+    private static void verificarPaginas(IRepositorio<Utilizacao> repositorio, boolean crescente) {
+        Set<Integer> vistos = new HashSet<>();
+        List<Utilizacao> ordem = new ArrayList<>();
+        Pagina<Utilizacao> pagina = null;
+        int paginas = 0;
+        do {
+            pagina = repositorio.listarPagina("dataDevolucao", crescente, 4, pagina);
+            for (Utilizacao u : pagina.getItens()) {
+                if (u.getCodigo() >= PRIMEIRO_CODIGO && vistos.add(u.getCodigo())) {
+                    ordem.add(u);
+                }
+            }
+            paginas++;
+        } while (pagina.temProxima() && paginas < 100);
+
+        boolean emOrdem = true;
+        for (int i = 1; i < ordem.size(); i++) {
+            LocalDateTime a = ordem.get(i - 1).getDataDevolucao();
+            LocalDateTime b = ordem.get(i).getDataDevolucao();
+            int c = a == null ? (b == null ? 0 : -1) : (b == null ? 1 : a.compareTo(b));
+            emOrdem &= crescente ? c <= 0 : c >= 0;
+        }
+        verificar(vistos.size() == TOTAL, TOTAL + " utilizacoes lidas em " + paginas + " paginas (lidas: "
+                + vistos.size() + ")");
+        verificar(emOrdem, "nulos e datas na ordem " + (crescente ? "crescente" : "decrescente"));
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        if (!condicao) {
+            falhas++;
+        }
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,65 @@
+import com.mongodb.client.model.Filters;
+import dao.Dao;
+import dao.RegistroLento;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.bson.Document;
+import modelo.Veiculo;
+
+/**
+ * Teste do registro de consultas lentas: forma dos filtros sem valores,
+ * resumo do explain e, com o MongoDB disponivel, a gravacao no arquivo
+ * (limite zero, definido pelo proprio teste).
+ */
+public class TesteRegistroLento {
+
+    public static void main(String[] args) throws Exception {
+        Path pasta = Files.createTempDirectory("frota-lento");
+        System.setProperty("frota.lento.ms", "0");
+        System.setProperty("frota.lento.arquivo", pasta.resolve("lentas.%g.log").toString());
+        System.out.println("=== TESTE DO REGISTRO DE CONSULTAS LENTAS ===\n");
+
+        System.out.println("1. Forma dos filtros...");
+        String periodo = RegistroLento.forma(Filters.and(
+                Filters.gte("dataRetirada", LocalDateTime.now().minusDays(1)),
+                Filters.lte("dataRetirada", LocalDateTime.now())));
+        verificar(periodo.equals("{\"$and\": [{\"dataRetirada\": {\"$gte\": \"?\"}}, {\"dataRetirada\": {\"$lte\": \"?\"}}]}"),
+                "intervalo sem as datas: " + periodo);
+        String ou = RegistroLento.forma(Filters.or(Filters.eq("placa", "ABC1234"),
+                Filters.in("marca", List.of("Fiat", "Ford", "VW"))));
+        verificar(!ou.contains("ABC1234") && !ou.contains("Fiat") && ou.contains("$or") && ou.contains("$in"),
+                "operadores mantidos e valores ocultos: " + ou);
+        verificar(RegistroLento.forma(null).equals("{}"), "sem filtro");
+
+        System.out.println("\n2. Resumo do explain...");
+        Document explain = Document.parse("{queryPlanner: {winningPlan: {stage: 'FETCH', "
+                + "inputStage: {stage: 'IXSCAN', indexName: 'placa_1'}}}, "
+                + "executionStats: {nReturned: 3, totalKeysExamined: 3, totalDocsExamined: 3}}");
+        String resumo = RegistroLento.resumirExplain(explain);
+        verificar(resumo.equals("FETCH > IXSCAN(placa_1) examinados=3 chaves=3 devolvidos=3"), resumo);
+
+        System.out.println("\n3. Arquivo (requer MongoDB)...");
+        Dao<Veiculo> dao = new Dao<>(Veiculo.class);
+        try {
+            dao.filtrar("marca", "Fiat");
+            dao.listarOrdenado("placa", true);
+            Thread.sleep(2_000);   // o explain e feito em segundo plano
+            Path arquivo = pasta.resolve("lentas.0.log");
+            String conteudo = Files.exists(arquivo) ? Files.readString(arquivo) : "";
+            System.out.print(conteudo);
+            verificar(conteudo.contains("veiculo.filtrar") && conteudo.contains("{\"marca\": \"?\"}")
+                    && conteudo.contains("plano="), "filtro registrado com o plano");
+            verificar(conteudo.contains("veiculo.listarOrdenado") && conteudo.contains("\"placa\": 1"),
+                    "ordenacao registrada");
+            verificar(!conteudo.contains("Fiat"), "valores do filtro nao gravados");
+        } finally {
+            dao.fecharConexao();
+        }
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,131 @@
+import dao.Consulta;
+import dao.OpcoesLote;
+import dao.Pagina;
+import dao.RepositorioMemoria;
+import dao.ResultadoLote;
+import excecoes.UtilizacaoException;
+import excecoes.VeiculoDuplicadoException;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import servico.ServicoMotorista;
+import servico.ServicoUsuario;
+import servico.ServicoUtilizacao;
+import servico.ServicoVeiculo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Teste do repositorio em memoria: consultas, indices unicos, paginacao,
+ * lotes e os servicos funcionando sem o MongoDB (-Dfrota.repositorio=memoria,
+ * definido pelo proprio teste).
+ */
+public class TesteRepositorioMemoria {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("frota.repositorio", "memoria");
+        System.out.println("=== TESTE DO REPOSITORIO EM MEMORIA ===\n");
+
+        RepositorioMemoria<Veiculo> repositorio = new RepositorioMemoria<>(Veiculo.class);
+
+        System.out.println("1. Insercao e busca...");
+        List<Veiculo> veiculos = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            veiculos.add(new Veiculo(String.format("MEM%04d", i), i % 2 == 0 ? "Fiat" : "Ford", "Modelo " + i));
+        }
+        ResultadoLote lote = repositorio.inserirLote(veiculos, new OpcoesLote().tamanhoLote(100));
+        verificar(lote.getInseridos() == 250 && repositorio.contar() == 250, "250 veiculos inseridos em lotes");
+        verificar(repositorio.buscarPorChave("placa", "MEM0042").getModelo().equals("Modelo 42"), "busca por placa");
+        verificar(repositorio.contar(new Consulta().igual("marca", "Ford")) == 125, "contagem por marca");
+        verificar(repositorio.buscar(new Consulta().em("placa", List.of("MEM0001", "MEM0002", "XXX0000"))).size() == 2,
+                "busca por lista de placas");
+
+        System.out.println("\n2. Copias, ordenacao, limite e projecao...");
+        repositorio.buscarPorChave("placa", "MEM0000").setMarca("Alterada");
+        verificar(repositorio.buscarPorChave("placa", "MEM0000").getMarca().equals("Fiat"), "leitura devolve copia");
+        List<Veiculo> ultimos = repositorio.buscar(new Consulta().ordenarPor("placa", false).limite(3));
+        verificar(ultimos.size() == 3 && ultimos.get(0).getPlaca().equals("MEM0249"), "ordem decrescente com limite");
+        Veiculo projetado = repositorio.buscarPrimeiro(new Consulta().igual("placa", "MEM0001").campos("placa"));
+        verificar(projetado.getPlaca().equals("MEM0001") && projetado.getMarca().isEmpty(), "projecao por campos");
+
+        System.out.println("\n3. Indice unico...");
+        boolean rejeitado = false;
+        try {
+            repositorio.inserir(new Veiculo("MEM0001", "Outra", "Outro"));
+        } catch (IllegalStateException e) {
+            rejeitado = true;
+        }
+        verificar(rejeitado && repositorio.contar() == 250, "placa duplicada rejeitada");
+        ResultadoLote duplicados = repositorio.inserirLote(
+                List.of(new Veiculo("MEM9000", "A", "A"), new Veiculo("MEM0002", "B", "B"), new Veiculo("MEM9001", "C", "C")),
+                new OpcoesLote().ordenado(false));
+        verificar(duplicados.getInseridos() == 2 && duplicados.getFalhas().size() == 1
+                && duplicados.getFalhas().get(0).getIndice() == 1, "lote nao ordenado continua apos duplicata");
+
+        System.out.println("\n4. Paginacao por chave...");
+        Set<String> vistas = new HashSet<>();
+        Pagina<Veiculo> pagina = null;
+        int paginas = 0;
+        String anterior = "";
+        boolean emOrdem = true;
+        do {
+            pagina = repositorio.listarPagina("placa", true, 40, pagina);
+            for (Veiculo v : pagina.getItens()) {
+                emOrdem &= v.getPlaca().compareTo(anterior) > 0;
+                anterior = v.getPlaca();
+                vistas.add(v.getPlaca());
+            }
+            paginas++;
+        } while (pagina.temProxima());
+        verificar(vistas.size() == 252 && paginas == 7 && emOrdem, "252 veiculos em 7 paginas, sem repeticao");
+        Pagina<Veiculo> fords = repositorio.listarPagina(new Consulta().igual("marca", "Ford"), "placa", false, 200, null);
+        verificar(fords.getItens().size() == 125 && !fords.temProxima(), "pagina com filtro");
+
+        System.out.println("\n5. Servicos sem banco...");
+        ServicoVeiculo servicoVeiculo = new ServicoVeiculo();
+        ServicoMotorista servicoMotorista = new ServicoMotorista();
+        ServicoUsuario servicoUsuario = new ServicoUsuario();
+        ServicoUtilizacao servicoUtilizacao = new ServicoUtilizacao();
+
+        servicoVeiculo.cadastrar(new Veiculo("ABC1234", "Fiat", "Uno"));
+        boolean duplicado = false;
+        try {
+            servicoVeiculo.cadastrar(new Veiculo("ABC1234", "Fiat", "Uno"));
+        } catch (VeiculoDuplicadoException e) {
+            duplicado = true;
+        }
+        verificar(duplicado, "servico rejeita placa duplicada");
+
+        servicoMotorista.cadastrar(new Motorista(0, "Maria", "12345678901", "Frota"));
+        Motorista motorista = servicoMotorista.listarTodos().get(0);
+        verificar(motorista.getCodigo() > 0, "codigo gerado em memoria: " + motorista.getCodigo());
+
+        servicoUsuario.cadastrar(new Usuario(0, "Operador", "operador", "senha"));
+        Usuario operador = servicoUsuario.autenticar("operador", "senha");
+
+        Utilizacao retirada = servicoUtilizacao.registrarRetirada("ABC1234", motorista.getCodigo(), operador);
+        boolean emUso = false;
+        try {
+            servicoUtilizacao.registrarRetirada("ABC1234", motorista.getCodigo(), operador);
+        } catch (UtilizacaoException e) {
+            emUso = true;
+        }
+        verificar(emUso && servicoUtilizacao.veiculoEmUso("ABC1234"), "segunda retirada do mesmo veiculo rejeitada");
+
+        servicoUtilizacao.registrarDevolucao("ABC1234", operador);
+        Utilizacao devolvida = servicoUtilizacao.buscarPorCodigo(retirada.getCodigo());
+        verificar(!devolvida.isEmUso() && devolvida.getMotorista().getNome().equals("Maria"),
+                "devolucao registrada e utilizacao hidratada");
+        servicoUtilizacao.registrarRetirada("ABC1234", motorista.getCodigo(), operador);
+        verificar(servicoUtilizacao.contarTodas() == 2 && servicoUtilizacao.contarEmAberto() == 1,
+                "nova retirada apos a devolucao");
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
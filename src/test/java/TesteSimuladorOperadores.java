@@ -0,0 +1,39 @@
+import ferramentas.GeradorFrota;
+import ferramentas.SimuladorOperadores;
+import java.time.Duration;
+
+/**
+ * Teste do simulador de postos de atendimento: muitos operadores disputando
+ * poucos veiculos nao podem deixar um veiculo com duas utilizacoes em aberto
+ * nem repetir codigos. Usa o repositorio em memoria (definido pelo teste).
+ */
+public class TesteSimuladorOperadores {
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("frota.repositorio", "memoria");
+        System.out.println("=== TESTE DO SIMULADOR DE OPERADORES ===\n");
+
+        new GeradorFrota(1L).veiculos(5).motoristas(20).operadores(4).utilizacoes(0).gerar();
+
+        System.out.println("1. 16 operadores, 5 veiculos, 2 segundos...");
+        SimuladorOperadores.Resultado resultado = new SimuladorOperadores()
+                .operadores(16)
+                .duracao(Duration.ofSeconds(2))
+                .executar();
+        System.out.println(resultado);
+
+        System.out.println("\n2. Medidas...");
+        verificar(resultado.getRetiradas() > 0 && resultado.getDevolucoes() > 0, "retiradas e devolucoes concluidas");
+        verificar(resultado.getConflitos() > 0, "disputas pelo mesmo veiculo recusadas: " + resultado.getConflitos());
+        verificar(resultado.getLatenciaRetirada(0.5) <= resultado.getLatenciaRetirada(0.99), "percentis em ordem");
+
+        System.out.println("\n3. Invariantes...");
+        verificar(resultado.getViolacoes() == 0, "nenhum veiculo com duas utilizacoes em aberto");
+        verificar(resultado.getCodigosDuplicados() == 0, "nenhum codigo repetido");
+        verificar(resultado.getErros() == 0, "nenhum erro inesperado");
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,87 @@
+import controllers.SincronizadorLista;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import modelo.Veiculo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste do sincronizador de listas: uma nova consulta deve alterar apenas as
+ * linhas que mudaram. Nao usa o banco nem abre janelas.
+ */
+public class TesteSincronizador {
+
+    public static void main(String[] args) {
+        System.out.println("=== TESTE DO SINCRONIZADOR DE LISTAS ===\n");
+
+        ObservableList<Veiculo> lista = FXCollections.observableArrayList();
+        SincronizadorLista<Veiculo, String> sincronizador = new SincronizadorLista<>(lista, Veiculo::getPlaca);
+        AtomicInteger alteracoes = new AtomicInteger();
+        lista.addListener((ListChangeListener<Veiculo>) c -> {
+            while (c.next()) {
+                alteracoes.incrementAndGet();
+            }
+        });
+
+        System.out.println("1. Carga inicial...");
+        sincronizador.sincronizar(List.of(veiculo("AAA1111", "Fiat"), veiculo("BBB2222", "Ford"),
+                veiculo("CCC3333", "VW")));
+        verificar(lista.size() == 3, "3 veiculos na lista");
+
+        System.out.println("\n2. Mesma consulta nao altera a lista...");
+        alteracoes.set(0);
+        sincronizador.sincronizar(List.of(veiculo("AAA1111", "Fiat"), veiculo("BBB2222", "Ford"),
+                veiculo("CCC3333", "VW")));
+        verificar(alteracoes.get() == 0, "nenhuma alteracao");
+
+        System.out.println("\n3. Um veiculo alterado...");
+        Veiculo primeiro = lista.get(0);
+        alteracoes.set(0);
+        sincronizador.sincronizar(List.of(veiculo("AAA1111", "Fiat"), veiculo("BBB2222", "GM"),
+                veiculo("CCC3333", "VW")));
+        verificar(alteracoes.get() == 1 && lista.get(1).getMarca().equals("GM"), "apenas a linha alterada");
+        verificar(lista.get(0) == primeiro, "linhas iguais mantidas");
+
+        System.out.println("\n4. Insercao e remocao...");
+        alteracoes.set(0);
+        sincronizador.sincronizar(List.of(veiculo("AAA1111", "Fiat"), veiculo("ABC1234", "Renault"),
+                veiculo("CCC3333", "VW")));
+        verificar(alteracoes.get() == 2, "uma remocao e uma insercao");
+        verificar(placas(lista).equals("AAA1111,ABC1234,CCC3333"), "ordem da consulta");
+
+        System.out.println("\n5. Ordem alterada...");
+        sincronizador.sincronizar(List.of(veiculo("CCC3333", "VW"), veiculo("AAA1111", "Fiat"),
+                veiculo("ABC1234", "Renault")));
+        verificar(placas(lista).equals("CCC3333,AAA1111,ABC1234"), "lista reordenada");
+
+        System.out.println("\n6. Aplicar e remover um item...");
+        sincronizador.aplicar(veiculo("DDD4444", "Kia"));
+        sincronizador.aplicar(veiculo("AAA1111", "Fiat 2"));
+        sincronizador.remover("CCC3333");
+        verificar(placas(lista).equals("AAA1111,ABC1234,DDD4444")
+                && lista.get(0).getMarca().equals("Fiat 2"), "item acrescentado, substituido e removido");
+
+        System.out.println("\n7. Proxima pagina...");
+        sincronizador.acrescentar(List.of(veiculo("DDD4444", "Kia"), veiculo("EEE5555", "BYD")));
+        verificar(placas(lista).equals("AAA1111,ABC1234,DDD4444,EEE5555"), "apenas itens novos acrescentados");
+        verificar(sincronizador.contem("EEE5555") && !sincronizador.contem("CCC3333"), "busca por chave");
+    }
+
+    private static Veiculo veiculo(String placa, String marca) {
+        return new Veiculo(placa, marca, "Modelo");
+    }
+
+    private static String placas(List<Veiculo> lista) {
+        StringBuilder sb = new StringBuilder();
+        for (Veiculo v : lista) {
+            sb.append(sb.length() > 0 ? "," : "").append(v.getPlaca());
+        }
+        return sb.toString();
+    }
+
+    private static void verificar(boolean condicao, String descricao) {
+        System.out.println((condicao ? "   ✅ " : "   ❌ ") + descricao);
+    }
+}
@@ -0,0 +1,49 @@
+package ferramentas;
+
+import dao.Conexao;
+
+/**
+ * Escolhe onde as ferramentas de carga (GeradorFrota, SimuladorOperadores)
+ * gravam seus dados sinteticos, para que nunca usem o banco de producao
+ * por engano:
+ * - sem -Dfrota.repositorio, os dados ficam em memoria;
+ * - com -Dfrota.repositorio=mongo e sem -Dfrota.mongo.banco, e usado um
+ *   banco proprio da ferramenta;
+ * - o banco de producao (Conexao.BANCO_PADRAO) so e aceito com
+ *   -Dfrota.ferramentas.producao=true.
+ *
+ * Deve ser chamado no inicio do main, antes de qualquer repositorio ser
+ * criado (as propriedades sao lidas uma unica vez).
+ */
+final class BancoSeparado {
+
+    private BancoSeparado() {
+    }
+
+    /**
+     * Ajusta as propriedades de sistema do repositorio e do banco.
+     *
+     * @param bancoProprio Banco usado quando nenhum e informado, ex: "veiculos_carga"
+     * @return false se o banco escolhido e o de producao sem autorizacao explicita
+     */
+    static boolean preparar(String bancoProprio) {
+        if (System.getProperty("frota.repositorio") == null) {
+            System.setProperty("frota.repositorio", "memoria");
+            System.out.println("Dados em memoria (use -Dfrota.repositorio=mongo para gravar no MongoDB).");
+        }
+        if (System.getProperty("frota.repositorio").trim().equalsIgnoreCase("memoria")) {
+            return true;
+        }
+        if (System.getProperty("frota.mongo.banco") == null) {
+            System.setProperty("frota.mongo.banco", bancoProprio);
+        }
+        String banco = System.getProperty("frota.mongo.banco");
+        if (banco.equals(Conexao.BANCO_PADRAO) && !Boolean.getBoolean("frota.ferramentas.producao")) {
+            System.err.println("ERRO: O banco '" + banco + "' e o de producao e receberia dados sinteticos "
+                    + "(veiculos, motoristas e operadores com senhas conhecidas). Use outro banco ou confirme "
+                    + "com -Dfrota.ferramentas.producao=true.");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,512 @@
+package ferramentas;
+
+import dao.Conexao;
+import dao.GerenciadorIndices;
+import dao.OpcoesLote;
+import dao.Repositorios;
+import dao.ResultadoLote;
+import dao.Sequencia;
+import interfaces.IRepositorio;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+
+/**
+ * Gera uma frota sintetica (veiculos, motoristas, operadores e historico de
+ * utilizacoes) para testes de carga e medicoes de desempenho.
+ *
+ * A geracao e deterministica: a mesma semente e a mesma configuracao produzem
+ * sempre os mesmos dados. Os codigos vem das sequencias (ver Sequencia), de
+ * modo que so coincidem entre execucoes quando o banco comeca vazio.
+ *
+ * Caracteristicas dos dados:
+ * - placas unicas no formato antigo (ABC1234) e Mercosul (ABC1D23), validas
+ *   para Veiculo.isPlacaValida; CNHs unicas de 11 digitos;
+ * - uso concentrado: o veiculo de posicao k recebe utilizacoes na proporcao
+ *   de 1/k^0.8 (poucos veiculos muito usados, muitos pouco usados), e o
+ *   mesmo vale para os motoristas;
+ * - o uso cresce ao longo do periodo (o ultimo ano tem mais utilizacoes que
+ *   o primeiro), as retiradas ficam no horario comercial e a duracao segue
+ *   uma distribuicao log-normal (mediana de 3 horas, algumas de dias);
+ * - as utilizacoes de um mesmo veiculo nunca se sobrepoem; a ultima de cerca
+ *   de 10% dos veiculos fica em aberto.
+ *
+ * As utilizacoes sao produzidas em ordem de retirada (codigos crescentes no
+ * tempo) sem manter o historico em memoria e gravadas com inserirLote nao
+ * ordenado, no formato de referencias (ver HidratadorUtilizacao).
+ */
+public class GeradorFrota {
+
+    private static final double ASSIMETRIA = 0.8;
+    private static final double CRESCIMENTO = 1.0;   // uso no fim do periodo / uso no inicio - 1
+    private static final double FRACAO_MERCOSUL = 0.4;
+    private static final double FRACAO_EM_ABERTO = 0.1;
+    private static final double MEDIANA_DURACAO_MINUTOS = 180;
+
+    private static final String[][] MODELOS = {
+        {"Fiat", "Strada"}, {"Fiat", "Mobi"}, {"Fiat", "Toro"}, {"Volkswagen", "Gol"},
+        {"Volkswagen", "Saveiro"}, {"Volkswagen", "Amarok"}, {"Chevrolet", "Onix"},
+        {"Chevrolet", "S10"}, {"Toyota", "Hilux"}, {"Toyota", "Corolla"}, {"Ford", "Ranger"},
+        {"Renault", "Kwid"}, {"Renault", "Master"}, {"Hyundai", "HB20"}, {"Mercedes-Benz", "Sprinter"}
+    };
+    private static final String[] NOMES = {
+        "Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela", "Henrique", "Isabela",
+        "Joao", "Karina", "Lucas", "Mariana", "Nelson", "Olivia", "Paulo", "Renata", "Sergio",
+        "Tatiana", "Vitor"
+    };
+    private static final String[] SOBRENOMES = {
+        "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira",
+        "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes"
+    };
+    private static final String[] SETORES = {
+        "Administrativo", "Manutencao", "Obras", "Saude", "Educacao", "Transporte", "Fiscalizacao"
+    };
+
+    private final long semente;
+    private int veiculos = 500;
+    private int motoristas = 200;
+    private int operadores = 10;
+    private long utilizacoes = 100_000;
+    private LocalDate inicio = LocalDate.of(2020, 1, 1);
+    private LocalDate fim = LocalDate.of(2025, 1, 1);
+    private int tamanhoLote = OpcoesLote.TAMANHO_LOTE_PADRAO;
+
+    /**
+     * Resultado de uma geracao.
+     */
+    public static final class Resultado {
+        private final long inicio = System.nanoTime();
+        private long duracaoNanos;
+        private int veiculos;
+        private int motoristas;
+        private int operadores;
+        private long utilizacoes;
+        private long emAberto;
+        private long falhas;
+
+        void finalizar() {
+            duracaoNanos = System.nanoTime() - inicio;
+        }
+
+        public int getVeiculos() {
+            return veiculos;
+        }
+
+        public int getMotoristas() {
+            return motoristas;
+        }
+
+        public int getOperadores() {
+            return operadores;
+        }
+
+        public long getUtilizacoes() {
+            return utilizacoes;
+        }
+
+        /**
+         * Utilizacoes gravadas sem devolucao.
+         */
+        public long getEmAberto() {
+            return emAberto;
+        }
+
+        /**
+         * Registros rejeitados pelo banco (ex: placa ou CNH ja cadastrada).
+         */
+        public long getFalhas() {
+            return falhas;
+        }
+
+        public long getDuracaoMillis() {
+            return duracaoNanos / 1_000_000;
+        }
+
+        /**
+         * Registros gravados por segundo.
+         */
+        public double getTaxa() {
+            long total = veiculos + motoristas + operadores + utilizacoes;
+            return duracaoNanos > 0 ? total * 1_000_000_000.0 / duracaoNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d veiculos, %d motoristas, %d operadores, %d utilizacoes (%d em aberto), "
+                    + "%d falhas em %d ms (%.0f registros/s)", veiculos, motoristas, operadores, utilizacoes,
+                    emAberto, falhas, getDuracaoMillis(), getTaxa());
+        }
+    }
+
+    /**
+     * Proxima utilizacao de um veiculo. Cada veiculo tem seu proprio gerador
+     * aleatorio, derivado da semente, para que o resultado nao dependa da
+     * ordem em que as utilizacoes sao intercaladas.
+     */
+    private static final class Historico {
+        final String placa;
+        final int quantidade;
+        final boolean terminaEmAberto;
+        final SplittableRandom aleatorio;
+        int indice = 0;
+        long livreApos = 0;   // minuto a partir do qual o veiculo esta disponivel
+        Utilizacao proxima;
+
+        Historico(String placa, int quantidade, SplittableRandom aleatorio) {
+            this.placa = placa;
+            this.quantidade = quantidade;
+            this.aleatorio = aleatorio;
+            this.terminaEmAberto = aleatorio.nextDouble() < FRACAO_EM_ABERTO;
+        }
+    }
+
+    /**
+     * @param semente Semente do gerador aleatorio
+     */
+    public GeradorFrota(long semente) {
+        this.semente = semente;
+    }
+
+    public GeradorFrota veiculos(int veiculos) {
+        this.veiculos = veiculos;
+        return this;
+    }
+
+    public GeradorFrota motoristas(int motoristas) {
+        this.motoristas = motoristas;
+        return this;
+    }
+
+    public GeradorFrota operadores(int operadores) {
+        this.operadores = operadores;
+        return this;
+    }
+
+    public GeradorFrota utilizacoes(long utilizacoes) {
+        this.utilizacoes = utilizacoes;
+        return this;
+    }
+
+    /**
+     * @param inicio Data da primeira utilizacao possivel
+     * @param fim Data limite (exclusiva) das utilizacoes
+     */
+    public GeradorFrota periodo(LocalDate inicio, LocalDate fim) {
+        if (!fim.isAfter(inicio)) {
+            throw new IllegalArgumentException("Periodo invalido: " + inicio + " a " + fim);
+        }
+        this.inicio = inicio;
+        this.fim = fim;
+        return this;
+    }
+
+    public GeradorFrota tamanhoLote(int tamanhoLote) {
+        this.tamanhoLote = tamanhoLote;
+        return this;
+    }
+
+    /**
+     * Gera e grava todos os dados no repositorio configurado (ver Repositorios).
+     *
+     * @return Quantidades gravadas e tempo total
+     */
+    public Resultado gerar() {
+        if (veiculos <= 0 || motoristas <= 0 || operadores <= 0 || utilizacoes < 0) {
+            throw new IllegalArgumentException("Quantidades invalidas para a geracao");
+        }
+        SplittableRandom raiz = new SplittableRandom(semente);
+        Resultado resultado = new Resultado();
+
+        List<Veiculo> frota = gerarVeiculos(raiz.split());
+        List<Motorista> condutores = gerarMotoristas(raiz.split());
+        List<Usuario> equipe = gerarOperadores();
+        resultado.veiculos = gravar(Veiculo.class, frota, resultado);
+        resultado.motoristas = gravar(Motorista.class, condutores, resultado);
+        resultado.operadores = gravar(Usuario.class, equipe, resultado);
+
+        int[] codigosMotoristas = condutores.stream().mapToInt(Motorista::getCodigo).toArray();
+        int[] codigosOperadores = equipe.stream().mapToInt(Usuario::getCodigo).toArray();
+        gerarUtilizacoes(raiz.split(), frota, codigosMotoristas, codigosOperadores, resultado);
+
+        resultado.finalizar();
+        return resultado;
+    }
+
+    // ---------------------------------------------------------------------
+    // Cadastros
+    // ---------------------------------------------------------------------
+
+    private List<Veiculo> gerarVeiculos(SplittableRandom aleatorio) {
+        Set<String> placas = new HashSet<>();
+        List<Veiculo> lista = new ArrayList<>(veiculos);
+        while (lista.size() < veiculos) {
+            String placa = placa(aleatorio);
+            if (placas.add(placa)) {
+                String[] modelo = MODELOS[aleatorio.nextInt(MODELOS.length)];
+                lista.add(new Veiculo(placa, modelo[0], modelo[1]));
+            }
+        }
+        return lista;
+    }
+
+    private static String placa(SplittableRandom aleatorio) {
+        StringBuilder sb = new StringBuilder(7);
+        for (int i = 0; i < 3; i++) {
+            sb.append((char) ('A' + aleatorio.nextInt(26)));
+        }
+        sb.append(aleatorio.nextInt(10));
+        if (aleatorio.nextDouble() < FRACAO_MERCOSUL) {
+            sb.append((char) ('A' + aleatorio.nextInt(26)));
+        } else {
+            sb.append(aleatorio.nextInt(10));
+        }
+        sb.append(aleatorio.nextInt(10)).append(aleatorio.nextInt(10));
+        return sb.toString();
+    }
+
+    private List<Motorista> gerarMotoristas(SplittableRandom aleatorio) {
+        Sequencia sequencia = Sequencia.para(Motorista.class);
+        Set<String> cnhs = new HashSet<>();
+        List<Motorista> lista = new ArrayList<>(motoristas);
+        while (lista.size() < motoristas) {
+            // 11 digitos, sem zero a esquerda
+            String cnh = Long.toString(10_000_000_000L + aleatorio.nextLong(90_000_000_000L));
+            if (cnhs.add(cnh)) {
+                String nome = NOMES[aleatorio.nextInt(NOMES.length)] + " "
+                        + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)] + " "
+                        + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)];
+                lista.add(new Motorista(sequencia.proximo(), nome, cnh, SETORES[aleatorio.nextInt(SETORES.length)]));
+            }
+        }
+        return lista;
+    }
+
+    private List<Usuario> gerarOperadores() {
+        Sequencia sequencia = Sequencia.para(Usuario.class);
+        List<Usuario> lista = new ArrayList<>(operadores);
+        for (int i = 1; i <= operadores; i++) {
+            lista.add(new Usuario(sequencia.proximo(), "Operador " + i, "gerador" + i, "senha" + i));
+        }
+        return lista;
+    }
+
+    private <T> int gravar(Class<T> classe, List<T> objetos, Resultado resultado) {
+        IRepositorio<T> repositorio = Repositorios.para(classe);
+        try {
+            ResultadoLote lote = repositorio.inserirLote(objetos,
+                    new OpcoesLote().ordenado(false).tamanhoLote(tamanhoLote));
+            resultado.falhas += lote.getTotal() - lote.getInseridos();
+            return lote.getInseridos();
+        } finally {
+            repositorio.fecharConexao();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Historico de utilizacoes
+    // ---------------------------------------------------------------------
+
+    private void gerarUtilizacoes(SplittableRandom aleatorio, List<Veiculo> frota, int[] codigosMotoristas,
+                                  int[] codigosOperadores, Resultado resultado) {
+        double[] pesoMotoristas = acumulado(codigosMotoristas.length);
+        long[] quantidades = distribuir(utilizacoes, frota.size());
+
+        // Intercala os historicos dos veiculos em ordem de retirada
+        PriorityQueue<Historico> fila = new PriorityQueue<>((a, b) -> {
+            int c = a.proxima.getDataRetirada().compareTo(b.proxima.getDataRetirada());
+            return c != 0 ? c : a.placa.compareTo(b.placa);
+        });
+        for (int i = 0; i < frota.size(); i++) {
+            Historico historico = new Historico(frota.get(i).getPlaca(), (int) quantidades[i], aleatorio.split());
+            if (avancar(historico, pesoMotoristas, codigosMotoristas, codigosOperadores)) {
+                fila.add(historico);
+            }
+        }
+
+        Sequencia sequencia = Sequencia.para(Utilizacao.class);
+        IRepositorio<Utilizacao> repositorio = Repositorios.para(Utilizacao.class);
+        try {
+            List<Utilizacao> lote = new ArrayList<>(tamanhoLote);
+            while (!fila.isEmpty()) {
+                Historico historico = fila.poll();
+                Utilizacao u = historico.proxima;
+                u.setCodigo(sequencia.proximo());
+                lote.add(u);
+                if (u.isEmUso()) {
+                    resultado.emAberto++;
+                }
+                if (avancar(historico, pesoMotoristas, codigosMotoristas, codigosOperadores)) {
+                    fila.add(historico);
+                }
+                if (lote.size() == tamanhoLote) {
+                    gravarUtilizacoes(repositorio, lote, resultado);
+                    lote = new ArrayList<>(tamanhoLote);
+                }
+            }
+            if (!lote.isEmpty()) {
+                gravarUtilizacoes(repositorio, lote, resultado);
+            }
+        } finally {
+            repositorio.fecharConexao();
+        }
+    }
+
+    private void gravarUtilizacoes(IRepositorio<Utilizacao> repositorio, List<Utilizacao> lote, Resultado resultado) {
+        ResultadoLote gravado = repositorio.inserirLote(lote, new OpcoesLote().ordenado(false).tamanhoLote(tamanhoLote));
+        resultado.utilizacoes += gravado.getInseridos();
+        resultado.falhas += gravado.getTotal() - gravado.getInseridos();
+    }
+
+    /**
+     * Prepara a proxima utilizacao de um veiculo.
+     *
+     * O periodo e dividido em tantas faixas quantas forem as utilizacoes do
+     * veiculo (faixas mais curtas no fim, ver instante); cada utilizacao
+     * comeca na primeira metade da sua faixa e termina antes da seguinte.
+     *
+     * @return false se o historico do veiculo terminou
+     */
+    private boolean avancar(Historico h, double[] pesoMotoristas, int[] codigosMotoristas, int[] codigosOperadores) {
+        if (h.indice >= h.quantidade) {
+            h.proxima = null;
+            return false;
+        }
+        SplittableRandom aleatorio = h.aleatorio;
+        long totalMinutos = ChronoUnit.MINUTES.between(inicio.atStartOfDay(), fim.atStartOfDay());
+        long faixaInicio = instante((double) h.indice / h.quantidade, totalMinutos);
+        long faixaFim = instante((double) (h.indice + 1) / h.quantidade, totalMinutos);
+
+        long retirada = faixaInicio + aleatorio.nextLong(Math.max(1, (faixaFim - faixaInicio) / 2));
+        if (faixaFim - faixaInicio >= 2 * 24 * 60) {
+            // Faixa longa o bastante: retirada no horario comercial do mesmo dia ou do seguinte
+            long dia = retirada - retirada % (24 * 60);
+            retirada = dia + horarioComercial(aleatorio);
+            if (retirada < faixaInicio) {
+                retirada += 24 * 60;
+            }
+        }
+        // Faixas de poucos minutos (veiculos muito usados): apenas apos a devolucao anterior
+        retirada = Math.max(retirada, h.livreApos);
+        long duracao = Math.round(Math.exp(Math.log(MEDIANA_DURACAO_MINUTOS) + 0.9 * aleatorio.nextGaussian()));
+        long devolucao = Math.max(retirada + 1, Math.min(retirada + Math.max(10, duracao), faixaFim - 1));
+        h.livreApos = devolucao + 1;
+
+        LocalDateTime base = inicio.atStartOfDay();
+        int operador = codigosOperadores[aleatorio.nextInt(codigosOperadores.length)];
+        boolean emAberto = h.terminaEmAberto && h.indice == h.quantidade - 1;
+        h.proxima = new Utilizacao(0, new Veiculo(h.placa, null, null),
+                new Motorista(codigosMotoristas[sortear(pesoMotoristas, aleatorio)], null, null, null),
+                base.plusMinutes(retirada), emAberto ? null : base.plusMinutes(devolucao),
+                new Usuario(operador, null, null, null),
+                emAberto ? null : new Usuario(codigosOperadores[aleatorio.nextInt(codigosOperadores.length)],
+                        null, null, null));
+        h.indice++;
+        return true;
+    }
+
+    /**
+     * Converte uma fracao das utilizacoes (0 a 1) no minuto do periodo em que
+     * ela ocorre, com densidade crescendo linearmente de 1 a 1 + CRESCIMENTO.
+     */
+    private static long instante(double fracao, long totalMinutos) {
+        double g = CRESCIMENTO;
+        double x = (-1 + Math.sqrt(1 + 2 * g * fracao * (1 + g / 2))) / g;
+        return (long) (Math.min(1.0, x) * totalMinutos);
+    }
+
+    /**
+     * Minuto do dia de uma retirada: entre 7h e 18h, com mais retiradas no
+     * inicio da manha.
+     */
+    private static long horarioComercial(SplittableRandom aleatorio) {
+        double u = aleatorio.nextDouble();
+        return 7 * 60 + (long) (u * u * 11 * 60);
+    }
+
+    /**
+     * Divide o total entre n itens na proporcao 1/k^ASSIMETRIA.
+     */
+    private static long[] distribuir(long total, int n) {
+        double[] pesos = new double[n];
+        double soma = 0;
+        for (int k = 0; k < n; k++) {
+            pesos[k] = 1.0 / Math.pow(k + 1, ASSIMETRIA);
+            soma += pesos[k];
+        }
+        long[] quantidades = new long[n];
+        long distribuidos = 0;
+        for (int k = 0; k < n; k++) {
+            quantidades[k] = (long) Math.floor(total * pesos[k] / soma);
+            distribuidos += quantidades[k];
+        }
+        for (int k = 0; distribuidos < total; k = (k + 1) % n) {
+            quantidades[k]++;
+            distribuidos++;
+        }
+        return quantidades;
+    }
+
+    /**
+     * Pesos acumulados (normalizados) na proporcao 1/k^ASSIMETRIA, para sortear.
+     */
+    private static double[] acumulado(int n) {
+        double[] acumulado = new double[n];
+        double soma = 0;
+        for (int k = 0; k < n; k++) {
+            soma += 1.0 / Math.pow(k + 1, ASSIMETRIA);
+            acumulado[k] = soma;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulado[k] /= soma;
+        }
+        return acumulado;
+    }
+
+    private static int sortear(double[] acumulado, SplittableRandom aleatorio) {
+        int posicao = Arrays.binarySearch(acumulado, aleatorio.nextDouble());
+        return Math.min(acumulado.length - 1, posicao >= 0 ? posicao : -posicao - 1);
+    }
+
+    /**
+     * Gera uma frota pela linha de comando: em memoria ou, com
+     * -Dfrota.repositorio=mongo, no banco "veiculos_gerado" (ver BancoSeparado).
+     *
+     * Uso: GeradorFrota utilizacoes [veiculos] [motoristas] [semente]
+     *
+     * @param args quantidades e semente
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Uso: GeradorFrota <utilizacoes> [veiculos] [motoristas] [semente]");
+            System.exit(1);
+        }
+        if (!BancoSeparado.preparar("veiculos_gerado")) {
+            System.exit(1);
+        }
+        GerenciadorIndices.garantirIndices();
+        GeradorFrota gerador = new GeradorFrota(args.length > 3 ? Long.parseLong(args[3]) : 42L)
+                .utilizacoes(Long.parseLong(args[0]));
+        if (args.length > 1) {
+            gerador.veiculos(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            gerador.motoristas(Integer.parseInt(args[2]));
+        }
+        try {
+            System.out.println(gerador.gerar());
+        } finally {
+            Conexao.encerrar();
+        }
+    }
+}
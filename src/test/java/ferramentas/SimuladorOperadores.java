@@ -0,0 +1,430 @@
+package ferramentas;
+
+import dao.Conexao;
+import dao.GerenciadorIndices;
+import dao.Consulta;
+import dao.Repositorios;
+import excecoes.UtilizacaoException;
+import interfaces.IRepositorio;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import modelo.Motorista;
+import modelo.Usuario;
+import modelo.Utilizacao;
+import modelo.Veiculo;
+import servico.ServicoUtilizacao;
+
+/**
+ * Simula varios postos de atendimento registrando retiradas e devolucoes ao
+ * mesmo tempo, sem interface grafica.
+ *
+ * Cada operador e uma thread com o seu proprio ServicoUtilizacao. Em cada
+ * operacao o operador sorteia um veiculo da frota; se o veiculo estiver em
+ * uso registra a devolucao, senao a retirada. Com uma frota pequena e muitos
+ * operadores, dois postos disputam o mesmo veiculo com frequencia.
+ *
+ * Medidas:
+ * - vazao (operacoes concluidas por segundo) e latencia (p50/p90/p99/max)
+ *   de retiradas e devolucoes;
+ * - conflitos: operacoes recusadas porque outro posto agiu antes (veiculo
+ *   ja em uso, devolucao ja registrada) - esperados, e o sistema deve
+ *   recusa-los sem corromper os dados;
+ * - codigos duplicados: o mesmo codigo entregue a duas retiradas ou recusado
+ *   pelo indice unico de codigo;
+ * - violacoes: ao final, veiculos com mais de uma utilizacao em aberto no
+ *   banco. Deve ser sempre zero.
+ *
+ * Os veiculos, motoristas e operadores precisam estar cadastrados (ver
+ * GeradorFrota). A frota pode ser limitada aos N primeiros veiculos por placa.
+ */
+public class SimuladorOperadores {
+
+    private int operadores = 50;
+    private Duration duracao = Duration.ofSeconds(30);
+    private Duration pausaMaxima = Duration.ZERO;
+    private int veiculos = 0;
+    private long semente = 42L;
+
+    /**
+     * Latencias de um tipo de operacao, em nanossegundos.
+     */
+    private static final class Latencias {
+        private long[] valores = new long[1024];
+        private int quantidade = 0;
+
+        void registrar(long nanos) {
+            if (quantidade == valores.length) {
+                valores = Arrays.copyOf(valores, quantidade * 2);
+            }
+            valores[quantidade++] = nanos;
+        }
+
+        void acrescentar(Latencias outras) {
+            for (int i = 0; i < outras.quantidade; i++) {
+                registrar(outras.valores[i]);
+            }
+        }
+
+        void ordenar() {
+            Arrays.sort(valores, 0, quantidade);
+        }
+
+        /**
+         * @param fracao Entre 0 e 1 (ex: 0.99); as latencias devem estar ordenadas
+         * @return Latencia em milissegundos
+         */
+        double percentil(double fracao) {
+            if (quantidade == 0) {
+                return 0;
+            }
+            int posicao = (int) Math.ceil(fracao * quantidade) - 1;
+            return valores[Math.max(0, Math.min(quantidade - 1, posicao))] / 1_000_000.0;
+        }
+
+        String resumo() {
+            return String.format("%d ops, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    quantidade, percentil(0.50), percentil(0.90), percentil(0.99), percentil(1.0));
+        }
+    }
+
+    /**
+     * Contadores de um operador (somados ao final).
+     */
+    private static final class Contagem {
+        final Latencias retiradas = new Latencias();
+        final Latencias devolucoes = new Latencias();
+        long conflitos;
+        long codigosDuplicados;
+        long erros;
+        String ultimoErro;
+    }
+
+    /**
+     * Resultado de uma simulacao.
+     */
+    public static final class Resultado {
+        private final int operadores;
+        private final int veiculos;
+        private final Latencias retiradas = new Latencias();
+        private final Latencias devolucoes = new Latencias();
+        private long conflitos;
+        private long codigosDuplicados;
+        private long erros;
+        private String ultimoErro;
+        private long violacoes;
+        private long duracaoNanos;
+
+        Resultado(int operadores, int veiculos) {
+            this.operadores = operadores;
+            this.veiculos = veiculos;
+        }
+
+        void somar(Contagem contagem) {
+            retiradas.acrescentar(contagem.retiradas);
+            devolucoes.acrescentar(contagem.devolucoes);
+            conflitos += contagem.conflitos;
+            codigosDuplicados += contagem.codigosDuplicados;
+            erros += contagem.erros;
+            if (contagem.ultimoErro != null) {
+                ultimoErro = contagem.ultimoErro;
+            }
+        }
+
+        public long getRetiradas() {
+            return retiradas.quantidade;
+        }
+
+        public long getDevolucoes() {
+            return devolucoes.quantidade;
+        }
+
+        /**
+         * Operacoes recusadas porque outro operador agiu antes sobre o mesmo veiculo.
+         */
+        public long getConflitos() {
+            return conflitos;
+        }
+
+        public long getCodigosDuplicados() {
+            return codigosDuplicados;
+        }
+
+        /**
+         * Falhas inesperadas (nao sao conflitos nem codigos duplicados).
+         */
+        public long getErros() {
+            return erros;
+        }
+
+        /**
+         * Veiculos com mais de uma utilizacao em aberto ao final.
+         */
+        public long getViolacoes() {
+            return violacoes;
+        }
+
+        /**
+         * Operacoes concluidas (retiradas + devolucoes) por segundo.
+         */
+        public double getVazao() {
+            return duracaoNanos > 0 ? (getRetiradas() + getDevolucoes()) * 1_000_000_000.0 / duracaoNanos : 0;
+        }
+
+        /**
+         * Conflitos por tentativa.
+         */
+        public double getTaxaConflitos() {
+            long tentativas = getRetiradas() + getDevolucoes() + conflitos + codigosDuplicados + erros;
+            return tentativas > 0 ? (double) conflitos / tentativas : 0;
+        }
+
+        /**
+         * Latencia de retirada em milissegundos.
+         *
+         * @param fracao Percentil entre 0 e 1 (ex: 0.99)
+         */
+        public double getLatenciaRetirada(double fracao) {
+            return retiradas.percentil(fracao);
+        }
+
+        /**
+         * Latencia de devolucao em milissegundos.
+         *
+         * @param fracao Percentil entre 0 e 1 (ex: 0.99)
+         */
+        public double getLatenciaDevolucao(double fracao) {
+            return devolucoes.percentil(fracao);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d operadores, %d veiculos, %.1f s%n", operadores, veiculos,
+                    duracaoNanos / 1_000_000_000.0));
+            sb.append(String.format("Vazao: %.0f operacoes/s%n", getVazao()));
+            sb.append("Retiradas:  ").append(retiradas.resumo()).append(System.lineSeparator());
+            sb.append("Devolucoes: ").append(devolucoes.resumo()).append(System.lineSeparator());
+            sb.append(String.format("Conflitos: %d (%.1f%% das tentativas)%n", conflitos, getTaxaConflitos() * 100));
+            sb.append("Codigos duplicados: ").append(codigosDuplicados).append(System.lineSeparator());
+            sb.append("Erros: ").append(erros);
+            if (ultimoErro != null) {
+                sb.append(" (ultimo: ").append(ultimoErro).append(')');
+            }
+            sb.append(System.lineSeparator());
+            sb.append("Veiculos com mais de uma utilizacao em aberto: ").append(violacoes);
+            return sb.toString();
+        }
+    }
+
+    public SimuladorOperadores operadores(int operadores) {
+        this.operadores = operadores;
+        return this;
+    }
+
+    public SimuladorOperadores duracao(Duration duracao) {
+        this.duracao = duracao;
+        return this;
+    }
+
+    /**
+     * Pausa aleatoria (de zero ate o valor informado) entre as operacoes de
+     * cada operador. Zero (padrao) = sem pausa, carga maxima.
+     */
+    public SimuladorOperadores pausaMaxima(Duration pausaMaxima) {
+        this.pausaMaxima = pausaMaxima;
+        return this;
+    }
+
+    /**
+     * Limita a frota aos N primeiros veiculos (por placa). Zero (padrao) = todos.
+     */
+    public SimuladorOperadores veiculos(int veiculos) {
+        this.veiculos = veiculos;
+        return this;
+    }
+
+    public SimuladorOperadores semente(long semente) {
+        this.semente = semente;
+        return this;
+    }
+
+    /**
+     * Executa a simulacao no repositorio configurado (ver Repositorios).
+     *
+     * @return Medidas da simulacao
+     * @throws IllegalStateException Se nao houver veiculos, motoristas ou usuarios cadastrados
+     * @throws InterruptedException Se a thread for interrompida aguardando os operadores
+     */
+    public Resultado executar() throws InterruptedException {
+        List<String> placas = new ArrayList<>();
+        int[] motoristas;
+        List<Usuario> usuarios;
+        IRepositorio<Veiculo> daoVeiculo = Repositorios.para(Veiculo.class);
+        IRepositorio<Motorista> daoMotorista = Repositorios.para(Motorista.class);
+        IRepositorio<Usuario> daoUsuario = Repositorios.para(Usuario.class);
+        try {
+            Consulta frota = new Consulta().ordenarPor("placa", true).campos("placa");
+            if (veiculos > 0) {
+                frota.limite(veiculos);
+            }
+            daoVeiculo.buscar(frota).forEach(v -> placas.add(v.getPlaca()));
+            motoristas = daoMotorista.buscar(new Consulta().campos("codigo")).stream()
+                    .mapToInt(Motorista::getCodigo).toArray();
+            usuarios = daoUsuario.buscar(new Consulta().excluirCampos("senha"));
+        } finally {
+            daoVeiculo.fecharConexao();
+            daoMotorista.fecharConexao();
+            daoUsuario.fecharConexao();
+        }
+        if (placas.isEmpty() || motoristas.length == 0 || usuarios.isEmpty()) {
+            throw new IllegalStateException("A simulacao precisa de veiculos, motoristas e usuarios cadastrados");
+        }
+
+        Resultado resultado = new Resultado(operadores, placas.size());
+        Set<Integer> codigosEntregues = ConcurrentHashMap.newKeySet();
+        SplittableRandom raiz = new SplittableRandom(semente);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService postos = Executors.newFixedThreadPool(operadores);
+        List<Future<Contagem>> contagens = new ArrayList<>();
+        for (int i = 0; i < operadores; i++) {
+            SplittableRandom aleatorio = raiz.split();
+            Usuario operador = usuarios.get(i % usuarios.size());
+            contagens.add(postos.submit(() -> operar(aleatorio, operador, placas, motoristas,
+                    codigosEntregues, largada)));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        postos.shutdown();
+        if (!postos.awaitTermination(duracao.toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+            postos.shutdownNow();
+        }
+        resultado.duracaoNanos = System.nanoTime() - inicio;
+        for (Future<Contagem> contagem : contagens) {
+            try {
+                resultado.somar(contagem.get());
+            } catch (Exception e) {
+                resultado.erros++;
+                resultado.ultimoErro = e.toString();
+            }
+        }
+        resultado.retiradas.ordenar();
+        resultado.devolucoes.ordenar();
+        resultado.violacoes = contarViolacoes(new HashSet<>(placas));
+        return resultado;
+    }
+
+    private Contagem operar(SplittableRandom aleatorio, Usuario operador, List<String> placas, int[] motoristas,
+                            Set<Integer> codigosEntregues, CountDownLatch largada) throws InterruptedException {
+        Contagem contagem = new Contagem();
+        ServicoUtilizacao servico = new ServicoUtilizacao();
+        try {
+            largada.await();
+            long fim = System.nanoTime() + duracao.toNanos();
+            while (System.nanoTime() < fim && !Thread.currentThread().isInterrupted()) {
+                String placa = placas.get(aleatorio.nextInt(placas.size()));
+                boolean devolver = servico.veiculoEmUso(placa);
+                long inicio = System.nanoTime();
+                try {
+                    if (devolver) {
+                        servico.registrarDevolucao(placa, operador);
+                        contagem.devolucoes.registrar(System.nanoTime() - inicio);
+                    } else {
+                        Utilizacao u = servico.registrarRetirada(placa,
+                                motoristas[aleatorio.nextInt(motoristas.length)], operador);
+                        contagem.retiradas.registrar(System.nanoTime() - inicio);
+                        if (!codigosEntregues.add(u.getCodigo())) {
+                            contagem.codigosDuplicados++;
+                        }
+                    }
+                } catch (UtilizacaoException e) {
+                    // Outro posto retirou ou devolveu o mesmo veiculo antes
+                    contagem.conflitos++;
+                } catch (RuntimeException e) {
+                    if (e.getMessage() != null && e.getMessage().contains("codigo_1")) {
+                        contagem.codigosDuplicados++;
+                    } else {
+                        contagem.erros++;
+                        contagem.ultimoErro = e.toString();
+                    }
+                }
+                if (!pausaMaxima.isZero()) {
+                    Thread.sleep(aleatorio.nextLong(pausaMaxima.toMillis() + 1));
+                }
+            }
+        } finally {
+            servico.fecharConexao();
+        }
+        return contagem;
+    }
+
+    /**
+     * Conta, no banco, os veiculos da frota com mais de uma utilizacao em aberto.
+     */
+    private static long contarViolacoes(Set<String> placas) {
+        IRepositorio<Utilizacao> dao = Repositorios.para(Utilizacao.class);
+        try {
+            Map<String, Integer> abertasPorPlaca = new HashMap<>();
+            dao.percorrer(new Consulta().nulo("dataDevolucao").campos("codigo", "veiculo.placa"), u -> {
+                if (u.getVeiculo() != null && placas.contains(u.getVeiculo().getPlaca())) {
+                    abertasPorPlaca.merge(u.getVeiculo().getPlaca(), 1, Integer::sum);
+                }
+            });
+            return abertasPorPlaca.values().stream().filter(n -> n > 1).count();
+        } finally {
+            dao.fecharConexao();
+        }
+    }
+
+    /**
+     * Executa uma simulacao pela linha de comando: em memoria ou, com
+     * -Dfrota.repositorio=mongo, no banco "veiculos_carga" (ver BancoSeparado).
+     * Com o repositorio vazio uma frota e gerada antes (ver GeradorFrota).
+     *
+     * Uso: SimuladorOperadores [operadores] [segundos] [veiculos]
+     *
+     * @param args quantidade de operadores, duracao e tamanho da frota
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (!BancoSeparado.preparar("veiculos_carga")) {
+            System.exit(1);
+        }
+        GerenciadorIndices.garantirIndices();
+        int operadores = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int veiculos = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        try {
+            IRepositorio<Veiculo> daoVeiculo = Repositorios.para(Veiculo.class);
+            long cadastrados;
+            try {
+                cadastrados = daoVeiculo.contar();
+            } finally {
+                daoVeiculo.fecharConexao();
+            }
+            if (cadastrados == 0) {
+                System.out.println("Gerando frota: " + new GeradorFrota(42L).veiculos(veiculos).utilizacoes(0).gerar());
+            }
+            Resultado resultado = new SimuladorOperadores()
+                    .operadores(operadores)
+                    .duracao(Duration.ofSeconds(segundos))
+                    .veiculos(veiculos)
+                    .executar();
+            System.out.println(resultado);
+        } finally {
+            Conexao.encerrar();
+        }
+    }
+}